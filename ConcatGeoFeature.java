@@ -0,0 +1,94 @@
+package homework1;
+
+/**
+ * A ConcatGeoFeature is a view of two GeoFeatures with the same name, one
+ * followed by the other, as built by <tt>Route.concat</tt> when the last
+ * feature of a route and the first feature of the route appended to it are
+ * the same street.
+ * <p>
+ * The view shares the segments of both features, and its prefix lengths
+ * come from their prefix sums, so it is built in constant time. A chain of
+ * concatenations is a rope: segmentAt descends through one view per level.
+ */
+final class ConcatGeoFeature extends GeoFeature {
+
+	private final GeoFeature first_;
+	private final GeoFeature second_;
+	private final int depth_;
+
+	// Abstraction Function :
+	// represents the geographic feature named first_.name whose segments are
+	// the segments of first_ followed by the segments of second_.
+
+	// Representation Invariant :
+	// first != null and second != null and first.name = second.name and
+	// first.end = second.start and depth = 1 + max(first.viewDepth(),
+	// second.viewDepth())
+
+
+	/**
+	 * Constructs a view of one feature followed by another.
+	 * @requires first != null && second != null &&
+	 * 			 first.name = second.name && first.end = second.start
+	 * @effects Constructs the geographic feature whose segments are the
+	 * 			segments of first followed by the segments of second.
+	 */
+	ConcatGeoFeature(GeoFeature first, GeoFeature second) {
+		super(first.getName());
+		this.first_ = first;
+		this.second_ = second;
+		this.depth_ = 1 + Math.max(first.viewDepth(), second.viewDepth());
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (this.first_ != null) && (this.second_ != null) &&
+			   this.first_.getName().equals(this.second_.getName()) &&
+			   this.first_.getEnd().equals(this.second_.getStart());
+	}
+
+	/**
+	 * Returns the number of segments of this geographic feature.
+	 * @return the number of segments of this geographic feature.
+	 */
+	int segmentCount() {
+		return this.first_.segmentCount() + this.second_.segmentCount();
+	}
+
+	/**
+	 * Returns the total length of a prefix of this geographic feature.
+	 * @requires 0 <= count <= segmentCount()
+	 * @return the sum of the lengths of the first count segments of this
+	 * 		   geographic feature, in kilometers.
+	 */
+	double lengthTo(int count) {
+		int n = this.first_.segmentCount();
+		if(count <= n)
+			return this.first_.lengthTo(count);
+		return this.first_.lengthTo(n) + this.second_.lengthTo(count - n);
+	}
+
+	/**
+	 * Returns the segment at the given position of this geographic feature.
+	 * @requires 0 <= index < segmentCount()
+	 * @return the segment at the given position of this geographic feature.
+	 */
+	GeoSegment segmentAt(int index) {
+		int n = this.first_.segmentCount();
+		return (index < n) ? this.first_.segmentAt(index) :
+							 this.second_.segmentAt(index - n);
+	}
+
+	/**
+	 * Returns how many views lie between this geographic feature and the
+	 * spines holding its segments.
+	 * @return one more than the largest view depth of the two features.
+	 */
+	int viewDepth() {
+		return this.depth_;
+	}
+}
@@ -0,0 +1,119 @@
+package homework1;
+
+/**
+ * A ConcatRoute is a view of two Routes, one followed by the other, as
+ * returned by <tt>Route.concat</tt>.
+ * <p>
+ * The view shares the geographic features of both routes, and its prefix
+ * lengths come from their prefix sums, so it is built in constant time. When
+ * the last feature of the first route and the first feature of the second
+ * route have the same name, the view replaces them with a single merged
+ * feature (a ConcatGeoFeature), just like appending the segments of the
+ * second route one by one with addSegment would. A chain of concatenations
+ * is a rope: geoFeatureAt descends through one view per level.
+ */
+final class ConcatRoute extends Route {
+
+	private final Route first_;
+	private final Route second_;
+	private final GeoFeature merged_;
+	private final int depth_;
+
+	// Abstraction Function :
+	// represents the route whose geographic features are the features of
+	// first_ followed by the features of second_, with the last feature of
+	// first_ and the first feature of second_ replaced by merged_ when
+	// merged_ != null.
+
+	// Representation Invariant :
+	// first != null and second != null and first.end = second.start and
+	// merged != null iff the last feature of first and the first feature of
+	// second have the same name, and then merged has the segments of both,
+	// and depth = 1 + max(first.viewDepth(), second.viewDepth())
+
+
+	/**
+	 * Constructs a view of one route followed by another.
+	 * @requires first != null && second != null &&
+	 * 			 first.end = second.start and merged satisfies the
+	 * 			 representation invariant
+	 * @effects Constructs the route whose geographic features are the
+	 * 			features of first followed by the features of second, with
+	 * 			merged instead of the two boundary features if merged is
+	 * 			not null.
+	 */
+	ConcatRoute(Route first, Route second, GeoFeature merged) {
+		this.first_ = first;
+		this.second_ = second;
+		this.merged_ = merged;
+		this.depth_ = 1 + Math.max(first.viewDepth(), second.viewDepth());
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (this.first_ != null) && (this.second_ != null) &&
+			   ((this.merged_ != null) == this.first_.geoFeatureAt(
+					this.first_.geoFeatureCount() - 1).getName().equals(
+					this.second_.geoFeatureAt(0).getName()));
+	}
+
+	/**
+	 * Returns the number of geographic features of this route.
+	 * @return the number of geographic features of this route.
+	 */
+	int geoFeatureCount() {
+		return this.first_.geoFeatureCount() +
+			   this.second_.geoFeatureCount() -
+			   ((this.merged_ != null) ? 1 : 0);
+	}
+
+	/**
+	 * Returns the total length of a prefix of this route.
+	 * @requires 0 <= count <= geoFeatureCount()
+	 * @return the sum of the lengths of the first count geographic features
+	 * 		   of this route, in kilometers.
+	 */
+	double lengthTo(int count) {
+		int n = this.first_.geoFeatureCount();
+		if(this.merged_ != null) {
+			if(count < n)
+				return this.first_.lengthTo(count);
+			return this.first_.lengthTo(n) +
+				   this.second_.lengthTo(count - n + 1);
+		}
+		if(count <= n)
+			return this.first_.lengthTo(count);
+		return this.first_.lengthTo(n) + this.second_.lengthTo(count - n);
+	}
+
+	/**
+	 * Returns the geographic feature at the given position of this route.
+	 * @requires 0 <= index < geoFeatureCount()
+	 * @return the geographic feature at the given position of this route.
+	 */
+	GeoFeature geoFeatureAt(int index) {
+		int n = this.first_.geoFeatureCount();
+		if(this.merged_ != null) {
+			if(index < n - 1)
+				return this.first_.geoFeatureAt(index);
+			if(index == n - 1)
+				return this.merged_;
+			return this.second_.geoFeatureAt(index - n + 1);
+		}
+		return (index < n) ? this.first_.geoFeatureAt(index) :
+							 this.second_.geoFeatureAt(index - n);
+	}
+
+	/**
+	 * Returns how many views lie between this route and the spines holding
+	 * its geographic features.
+	 * @return one more than the largest view depth of the two routes.
+	 */
+	int viewDepth() {
+		return this.depth_;
+	}
+}
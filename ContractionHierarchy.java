@@ -0,0 +1,301 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A ContractionHierarchy is an immutable index over a RoadGraph that finds
+ * shortest routes much faster than searching the graph itself.
+ * <p>
+ * Building it contracts the nodes of the graph, from the least to the
+ * most important, adding shortcut arcs that keep the lengths
+ * of shortest routes between the remaining nodes (see Contractor). Every
+ * shortest route then goes up the hierarchy from its source and down to
+ * its target, so a query is a bidirectional Dijkstra search that only
+ * follows arcs towards more important nodes, from both ends, and settles a
+ * few hundred nodes even on large graphs. The shortcuts of the route found
+ * are unpacked back into the edges of the graph, so the result is a normal
+ * Route made of the GeoSegments of the graph.
+ * <p>
+ * Building is expensive and meant to be done once, offline; it contracts
+ * rounds of independent nodes on all the cores of the common ForkJoin pool.
+ * Queries are cheap, and a ContractionHierarchy is safe for concurrent
+ * queries: every thread reuses its own working arrays.
+ */
+public final class ContractionHierarchy {
+
+	private final RoadGraph graph_;
+
+	// the arcs of the hierarchy (see Contractor)
+	private final int[] arcFrom_;
+	private final int[] arcTo_;
+	private final int[] arcOriginal_;
+	private final int[] arcFirst_;
+	private final int[] arcSecond_;
+
+	// the upward graph: for every node v, the arcs from v to more important
+	// nodes are upStart_[v] .. upStart_[v + 1] - 1 of upTarget_,
+	// upWeight_ and upArc_
+	private final int[] upStart_;
+	private final int[] upTarget_;
+	private final double[] upWeight_;
+	private final int[] upArc_;
+
+	// the reversed downward graph: for every node v, the arcs to v from more
+	// important nodes are downStart_[v] .. downStart_[v + 1] - 1 of
+	// downSource_, downWeight_ and downArc_
+	private final int[] downStart_;
+	private final int[] downSource_;
+	private final double[] downWeight_;
+	private final int[] downArc_;
+
+	private final ThreadLocal<SearchScratch[]> scratch_;
+
+	// Abstraction Function :
+	// represents the graph graph_, indexed by its contraction hierarchy.
+
+	// Representation Invariant :
+	// upStart.length = downStart.length = graph.nodeCount() + 1, and every
+	// arc of the hierarchy appears once, either in the upward graph (at its
+	// source) or in the reversed downward graph (at its target), according
+	// to which of its endpoints is more important.
+
+
+	/**
+	 * Builds the contraction hierarchy of a graph.
+	 * @requires graph != null
+	 * @effects constructs the contraction hierarchy of graph.
+	 */
+	public ContractionHierarchy(RoadGraph graph) {
+		assert graph != null;
+		this.graph_ = graph;
+		int n = graph.nodeCount();
+		Contractor contractor = new Contractor(graph);
+		int[] rank = contractor.ranks();
+		int[] from = contractor.from();
+		int[] to = contractor.to();
+		double[] weight = contractor.weights();
+		this.arcFrom_ = from;
+		this.arcTo_ = to;
+		this.arcOriginal_ = contractor.originals();
+		this.arcFirst_ = contractor.firsts();
+		this.arcSecond_ = contractor.seconds();
+		int arcs = from.length;
+
+		// counting sort of the arcs into the upward and downward graphs
+		this.upStart_ = new int[n + 1];
+		this.downStart_ = new int[n + 1];
+		int ups = 0;
+		for(int a = 0; a < arcs; a++) {
+			if(rank[to[a]] > rank[from[a]]) {
+				this.upStart_[from[a] + 1]++;
+				ups++;
+			}
+			else
+				this.downStart_[to[a] + 1]++;
+		}
+		for(int v = 0; v < n; v++) {
+			this.upStart_[v + 1] += this.upStart_[v];
+			this.downStart_[v + 1] += this.downStart_[v];
+		}
+		this.upTarget_ = new int[ups];
+		this.upWeight_ = new double[ups];
+		this.upArc_ = new int[ups];
+		this.downSource_ = new int[arcs - ups];
+		this.downWeight_ = new double[arcs - ups];
+		this.downArc_ = new int[arcs - ups];
+		int[] upNext = Arrays.copyOf(this.upStart_, n);
+		int[] downNext = Arrays.copyOf(this.downStart_, n);
+		for(int a = 0; a < arcs; a++) {
+			if(rank[to[a]] > rank[from[a]]) {
+				int i = upNext[from[a]]++;
+				this.upTarget_[i] = to[a];
+				this.upWeight_[i] = weight[a];
+				this.upArc_[i] = a;
+			}
+			else {
+				int i = downNext[to[a]]++;
+				this.downSource_[i] = from[a];
+				this.downWeight_[i] = weight[a];
+				this.downArc_[i] = a;
+			}
+		}
+
+		this.scratch_ = ThreadLocal.withInitial(() -> new SearchScratch[] {
+				new SearchScratch(n), new SearchScratch(n)});
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		int n = this.graph_.nodeCount();
+		assert (this.upStart_.length == n + 1) &&
+			   (this.downStart_.length == n + 1) &&
+			   (this.upStart_[n] + this.downStart_[n] == this.arcFrom_.length);
+	}
+
+	/**
+	 * Returns the graph of this hierarchy.
+	 * @return the graph this hierarchy was built from.
+	 */
+	public RoadGraph getGraph() {
+		return this.graph_;
+	}
+
+	/**
+	 * Returns the number of shortcuts of this hierarchy.
+	 * @return the number of arcs this hierarchy added to its graph.
+	 */
+	public int shortcutCount() {
+		int shortcuts = 0;
+		for(int original : this.arcOriginal_)
+			if(original < 0)
+				shortcuts++;
+		return shortcuts;
+	}
+
+	/**
+	 * Finds a shortest route between two nodes.
+	 * @requires from != null && to != null
+	 * @return a shortest route from from to to, like
+	 * 		   getGraph().shortestRoute(from, to) (which may return another
+	 * 		   route of the same length).
+	 */
+	public Route shortestRoute(GeoPoint from, GeoPoint to) {
+		assert (from != null) && (to != null);
+		int source = this.graph_.node(from);
+		int target = this.graph_.node(to);
+		if(source < 0 || target < 0 || source == target)
+			return null;
+		SearchScratch[] scratch = this.scratch_.get();
+		int meeting = search(scratch[0], scratch[1], source, target);
+		if(meeting < 0)
+			return null;
+
+		// the arcs up from source to the meeting node, then down to target
+		List<Integer> arcs = new ArrayList<Integer>();
+		for(int v = meeting; v != source; v = this.arcFrom_[
+				scratch[0].parentEdge(v)])
+			arcs.add(scratch[0].parentEdge(v));
+		Collections.reverse(arcs);
+		for(int v = meeting; v != target; v = this.arcTo_[
+				scratch[1].parentEdge(v)])
+			arcs.add(scratch[1].parentEdge(v));
+
+		RouteBuilder builder = new RouteBuilder();
+		for(int a : arcs)
+			unpack(a, builder);
+		return builder.build();
+	}
+
+	/**
+	 * Computes the length of a shortest route between two nodes.
+	 * @requires from != null && to != null
+	 * @return getGraph().shortestDistance(from, to)
+	 */
+	public double shortestDistance(GeoPoint from, GeoPoint to) {
+		assert (from != null) && (to != null);
+		int source = this.graph_.node(from);
+		int target = this.graph_.node(to);
+		if(source < 0 || target < 0)
+			return Double.POSITIVE_INFINITY;
+		SearchScratch[] scratch = this.scratch_.get();
+		int meeting = search(scratch[0], scratch[1], source, target);
+		return (meeting < 0) ? Double.POSITIVE_INFINITY :
+			   scratch[0].distance(meeting) + scratch[1].distance(meeting);
+	}
+
+	/**
+	 * Runs the bidirectional search of a query.
+	 * @requires source and target are nodes
+	 * @modifies forward, backward
+	 * @effects forward holds the upward search from source and backward the
+	 * 			upward search, over the reversed downward graph, from target.
+	 * @return the node where a shortest route from source to target goes
+	 * 		   from up to down, or -1 if there is no such route.
+	 */
+	private int search(SearchScratch forward, SearchScratch backward,
+					   int source, int target) {
+		forward.reset();
+		backward.reset();
+		forward.reach(source, 0, -1);
+		forward.queue().push(0, source);
+		backward.reach(target, 0, -1);
+		backward.queue().push(0, target);
+		double best = Double.POSITIVE_INFINITY;
+		int meeting = -1;
+
+		MinHeap forwardQueue = forward.queue();
+		MinHeap backwardQueue = backward.queue();
+		while(true) {
+			boolean forwardDone = forwardQueue.isEmpty() ||
+								  forwardQueue.peekKey() >= best;
+			boolean backwardDone = backwardQueue.isEmpty() ||
+								   backwardQueue.peekKey() >= best;
+			if(forwardDone && backwardDone)
+				return meeting;
+
+			// advance the side whose next node is nearer
+			boolean isForward = backwardDone || !forwardDone &&
+					forwardQueue.peekKey() <= backwardQueue.peekKey();
+			SearchScratch scratch = isForward ? forward : backward;
+			SearchScratch other = isForward ? backward : forward;
+			int[] start = isForward ? this.upStart_ : this.downStart_;
+			int[] next = isForward ? this.upTarget_ : this.downSource_;
+			double[] weight = isForward ? this.upWeight_ : this.downWeight_;
+			int[] arc = isForward ? this.upArc_ : this.downArc_;
+
+			int v = scratch.queue().pop();
+			if(scratch.isClosed(v))
+				continue;
+			scratch.close(v);
+			double distance = scratch.distance(v);
+			if(other.isReached(v) && distance + other.distance(v) < best) {
+				best = distance + other.distance(v);
+				meeting = v;
+			}
+			for(int i = start[v]; i < start[v + 1]; i++) {
+				int w = next[i];
+				double d = distance + weight[i];
+				if(d < scratch.distance(w)) {
+					scratch.reach(w, d, arc[i]);
+					scratch.queue().push(d, w);
+					if(other.isReached(w) && d + other.distance(w) < best) {
+						best = d + other.distance(w);
+						meeting = w;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Appends the segments an arc stands for to a route being built.
+	 * @requires 0 <= a < number of arcs and the segments of a continue the
+	 * 			 route being built by builder
+	 * @modifies builder
+	 * @effects appends the edges of the graph that arc a unpacks to, in
+	 * 			order, to builder.
+	 */
+	private void unpack(int a, RouteBuilder builder) {
+		int[] stack = new int[16];
+		int top = 0;
+		stack[top++] = a;
+		while(top > 0) {
+			int arc = stack[--top];
+			if(this.arcOriginal_[arc] >= 0) {
+				builder.add(this.graph_.edgeSegment(this.arcOriginal_[arc]));
+				continue;
+			}
+			if(top + 2 > stack.length)
+				stack = Arrays.copyOf(stack, 2 * stack.length);
+			stack[top++] = this.arcSecond_[arc];
+			stack[top++] = this.arcFirst_[arc];
+		}
+	}
+}
@@ -0,0 +1,581 @@
+package homework1;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A Contractor computes a contraction hierarchy of a RoadGraph: it removes
+ * (contracts) the nodes of the graph, from the least to the most
+ * important, and whenever a shortest route went through a contracted node
+ * it adds a shortcut arc that bypasses it. The order of contraction is the
+ * rank of each node in the hierarchy.
+ * <p>
+ * The arcs of the hierarchy are the edges of the graph (except loops)
+ * followed by the shortcuts. A shortcut from u to w through v is made of
+ * two arcs, from u to v and from v to w, which are its children.
+ * <p>
+ * The importance of a node is estimated by twice the number of shortcuts
+ * its contraction would add, minus the number of arcs it would remove, plus
+ * the number of its arcs to neighbors already contracted (which spreads
+ * contraction evenly over the graph), plus its level: one more than the
+ * largest level of its contracted neighbors (which keeps the hierarchy, and
+ * so the searches of queries, shallow).
+ * <p>
+ * Whether a shortcut is needed is decided by a witness search: a bounded
+ * Dijkstra search for another route, at most as long, that avoids the node.
+ * Witness searches that give up add a shortcut which may not be needed,
+ * which never makes the hierarchy wrong.
+ * <p>
+ * Nodes are contracted in rounds, using all the cores of the common
+ * ForkJoin pool. A round selects the nodes that are less important than
+ * every node within NEIGHBORHOOD hops, which are independent: no two of
+ * them are neighbors. Their witness searches run in parallel, on a
+ * SearchScratch per thread, and avoid the nodes selected before them in the
+ * round: that is a part of the graph the same nodes, contracted one at a
+ * time in that order, would search, so the hierarchy stays correct. The
+ * searches also estimate the selected nodes again, and only those still
+ * less important than their neighborhood are contracted (a lazy update, as
+ * a node contracted earlier may have changed their witnesses). The
+ * shortcuts are then added, and the neighbors of the contracted nodes
+ * estimated again in parallel.
+ */
+final class Contractor {
+
+	// witness searches give up after settling this many nodes
+	private static final int SETTLE_LIMIT = 256;
+
+	// a node is contracted in a round once it is less important than every
+	// node within this many hops
+	private static final int NEIGHBORHOOD = 2;
+
+	private final RoadGraph graph_;
+	private final int nodes_;
+
+	// the arcs of the hierarchy; original_ is the edge of an arc of the
+	// graph, or -1 for a shortcut, whose children are first_ and second_
+	private int[] from_;
+	private int[] to_;
+	private double[] weight_;
+	private int[] original_;
+	private int[] first_;
+	private int[] second_;
+	private int arcs_;
+
+	// the arcs leaving and entering every node; once a node is contracted,
+	// its arcs are removed from the lists of its neighbors
+	private final int[][] out_;
+	private final int[] outCount_;
+	private final int[][] in_;
+	private final int[] inCount_;
+
+	private final boolean[] contracted_;
+	private final int[] contractedNeighbors_;
+	private final int[] priority_;
+	private final int[] rank_;
+	// the round in which each node was selected for contraction, or 0
+	private final int[] selected_;
+	// one more than the largest level of the contracted neighbors of each
+	// node, or 0
+	private final int[] level_;
+	// the last round in which each node was a neighbor of a contracted node
+	private final int[] updated_;
+
+	private final ThreadLocal<SearchScratch> scratch_;
+	// target[w] = v while the contraction of v is simulated, for every
+	// neighbor w that v has an arc to, and -1 otherwise
+	private final ThreadLocal<int[]> target_;
+
+	// Abstraction Function :
+	// represents the graph obtained from graph_ by contracting the nodes v
+	// such that contracted_[v], in the order given by rank_, whose arcs are
+	// the arcs 0 .. arcs_ - 1 between nodes that are not contracted.
+
+	// Representation Invariant :
+	// for every arc a < arcs, a is in out[from[a]] and in in[to[a]], and
+	// the weight of a is the length of the route made of the edges it
+	// unpacks to, and rank[v] = -1 iff v is not contracted
+
+
+	/**
+	 * Constructs a Contractor for a graph, and contracts all of its nodes.
+	 * @requires graph != null
+	 * @effects constructs the contraction hierarchy of graph.
+	 */
+	Contractor(RoadGraph graph) {
+		this.graph_ = graph;
+		int n = graph.nodeCount();
+		int m = graph.edgeCount();
+		this.nodes_ = n;
+		this.from_ = new int[Math.max(16, 2 * m)];
+		this.to_ = new int[this.from_.length];
+		this.weight_ = new double[this.from_.length];
+		this.original_ = new int[this.from_.length];
+		this.first_ = new int[this.from_.length];
+		this.second_ = new int[this.from_.length];
+		this.arcs_ = 0;
+		this.out_ = new int[n][];
+		this.outCount_ = new int[n];
+		this.in_ = new int[n][];
+		this.inCount_ = new int[n];
+		this.contracted_ = new boolean[n];
+		this.contractedNeighbors_ = new int[n];
+		this.priority_ = new int[n];
+		this.rank_ = new int[n];
+		this.selected_ = new int[n];
+		this.level_ = new int[n];
+		this.updated_ = new int[n];
+		this.scratch_ = ThreadLocal.withInitial(() -> new SearchScratch(n));
+		this.target_ = ThreadLocal.withInitial(() -> {
+			int[] target = new int[n];
+			Arrays.fill(target, -1);
+			return target;
+		});
+
+		for(int v = 0; v < n; v++) {
+			int degree = graph.edgeStart(v + 1) - graph.edgeStart(v);
+			this.out_[v] = new int[Math.max(2, degree)];
+			this.in_[v] = new int[4];
+			this.rank_[v] = -1;
+			this.updated_[v] = -1;
+		}
+		for(int v = 0; v < n; v++)
+			for(int e = graph.edgeStart(v); e < graph.edgeStart(v + 1); e++)
+				if(graph.edgeTarget(e) != v)
+					addArc(v, graph.edgeTarget(e), graph.edgeLength(e), e,
+						   -1, -1);
+
+		contract();
+	}
+
+	/**
+	 * Adds an arc to the hierarchy.
+	 * @modifies this
+	 * @effects adds an arc from u to w of the given weight, edge and
+	 * 			children.
+	 * @return the index of the new arc.
+	 */
+	private int addArc(int u, int w, double weight, int original, int first,
+					   int second) {
+		int a = this.arcs_++;
+		if(a == this.from_.length) {
+			int capacity = 2 * a;
+			this.from_ = Arrays.copyOf(this.from_, capacity);
+			this.to_ = Arrays.copyOf(this.to_, capacity);
+			this.weight_ = Arrays.copyOf(this.weight_, capacity);
+			this.original_ = Arrays.copyOf(this.original_, capacity);
+			this.first_ = Arrays.copyOf(this.first_, capacity);
+			this.second_ = Arrays.copyOf(this.second_, capacity);
+		}
+		this.from_[a] = u;
+		this.to_[a] = w;
+		this.weight_[a] = weight;
+		this.original_[a] = original;
+		this.first_[a] = first;
+		this.second_[a] = second;
+
+		if(this.outCount_[u] == this.out_[u].length)
+			this.out_[u] = Arrays.copyOf(this.out_[u], 2 * this.outCount_[u]);
+		this.out_[u][this.outCount_[u]++] = a;
+		if(this.inCount_[w] == this.in_[w].length)
+			this.in_[w] = Arrays.copyOf(this.in_[w], 2 * this.inCount_[w]);
+		this.in_[w][this.inCount_[w]++] = a;
+		return a;
+	}
+
+	/**
+	 * Contracts every node of the graph.
+	 * @modifies this
+	 * @effects contracts every node, setting its rank.
+	 */
+	private void contract() {
+		// estimating the importance of a node only reads the arcs, so all
+		// nodes are estimated in parallel
+		IntStream.range(0, this.nodes_).parallel().forEach(
+				v -> this.priority_[v] = importance(v, simulate(v, 0, null)));
+
+		int[] remaining = new int[this.nodes_];
+		for(int v = 0; v < this.nodes_; v++)
+			remaining[v] = v;
+		int left = this.nodes_;
+		int rank = 0;
+		for(int round = 1; left > 0; round++) {
+			// the nodes less important than every node within NEIGHBORHOOD
+			// hops are independent: no two of them are neighbors
+			int[] candidates = IntStream.of(remaining).limit(left)
+					.parallel().filter(this::isLocalMinimum).toArray();
+			for(int i = 0; i < candidates.length; i++) {
+				this.selected_[candidates[i]] = round;
+				this.rank_[candidates[i]] = rank + i;
+			}
+
+			// the witness searches of the round only read the arcs, and
+			// avoid the nodes selected before, so they run in parallel; they
+			// also estimate the importance of the selected nodes again
+			final int r = round;
+			final int[] selected = candidates;
+			final int[][] shortcuts = new int[selected.length][];
+			IntStream.range(0, selected.length).parallel().forEach(i -> {
+				int v = selected[i];
+				int[] pairs = new int[2 * this.inCount_[v] *
+									  this.outCount_[v]];
+				int count = simulate(v, r, pairs);
+				shortcuts[i] = Arrays.copyOf(pairs, 2 * count);
+				this.priority_[v] = importance(v, count);
+			});
+
+			// lazy update: contract only the selected nodes that are still
+			// local minima (or all of them, so that every round contracts
+			// some node), in the order they were selected in
+			int kept = 0;
+			for(int i = 0; i < selected.length; i++) {
+				int v = selected[i];
+				this.rank_[v] = -1;
+				if(isLocalMinimum(v)) {
+					selected[kept] = v;
+					shortcuts[kept++] = shortcuts[i];
+				}
+			}
+			if(kept == 0)
+				kept = selected.length;
+			candidates = Arrays.copyOf(selected, kept);
+
+			for(int i = 0; i < candidates.length; i++) {
+				int v = candidates[i];
+				int[] pairs = shortcuts[i];
+				for(int j = 0; j < pairs.length; j += 2) {
+					int a = pairs[j];
+					int b = pairs[j + 1];
+					int u = this.from_[a];
+					int w = this.to_[b];
+					double via = this.weight_[a] + this.weight_[b];
+					if(!hasArc(u, w, via))
+						addArc(u, w, via, -1, a, b);
+				}
+				this.contracted_[v] = true;
+				this.rank_[v] = rank++;
+			}
+
+			// remove the arcs of the contracted nodes from their neighbors
+			int[] neighbors = new int[16];
+			int count = 0;
+			for(int v : candidates) {
+				for(int i = 0; i < this.outCount_[v]; i++) {
+					int w = this.to_[this.out_[v][i]];
+					remove(this.in_[w], this.inCount_, w, this.out_[v][i]);
+					this.contractedNeighbors_[w]++;
+					this.level_[w] = Math.max(this.level_[w],
+											  this.level_[v] + 1);
+				}
+				for(int i = 0; i < this.inCount_[v]; i++) {
+					int u = this.from_[this.in_[v][i]];
+					remove(this.out_[u], this.outCount_, u, this.in_[v][i]);
+					this.contractedNeighbors_[u]++;
+					this.level_[u] = Math.max(this.level_[u],
+											  this.level_[v] + 1);
+				}
+				for(int k = 0; k < 2; k++) {
+					int degree = (k == 0) ? this.outCount_[v] :
+											this.inCount_[v];
+					for(int i = 0; i < degree; i++) {
+						int w = (k == 0) ? this.to_[this.out_[v][i]] :
+										   this.from_[this.in_[v][i]];
+						if(this.updated_[w] == round)
+							continue;
+						this.updated_[w] = round;
+						if(count == neighbors.length)
+							neighbors = Arrays.copyOf(neighbors, 2 * count);
+						neighbors[count++] = w;
+					}
+				}
+			}
+
+			// estimate the neighbors again, in parallel
+			IntStream.of(neighbors).limit(count).parallel().forEach(
+					w -> this.priority_[w] = importance(w, simulate(w, 0,
+																  null)));
+
+			kept = 0;
+			for(int i = 0; i < left; i++)
+				if(!this.contracted_[remaining[i]])
+					remaining[kept++] = remaining[i];
+			left = kept;
+		}
+	}
+
+	/**
+	 * Returns whether a node is less important than every node that is not
+	 * contracted within NEIGHBORHOOD hops of it.
+	 * @requires v is not contracted
+	 * @return true iff v precedes every node that is not contracted within
+	 * 		   NEIGHBORHOOD arcs of it, in the order of importance broken by
+	 * 		   a hash of the nodes.
+	 */
+	private boolean isLocalMinimum(int v) {
+		return isLocalMinimum(v, v, NEIGHBORHOOD);
+	}
+
+	/**
+	 * Returns whether a node precedes the nodes near another one.
+	 * @requires v and x are not contracted and hops >= 0
+	 * @return true iff v precedes every node other than v that is not
+	 * 		   contracted within hops arcs of x.
+	 */
+	private boolean isLocalMinimum(int v, int x, int hops) {
+		if(hops == 0)
+			return true;
+		for(int k = 0; k < 2; k++) {
+			int degree = (k == 0) ? this.outCount_[x] : this.inCount_[x];
+			for(int i = 0; i < degree; i++) {
+				int w = (k == 0) ? this.to_[this.out_[x][i]] :
+								   this.from_[this.in_[x][i]];
+				if(w != v && !precedes(v, w))
+					return false;
+				if(!isLocalMinimum(v, w, hops - 1))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compares the importance of two nodes.
+	 * @requires v != w
+	 * @return true iff v is less important than w, ties broken by a hash
+	 * 		   of the nodes (so that the order does not follow the order in
+	 * 		   which the nodes were added).
+	 */
+	private boolean precedes(int v, int w) {
+		if(this.priority_[v] != this.priority_[w])
+			return this.priority_[v] < this.priority_[w];
+		return v * 0x9E3779B9 < w * 0x9E3779B9;
+	}
+
+	/**
+	 * Removes an arc from a list of arcs of a node.
+	 * @requires arc is in arcs[0 .. counts[v] - 1]
+	 * @modifies arcs, counts
+	 * @effects removes arc from arcs[0 .. counts[v] - 1], in any order.
+	 */
+	private static void remove(int[] arcs, int[] counts, int v, int arc) {
+		for(int i = 0; i < counts[v]; i++) {
+			if(arcs[i] == arc) {
+				arcs[i] = arcs[--counts[v]];
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Simulates the contraction of a node, finding the shortcuts it needs.
+	 * The witness searches avoid v, and also the nodes selected before v
+	 * in the given round, so that the nodes of a round can be contracted
+	 * together; round 0 selects no node.
+	 * @requires v is not contracted and pairs is null or
+	 * 			 pairs.length >= 2 * inCount[v] * outCount[v]
+	 * @modifies pairs
+	 * @effects if pairs != null, stores every shortcut needed to contract v
+	 * 			as the pair of arcs it is made of: the arc into v at
+	 * 			pairs[2i] and the arc out of v at pairs[2i + 1].
+	 * @return the number of shortcuts needed to contract v.
+	 */
+	private int simulate(int v, int round, int[] pairs) {
+		SearchScratch scratch = this.scratch_.get();
+		int shortcuts = 0;
+		int inCount = this.inCount_[v];
+		int outCount = this.outCount_[v];
+		int[] target = this.target_.get();
+		int liveOut = 0;
+		int targets = 0;
+		double maxOut = 0;
+		for(int j = 0; j < outCount; j++) {
+			int b = this.out_[v][j];
+			int w = this.to_[b];
+			if(!this.contracted_[w]) {
+				maxOut = Math.max(maxOut, this.weight_[b]);
+				liveOut++;
+				if(target[w] != v) {
+					target[w] = v;
+					targets++;
+				}
+			}
+		}
+
+		for(int i = 0; i < inCount; i++) {
+			int a = this.in_[v][i];
+			int u = this.from_[a];
+			if(this.contracted_[u] || liveOut == 0)
+				continue;
+
+			// find witnesses from u that avoid v
+			witnessSearch(scratch, u, v, round, this.weight_[a] + maxOut,
+						  target, (target[u] == v) ? targets - 1 : targets);
+			for(int j = 0; j < outCount; j++) {
+				int b = this.out_[v][j];
+				int w = this.to_[b];
+				if(w == u || this.contracted_[w])
+					continue;
+				double via = this.weight_[a] + this.weight_[b];
+				// routes of equal length summed in another order may differ
+				// in the last bits
+				if(scratch.distance(w) <= via * (1 + 1e-12))
+					continue;
+				if(pairs != null) {
+					pairs[2 * shortcuts] = a;
+					pairs[2 * shortcuts + 1] = b;
+				}
+				shortcuts++;
+			}
+		}
+		for(int j = 0; j < outCount; j++)
+			target[this.to_[this.out_[v][j]]] = -1;
+		return shortcuts;
+	}
+
+	/**
+	 * Returns the importance of a node.
+	 * @requires v is not contracted and shortcuts is the number of
+	 * 			 shortcuts needed to contract v
+	 * @return twice shortcuts, minus the arcs of v to nodes that are not
+	 * 		   contracted, plus the number of arcs of v to neighbors already
+	 * 		   contracted, plus the level of v.
+	 */
+	private int importance(int v, int shortcuts) {
+		int removed = 0;
+		for(int i = 0; i < this.outCount_[v]; i++)
+			if(!this.contracted_[this.to_[this.out_[v][i]]])
+				removed++;
+		for(int i = 0; i < this.inCount_[v]; i++)
+			if(!this.contracted_[this.from_[this.in_[v][i]]])
+				removed++;
+		return 2 * shortcuts - removed + this.contractedNeighbors_[v] +
+			   this.level_[v];
+	}
+
+	/**
+	 * Returns whether an arc at most as heavy as a given weight joins two
+	 * nodes.
+	 * @return true iff there is an arc from u to w whose weight is at most
+	 * 		   weight.
+	 */
+	private boolean hasArc(int u, int w, double weight) {
+		for(int i = 0; i < this.outCount_[u]; i++) {
+			int a = this.out_[u][i];
+			if(this.to_[a] == w && this.weight_[a] <= weight)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Runs a bounded Dijkstra search over the nodes that are not contracted.
+	 * @modifies scratch
+	 * @requires targets is the number of nodes x other than source such
+	 * 			 that target[x] = avoid
+	 * @effects maps the nodes reached from source without going through
+	 * 			avoid nor the nodes selected in the given round, within a
+	 * 			distance of limit and SETTLE_LIMIT settled nodes, to an upper
+	 * 			bound of their distance from source; the search stops early
+	 * 			once all of those targets are settled.
+	 */
+	private void witnessSearch(SearchScratch scratch, int source, int avoid,
+							   int round, double limit, int[] target,
+							   int targets) {
+		scratch.reset();
+		MinHeap queue = scratch.queue();
+		scratch.reach(source, 0, -1);
+		queue.push(0, source);
+		int settled = 0;
+		while(!queue.isEmpty() && settled < SETTLE_LIMIT) {
+			if(queue.peekKey() > limit)
+				break;
+			int x = queue.pop();
+			if(scratch.isClosed(x))
+				continue;
+			scratch.close(x);
+			settled++;
+			if(target[x] == avoid && x != source && --targets == 0)
+				break;
+			double distance = scratch.distance(x);
+			for(int i = 0; i < this.outCount_[x]; i++) {
+				int a = this.out_[x][i];
+				int y = this.to_[a];
+				if(y == avoid || this.contracted_[y] ||
+				   (this.selected_[y] == round &&
+					this.rank_[y] < this.rank_[avoid]))
+					continue;
+				double d = distance + this.weight_[a];
+				if(d < scratch.distance(y)) {
+					scratch.reach(y, d, a);
+					queue.push(d, y);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of arcs of the hierarchy.
+	 * @return the number of arcs of the hierarchy.
+	 */
+	int arcCount() {
+		return this.arcs_;
+	}
+
+	/**
+	 * Returns the rank of every node.
+	 * @return rank, such that node v was the rank[v]-th node contracted.
+	 */
+	int[] ranks() {
+		return this.rank_;
+	}
+
+	/**
+	 * Returns the sources of the arcs.
+	 * @return a, such that a[i] is the node arc i leaves.
+	 */
+	int[] from() {
+		return Arrays.copyOf(this.from_, this.arcs_);
+	}
+
+	/**
+	 * Returns the targets of the arcs.
+	 * @return a, such that a[i] is the node arc i enters.
+	 */
+	int[] to() {
+		return Arrays.copyOf(this.to_, this.arcs_);
+	}
+
+	/**
+	 * Returns the weights of the arcs.
+	 * @return a, such that a[i] is the weight of arc i, in kilometers.
+	 */
+	double[] weights() {
+		return Arrays.copyOf(this.weight_, this.arcs_);
+	}
+
+	/**
+	 * Returns the edges of the arcs.
+	 * @return a, such that a[i] is the edge of the graph of arc i, or -1 if
+	 * 		   arc i is a shortcut.
+	 */
+	int[] originals() {
+		return Arrays.copyOf(this.original_, this.arcs_);
+	}
+
+	/**
+	 * Returns the first children of the arcs.
+	 * @return a, such that a[i] is the first arc shortcut i is made of, or
+	 * 		   -1 if arc i is an edge of the graph.
+	 */
+	int[] firsts() {
+		return Arrays.copyOf(this.first_, this.arcs_);
+	}
+
+	/**
+	 * Returns the second children of the arcs.
+	 * @return a, such that a[i] is the second arc shortcut i is made of, or
+	 * 		   -1 if arc i is an edge of the graph.
+	 */
+	int[] seconds() {
+		return Arrays.copyOf(this.second_, this.arcs_);
+	}
+}
@@ -0,0 +1,57 @@
+package homework1;
+
+/**
+ * A DistanceModel computes the distance between two points on the earth.
+ * <p>
+ * GeoPoints, GeoSegments, GeoFeatures and Routes measure lengths with the
+ * <tt>FLAT</tt> model unless another model is passed to them. The provided
+ * models are:
+ * <ul>
+ * <li><tt>FLAT</tt> - the flat-surface approximation with fixed kilometers
+ *     per degree, which is only accurate near the Technion.</li>
+ * <li><tt>EQUIRECTANGULAR</tt> - a flat-surface approximation that scales
+ *     longitudes by the cosine of the mean latitude of the two points, read
+ *     from a precomputed table. It is accurate to within 0.1% for the
+ *     distances between points of a road network anywhere on the earth, and
+ *     costs about twice as much as <tt>FLAT</tt>.</li>
+ * <li><tt>HAVERSINE</tt> - the great-circle distance on a spherical earth,
+ *     accurate for any two points, and about ten times as expensive as
+ *     <tt>EQUIRECTANGULAR</tt>.</li>
+ * </ul>
+ * The spherical models use an earth of radius <tt>EARTH_RADIUS</tt>.
+ */
+public interface DistanceModel {
+
+	/** Mean radius of the earth, in kilometers. **/
+	double EARTH_RADIUS = 6371.0088;
+
+	/** The flat-surface, near the Technion approximation. **/
+	DistanceModel FLAT = GeoPoint::distance;
+
+	/** The equirectangular approximation, with a table of cosines. **/
+	DistanceModel EQUIRECTANGULAR = new EquirectangularModel();
+
+	/** The great-circle distance on a spherical earth. **/
+	DistanceModel HAVERSINE = new HaversineModel();
+
+	/**
+	 * Computes the distance between two points given by their coordinates.
+	 * @requires the coordinates, in millionths of degrees, are valid
+	 * @return the distance from (latitude1, longitude1) to
+	 * 		   (latitude2, longitude2), in kilometers, according to this model.
+	 */
+	double distance(int latitude1, int longitude1, int latitude2,
+					int longitude2);
+
+	/**
+	 * Computes the distance between GeoPoints.
+	 * @requires p1 != null && p2 != null
+	 * @return the distance from p1 to p2, in kilometers, according to this
+	 * 		   model.
+	 */
+	default double distance(GeoPoint p1, GeoPoint p2) {
+		assert (p1 != null) && (p2 != null);
+		return distance(p1.getLatitude(), p1.getLongitude(), p2.getLatitude(),
+						p2.getLongitude());
+	}
+}
@@ -1,7 +1,6 @@
 package homework1;
 
-import java.math.*;
-import java.text.DecimalFormat;
+import java.io.IOException;
 
 /**
  * The DrivingDirections class creates a textual description of directions
@@ -52,30 +51,110 @@ public class DrivingRouteFormatter extends RouteFormatter {
      **/
   	public String computeLine(GeoFeature geoFeature, double origHeading) {
   		assert (0 <= origHeading) && (origHeading < 360) && (geoFeature != null);
-  		
-  		// use of Decimal Format to get the suitable length :
-  		String pattern = "##.#";
-  		DecimalFormat decimalFormat = new DecimalFormat(pattern);
-  		String format = decimalFormat.format(geoFeature.getLength());
-  		
-  		
-  		double newHeading = geoFeature.getStartHeading();
-  		String direction = this.getTurnString(origHeading, newHeading) + 
-  						   " onto " + geoFeature.getName() + " and go "
-  						   + format + " kilometers.";
-  		
-  	    
-  		return direction;
-  						   
-  		
-  		// Implementation hint:
-		// You may find the class java.text.DecimalFormat useful when
-		// implementing this method. More info can be found at:
-  	    // http://docs.oracle.com/javase/tutorial/java/data/numberformat.html
-  		// and at:
-  		// http://docs.oracle.com/javase/8/docs/api/java/text/DecimalFormat.html
-		   		
-  		// TODO Implement this method
+  		StringBuilder line = new StringBuilder(64);
+  		try {
+  			appendLine(geoFeature, origHeading, line);
+  		}
+  		catch(IOException e) {
+  			// a StringBuilder never throws
+  			throw new AssertionError(e);
+  		}
+  		return line.toString();
+  	}
+
+  	/**
+  	 * Writes the directions for traversing a route, one line per
+  	 * geographic feature, straight into an Appendable.
+  	 * @requires route != null && out != null && 0 <= heading < 360
+  	 * @modifies out
+  	 * @effects appends to out, for every geographic feature of route in
+  	 * 			order, its line (as computed by computeLine, from the end
+  	 * 			heading of the previous feature, or heading for the first)
+  	 * 			followed by a newline. Nothing is allocated per line.
+  	 * @throws IOException if out throws it.
+  	 */
+  	public void writeDirections(Route route, double heading, Appendable out)
+  			throws IOException {
+  		assert (route != null) && (out != null) &&
+  			   (0 <= heading) && (heading < 360);
+  		for(int i = 0; i < route.geoFeatureCount(); i++) {
+  			GeoFeature geoFeature = route.geoFeatureAt(i);
+  			appendLine(geoFeature, heading, out);
+  			out.append('\n');
+  			heading = geoFeature.getEndHeading();
+  		}
+  	}
+
+  	/**
+  	 * Writes a single line of directions into an Appendable.
+  	 * @requires geoFeature != null && out != null && 0 <= origHeading < 360
+  	 * @modifies out
+  	 * @effects appends computeLine(geoFeature, origHeading) to out.
+  	 * @throws IOException if out throws it.
+  	 */
+  	public void appendLine(GeoFeature geoFeature, double origHeading,
+  						   Appendable out) throws IOException {
+  		assert (0 <= origHeading) && (origHeading < 360) && (geoFeature != null);
+  		out.append(this.getTurnString(origHeading,
+  				geoFeature.getStartHeading()));
+  		out.append(" onto ");
+  		out.append(geoFeature.getName());
+  		out.append(" and go ");
+  		appendKilometers(geoFeature.getLength(), out);
+  		out.append(" kilometers.");
+  	}
+
+  	/**
+  	 * Writes a length rounded to a tenth, like DecimalFormat("##.#") in an
+  	 * English locale writes it: half-even rounding of the exact value of
+  	 * the double, and no ".0" for whole numbers. The separator is always
+  	 * '.', whatever the default locale (the DecimalFormat this replaces
+  	 * used the symbols of the default locale).
+  	 * @requires 0 <= length < 2^52 / 10
+  	 * @modifies out
+  	 * @effects appends length, rounded to a tenth, to out.
+  	 * @throws IOException if out throws it.
+  	 */
+  	static void appendKilometers(double length, Appendable out)
+  			throws IOException {
+  		// 10 * length = high + low exactly, since 8 * length and 2 * length
+  		// are exact and their rounding error is recovered by Fast2Sum
+  		double eight = 8 * length;
+  		double high = eight + 2 * length;
+  		double low = 2 * length - (high - eight);
+
+  		// tenths = floor(10 * length): high - tenths is exact when it is
+  		// small enough for low to change its sign (Sterbenz)
+  		long tenths = (long)high;
+  		while(tenths > 0 && (high - tenths) + low < 0)
+  			tenths--;
+  		while((high - (tenths + 1)) + low >= 0)
+  			tenths++;
+  		// round half even, comparing 20 * length with 2 * tenths + 1
+  		double half = (2 * high - (2 * tenths + 1)) + 2 * low;
+  		if(half > 0 || half == 0 && (tenths & 1) != 0)
+  			tenths++;
+  		appendDigits(tenths / 10, out);
+  		if(tenths % 10 != 0) {
+  			out.append('.');
+  			out.append((char)('0' + tenths % 10));
+  		}
+  	}
+
+  	/**
+  	 * Writes a number in decimal.
+  	 * @requires n >= 0
+  	 * @modifies out
+  	 * @effects appends the decimal digits of n to out.
+  	 * @throws IOException if out throws it.
+  	 */
+  	private static void appendDigits(long n, Appendable out)
+  			throws IOException {
+  		long power = 1;
+  		while(power <= n / 10)
+  			power *= 10;
+  		for(; power > 0; power /= 10)
+  			out.append((char)('0' + n / power % 10));
   	}
 
 }
@@ -0,0 +1,83 @@
+package homework1;
+
+/**
+ * The equirectangular DistanceModel: points are projected on a plane whose
+ * longitudes are scaled by the cosine of their mean latitude.
+ * <p>
+ * The cosines are read from a table with one entry for every bucket of
+ * <tt>BUCKET</tt> millionths of a degree of latitude, holding the cosine of
+ * the middle of the bucket. This keeps their relative error under 1e-4 up to
+ * 80 degrees north or south, and the whole model is computed with integer
+ * and multiplication arithmetic besides a single square root.
+ */
+final class EquirectangularModel implements DistanceModel {
+
+	/** Width of a bucket of the cosine table, in millionths of degrees. **/
+	static final int BUCKET = 1000;
+
+	private static final double KM_PER_UNIT =
+			EARTH_RADIUS * Math.PI / 180 / 1000000;
+
+	private static final int FULL_CIRCLE = 360 * 1000000;
+
+	// cos(latitude) for the middle of every bucket of latitudes
+	private static final float[] COSINES = cosines();
+
+	// Abstraction Function :
+	// represents the equirectangular distance model.
+
+	// Representation Invariant :
+	// COSINES[i] = cos((MIN_LATITUDE + (i + 1/2) * BUCKET) millionths of
+	// degrees), rounded to a float
+
+
+	/**
+	 * Computes the table of cosines.
+	 * @return the table of cosines of the representation invariant.
+	 */
+	private static float[] cosines() {
+		int buckets = (GeoPoint.MAX_LATITUDE - GeoPoint.MIN_LATITUDE) / BUCKET;
+		float[] cosines = new float[buckets + 1];
+		for(int i = 0; i < cosines.length; i++)
+			cosines[i] = (float)Math.cos(Math.toRadians((GeoPoint.MIN_LATITUDE +
+					(i + 0.5) * BUCKET) / 1000000));
+		return cosines;
+	}
+
+	/**
+	 * Returns the cosine of a latitude.
+	 * @requires MIN_LATITUDE <= latitude <= MAX_LATITUDE
+	 * @return cos(latitude), read from the table of cosines, where latitude
+	 * 		   is in millionths of degrees.
+	 */
+	static double cos(int latitude) {
+		return COSINES[(latitude - GeoPoint.MIN_LATITUDE) / BUCKET];
+	}
+
+	/**
+	 * Computes the distance between two points given by their coordinates.
+	 * @requires the coordinates, in millionths of degrees, are valid
+	 * @return the equirectangular distance from (latitude1, longitude1) to
+	 * 		   (latitude2, longitude2), in kilometers.
+	 */
+	public double distance(int latitude1, int longitude1, int latitude2,
+						   int longitude2) {
+		// both are within a millionth of a degree of the exact values
+		int meanLatitude = (latitude1 >> 1) + (latitude2 >> 1);
+		int lng = Math.abs(longitude2 - longitude1);
+		// the shorter way around the antimeridian
+		lng = Math.min(lng, FULL_CIRCLE - lng);
+
+		double lat = (double)(latitude2 - latitude1);
+		double x = lng * cos(meanLatitude);
+		return KM_PER_UNIT * Math.sqrt(lat * lat + x * x);
+	}
+
+	/**
+	 * Returns a string representation of this model.
+	 * @return "EQUIRECTANGULAR"
+	 */
+	public String toString() {
+		return "EQUIRECTANGULAR";
+	}
+}
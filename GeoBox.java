@@ -0,0 +1,316 @@
+package homework1;
+
+/**
+ * A GeoBox is a rectangle of latitudes and longitudes on the earth, with
+ * its sides along parallels and meridians. GeoBoxes are immutable.
+ * <p>
+ * Like GeoPoints, GeoBoxes are given in millionths of degrees, and include
+ * their sides. A GeoBox never crosses the antimeridian.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   minLatitude : integer    // southern side, in millionths of degrees
+ *   minLongitude : integer   // western side, in millionths of degrees
+ *   maxLatitude : integer    // northern side, in millionths of degrees
+ *   maxLongitude : integer   // eastern side, in millionths of degrees
+ * </pre>
+ **/
+public class GeoBox {
+
+	private final int minLatitude_;
+	private final int minLongitude_;
+	private final int maxLatitude_;
+	private final int maxLongitude_;
+
+	// Abstraction Function :
+	// represents the points (latitude, longitude) such that
+	// minLatitude <= latitude <= maxLatitude and
+	// minLongitude <= longitude <= maxLongitude.
+
+	// Representation Invariant :
+	// MIN_LATITUDE <= minLatitude <= maxLatitude <= MAX_LATITUDE and
+	// MIN_LONGITUDE <= minLongitude <= maxLongitude <= MAX_LONGITUDE
+
+
+	/**
+	 * Constructs a GeoBox from its sides.
+	 * @requires the sides, in millionths of degrees, are valid coordinates
+	 * 			 such that minLatitude <= maxLatitude &&
+	 * 			 minLongitude <= maxLongitude
+	 * @effects constructs a GeoBox with the given sides.
+	 */
+	public GeoBox(int minLatitude, int minLongitude, int maxLatitude,
+				  int maxLongitude) {
+		this.minLatitude_ = minLatitude;
+		this.minLongitude_ = minLongitude;
+		this.maxLatitude_ = maxLatitude;
+		this.maxLongitude_ = maxLongitude;
+		checkRep();
+	}
+
+	/**
+	 * Constructs the smallest GeoBox containing two points.
+	 * @requires p1 != null && p2 != null
+	 * @effects constructs the smallest GeoBox containing p1 and p2.
+	 */
+	public GeoBox(GeoPoint p1, GeoPoint p2) {
+		this(Math.min(p1.getLatitude(), p2.getLatitude()),
+			 Math.min(p1.getLongitude(), p2.getLongitude()),
+			 Math.max(p1.getLatitude(), p2.getLatitude()),
+			 Math.max(p1.getLongitude(), p2.getLongitude()));
+	}
+
+	/**
+	 * Returns a GeoBox containing every point within a distance of a point.
+	 * @requires center != null && km >= 0
+	 * @return the smallest GeoBox containing every point whose distance
+	 * 		   from center is at most km, using the flat-surface, near the
+	 * 		   Technion approximation, clipped to valid coordinates.
+	 */
+	public static GeoBox around(GeoPoint center, double km) {
+		assert (center != null) && (km >= 0);
+		long latitudes = (long)Math.ceil(
+				km / GeoPoint.KM_PER_DEGREE_LATITUDE * 1000000);
+		long longitudes = (long)Math.ceil(
+				km / GeoPoint.KM_PER_DEGREE_LONGITUDE * 1000000);
+		return new GeoBox(
+				(int)Math.max(GeoPoint.MIN_LATITUDE,
+							  center.getLatitude() - latitudes),
+				(int)Math.max(GeoPoint.MIN_LONGITUDE,
+							  center.getLongitude() - longitudes),
+				(int)Math.min(GeoPoint.MAX_LATITUDE,
+							  center.getLatitude() + latitudes),
+				(int)Math.min(GeoPoint.MAX_LONGITUDE,
+							  center.getLongitude() + longitudes));
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (GeoPoint.MIN_LATITUDE <= this.minLatitude_) &&
+			   (this.minLatitude_ <= this.maxLatitude_) &&
+			   (this.maxLatitude_ <= GeoPoint.MAX_LATITUDE) &&
+			   (GeoPoint.MIN_LONGITUDE <= this.minLongitude_) &&
+			   (this.minLongitude_ <= this.maxLongitude_) &&
+			   (this.maxLongitude_ <= GeoPoint.MAX_LONGITUDE);
+	}
+
+	/**
+	 * Returns the southern side of this box.
+	 * @return this.minLatitude
+	 */
+	public int getMinLatitude() {
+		return this.minLatitude_;
+	}
+
+	/**
+	 * Returns the western side of this box.
+	 * @return this.minLongitude
+	 */
+	public int getMinLongitude() {
+		return this.minLongitude_;
+	}
+
+	/**
+	 * Returns the northern side of this box.
+	 * @return this.maxLatitude
+	 */
+	public int getMaxLatitude() {
+		return this.maxLatitude_;
+	}
+
+	/**
+	 * Returns the eastern side of this box.
+	 * @return this.maxLongitude
+	 */
+	public int getMaxLongitude() {
+		return this.maxLongitude_;
+	}
+
+	/**
+	 * Returns the smallest GeoBox containing this box and another one.
+	 * @requires box != null
+	 * @return the smallest GeoBox containing both this and box.
+	 */
+	public GeoBox union(GeoBox box) {
+		assert box != null;
+		if(this.contains(box))
+			return this;
+		if(box.contains(this))
+			return box;
+		return new GeoBox(Math.min(this.minLatitude_, box.minLatitude_),
+						  Math.min(this.minLongitude_, box.minLongitude_),
+						  Math.max(this.maxLatitude_, box.maxLatitude_),
+						  Math.max(this.maxLongitude_, box.maxLongitude_));
+	}
+
+	/**
+	 * Returns whether this box contains a point.
+	 * @requires gp != null
+	 * @return true iff gp is inside this box or on its sides.
+	 */
+	public boolean contains(GeoPoint gp) {
+		assert gp != null;
+		return contains(gp.getLatitude(), gp.getLongitude());
+	}
+
+	/**
+	 * Returns whether this box contains a point given by its coordinates.
+	 * @return true iff (latitude, longitude) is inside this box or on its
+	 * 		   sides.
+	 */
+	boolean contains(int latitude, int longitude) {
+		return (this.minLatitude_ <= latitude) &&
+			   (latitude <= this.maxLatitude_) &&
+			   (this.minLongitude_ <= longitude) &&
+			   (longitude <= this.maxLongitude_);
+	}
+
+	/**
+	 * Returns whether this box contains another one.
+	 * @requires box != null
+	 * @return true iff every point of box is in this box.
+	 */
+	public boolean contains(GeoBox box) {
+		assert box != null;
+		return (this.minLatitude_ <= box.minLatitude_) &&
+			   (box.maxLatitude_ <= this.maxLatitude_) &&
+			   (this.minLongitude_ <= box.minLongitude_) &&
+			   (box.maxLongitude_ <= this.maxLongitude_);
+	}
+
+	/**
+	 * Returns whether this box and another one have a point in common.
+	 * @requires box != null
+	 * @return true iff some point is in both this and box.
+	 */
+	public boolean intersects(GeoBox box) {
+		assert box != null;
+		return intersects(box.minLatitude_, box.minLongitude_,
+						  box.maxLatitude_, box.maxLongitude_);
+	}
+
+	/**
+	 * Returns whether this box and another one, given by its sides, have a
+	 * point in common.
+	 * @return true iff some point is in both this and the box with the
+	 * 		   given sides.
+	 */
+	boolean intersects(int minLatitude, int minLongitude, int maxLatitude,
+					   int maxLongitude) {
+		return (this.minLatitude_ <= maxLatitude) &&
+			   (minLatitude <= this.maxLatitude_) &&
+			   (this.minLongitude_ <= maxLongitude) &&
+			   (minLongitude <= this.maxLongitude_);
+	}
+
+	/**
+	 * Computes the distance between a GeoPoint and this box.
+	 * @requires gp != null
+	 * @return the distance from gp to the nearest point of this box, using
+	 * 		   the flat-surface, near the Technion approximation, which is 0
+	 * 		   if this box contains gp.
+	 */
+	public double distanceTo(GeoPoint gp) {
+		assert gp != null;
+		return distance(gp.getLatitude(), gp.getLongitude(),
+						this.minLatitude_, this.minLongitude_,
+						this.maxLatitude_, this.maxLongitude_);
+	}
+
+	/**
+	 * Computes the distance between a point and a box given by their
+	 * coordinates.
+	 * @return the distance from (latitude, longitude) to the nearest point
+	 * 		   of the box with the given sides, using the flat-surface, near
+	 * 		   the Technion approximation. It is never more than the distance
+	 * 		   from (latitude, longitude) to any point in the box.
+	 */
+	static double distance(int latitude, int longitude, int minLatitude,
+						   int minLongitude, int maxLatitude,
+						   int maxLongitude) {
+		long lat = Math.max(0, Math.max((long)minLatitude - latitude,
+										(long)latitude - maxLatitude));
+		long lng = Math.max(0, Math.max((long)minLongitude - longitude,
+										(long)longitude - maxLongitude));
+		double y = (double)lat / 1000000 * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double x = (double)lng / 1000000 * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		return Math.sqrt(x * x + y * y);
+	}
+
+
+	/**
+	 * Computes the distance between another box and this box.
+	 * @requires box != null
+	 * @return the distance between the nearest points of box and this box,
+	 * 		   using the flat-surface, near the Technion approximation, which
+	 * 		   is 0 if the boxes intersect.
+	 */
+	public double distanceTo(GeoBox box) {
+		assert box != null;
+		return distance(this.minLatitude_, this.minLongitude_,
+						this.maxLatitude_, this.maxLongitude_,
+						box.minLatitude_, box.minLongitude_,
+						box.maxLatitude_, box.maxLongitude_);
+	}
+
+	/**
+	 * Computes the distance between two boxes given by their sides.
+	 * @return the distance between the nearest points of the box with sides
+	 * 		   minLatitude1, minLongitude1, maxLatitude1, maxLongitude1 and
+	 * 		   the box with sides minLatitude2, minLongitude2, maxLatitude2,
+	 * 		   maxLongitude2, using the flat-surface, near the Technion
+	 * 		   approximation. It is never more than the distance between any
+	 * 		   point of one box and any point of the other.
+	 */
+	static double distance(int minLatitude1, int minLongitude1,
+						   int maxLatitude1, int maxLongitude1,
+						   int minLatitude2, int minLongitude2,
+						   int maxLatitude2, int maxLongitude2) {
+		long lat = Math.max(0, Math.max((long)minLatitude2 - maxLatitude1,
+										(long)minLatitude1 - maxLatitude2));
+		long lng = Math.max(0, Math.max((long)minLongitude2 - maxLongitude1,
+										(long)minLongitude1 - maxLongitude2));
+		double y = (double)lat / 1000000 * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double x = (double)lng / 1000000 * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		return Math.sqrt(x * x + y * y);
+	}
+	/**
+	 * Compares the specified Object with this GeoBox for equality.
+	 * @return box != null && (box instanceof GeoBox) && box has the same
+	 * 		   sides as this
+	 */
+	public boolean equals(Object box) {
+		if(this == box)
+			return true;
+		if(!(box instanceof GeoBox))
+			return false;
+		GeoBox b = (GeoBox)box;
+		return (this.minLatitude_ == b.minLatitude_) &&
+			   (this.minLongitude_ == b.minLongitude_) &&
+			   (this.maxLatitude_ == b.maxLatitude_) &&
+			   (this.maxLongitude_ == b.maxLongitude_);
+	}
+
+	/**
+	 * Returns a hash code value for this GeoBox.
+	 * @return a hash code value for this GeoBox.
+	 */
+	public int hashCode() {
+		return GeoPoint.factor * (GeoPoint.factor * (GeoPoint.factor *
+				this.minLatitude_ + this.minLongitude_) + this.maxLatitude_) +
+				this.maxLongitude_;
+	}
+
+	/**
+	 * Returns a string representation of this GeoBox.
+	 * @return a string representation of this GeoBox.
+	 */
+	public String toString() {
+		return "GeoBox with (latitude = " + this.minLatitude_ + ".." +
+				this.maxLatitude_ + ", longitude = " + this.minLongitude_ +
+				".." + this.maxLongitude_ + ")";
+	}
+}
@@ -1,8 +1,7 @@
 package homework1;
 
 import java.util.Iterator;
-import java.util.Collections;
-import java.util.ArrayList;
+import java.util.NoSuchElementException;
 
 /**
  * A GeoFeature represents a route from one location to another along a
@@ -39,7 +38,19 @@ import java.util.ArrayList;
  **/
 public class GeoFeature {
 	private final  String name_;
-	private final  ArrayList<GeoSegment> geoSegments_;
+	
+	// the segments of this geographic feature are geoSegments_[0, size_),
+	// the spine may be shared with other geographic features. The spine
+	// also holds the prefix sums of the segment lengths. A view over other
+	// geographic features (such as a GeoFeatureSlice) has no spine: it
+	// overrides segmentCount, lengthTo and segmentAt, which every other
+	// method goes through.
+	private final  Spine<GeoSegment> geoSegments_;
+	private final  int size_;
+	
+	// the bounding box of the segments, computed on first use. Threads that
+	// race to compute it compute equal boxes, so it needs no lock.
+	private volatile GeoBox boundingBox_;
 	
 
 	// Implementation hint:
@@ -61,7 +72,8 @@ public class GeoFeature {
 	
 	// Representation Invariant :
 	// geoSegments != null and name != null and start != null and end != null
-	// and {geoSegment != null | geoSement contained in geoSegments list} 
+	// and size >= 1 and {geoSegment != null | geoSement contained in 
+	// geoSegments[0, size)}, or geoSegments = null and size = 0 for a view
 	
 
 	
@@ -79,8 +91,10 @@ public class GeoFeature {
   		
   		assert gs != null;
   		this.name_ = gs.getName();
-  		this.geoSegments_ = new ArrayList<GeoSegment>();
-  		this.geoSegments_.add(new GeoSegment(gs));
+  		this.geoSegments_ = new Spine<GeoSegment>().append(0, gs, 
+  				gs.getLength());
+  		this.size_ = 1;
+  		checkRep(true);
   	}
   	/** Constructs a copy constructor.
   	 * @requires gf != null
@@ -89,14 +103,42 @@ public class GeoFeature {
   	 * 			such that :
   	 * 			copy.name = gf.name &&
   	 * 			copy contains all the goeSegment in gf and in the same order.
+  	 * 			Since GeoFeatures are immutable the copy shares its segments
+  	 * 			with gf.
   	 */
   	public GeoFeature(GeoFeature gf) {
   		assert gf != null;
   		gf.checkRep();
-		this.name_ = gf.getName();
-		this.geoSegments_ = new ArrayList<GeoSegment>();
-		for(GeoSegment gs : gf.geoSegments_) 
-			this.geoSegments_.add(new GeoSegment(gs));
+		this.name_ = gf.name_;
+		this.geoSegments_ = (gf.geoSegments_ != null) ? gf.geoSegments_ :
+							gf.toSpine();
+		this.size_ = gf.segmentCount();
+		checkRep(true);
+  	}
+  	
+  	/**
+  	 * Constructs a geographic feature over the prefix of a spine.
+  	 * @requires name != null && geoSegments != null && size >= 1 &&
+  	 * 			 geoSegments[0, size) are properly oriented and named name
+  	 * @effects Constructs a new GeoFeature made of geoSegments[0, size).
+  	 */
+  	GeoFeature(String name, Spine<GeoSegment> geoSegments, int size) {
+  		this.name_ = name;
+  		this.geoSegments_ = geoSegments;
+  		this.size_ = size;
+  		checkRep(true);
+  	}
+  	
+  	/**
+  	 * Constructs the base of a view over other geographic features.
+  	 * @requires name != null and the view overrides segmentCount, lengthTo
+  	 * 			 and segmentAt, and checks its own representation
+  	 * @effects Constructs a new GeoFeature named name, with no spine.
+  	 */
+  	GeoFeature(String name) {
+  		this.name_ = name;
+  		this.geoSegments_ = null;
+  		this.size_ = 0;
   	}
   	
 	/**
@@ -104,14 +146,149 @@ public class GeoFeature {
   	 * @throw AssertionError if representation invariant is violated
   	 */
   	private void checkRep() {
-  		assert (this.name_ != null) && (this.geoSegments_ != null);
+  		checkRep(false);
+  	}
+  	
+  	/**
+  	 * check to see if the representation invariant is being violated,
+  	 * subject to the current Validation level.
+  	 * @param onConstruction whether this is called from a constructor.
+  	 * @throw AssertionError if representation invariant is violated
+  	 * @see homework1.Validation
+  	 */
+  	private void checkRep(boolean onConstruction) {
+  		if(!Validation.shouldCheck(onConstruction))
+  			return;
+  		long start = Validation.start();
+  		assert (this.name_ != null) && 
+  				((this.geoSegments_ != null) == (this.size_ >= 1));
   		
-  		for(GeoSegment gs : this.geoSegments_) {
+  		// walking the segments is O(n), unless the validation is thorough
+  		// only the last segment (the one this feature added) is checked.
+  		if(Validation.isThorough(onConstruction))
+  			assert segmentsAreValid();
+  		else
+  			assert this.segmentAt(this.segmentCount() - 1).getName().equals(
+  																this.name_);
+  		Validation.checked(start);
+  	}
+  	
+  	/**
+  	 * check that every segment exists and is named after this feature.
+  	 * @return true if the segments are valid
+  	 * @throw AssertionError otherwise
+  	 */
+  	private boolean segmentsAreValid() {
+  		for(int i = 0; i < this.segmentCount(); i++) {
+  			GeoSegment gs = this.segmentAt(i);
   			assert gs != null;
   			
   			// check that names of the Segment same as the geo feature name
   			assert gs.getName().equals(this.name_);
   		}
+  		return true;
+  	}
+  	
+  	/**
+  	 * Returns the number of segments of this geographic feature.
+  	 * @return the number of segments of this geographic feature.
+  	 */
+  	int segmentCount() {
+  		return this.size_;
+  	}
+  	
+  	/**
+  	 * Returns the total length of a prefix of this geographic feature.
+  	 * @requires 0 <= count <= segmentCount()
+  	 * @return the sum of the lengths of the first count segments of this
+  	 * 		   geographic feature, in kilometers.
+  	 */
+  	double lengthTo(int count) {
+  		return this.geoSegments_.sumTo(count);
+  	}
+  	
+  	/**
+  	 * Returns the segment at the given position of this geographic feature.
+  	 * @requires 0 <= index < segmentCount()
+  	 * @return the segment at the given position of this geographic feature.
+  	 */
+  	GeoSegment segmentAt(int index) {
+  		return this.geoSegments_.get(index);
+  	}
+  	
+  	/**
+  	 * Returns how many views lie between this geographic feature and the
+  	 * spines holding its segments.
+  	 * @return 0 for a geographic feature over a spine, and otherwise the
+  	 * 		   largest number of nested views that segmentAt goes through.
+  	 */
+  	int viewDepth() {
+  		return 0;
+  	}
+  	
+  	/**
+  	 * Copies the segments of this geographic feature into a new spine.
+  	 * @return a new spine s such that s[0, segmentCount()) are the segments
+  	 * 		   of this geographic feature, with their lengths.
+  	 */
+  	private Spine<GeoSegment> toSpine() {
+  		Spine<GeoSegment> spine = new Spine<GeoSegment>();
+  		for(int i = 0; i < this.segmentCount(); i++) {
+  			GeoSegment gs = this.segmentAt(i);
+  			spine = spine.append(i, gs, gs.getLength());
+  		}
+  		return spine;
+  	}
+  	
+  	/**
+  	 * Finds the segment at a distance along this geographic feature, by
+  	 * binary search over the prefix sums of the segment lengths.
+  	 * @requires 0 <= distance <= getLength()
+  	 * @return the first index i such that distance <= lengthTo(i + 1) if
+  	 * 		   atEnd, and otherwise the last index i such that
+  	 * 		   lengthTo(i) <= distance, within 0 .. segmentCount() - 1.
+  	 */
+  	private int segmentIndexAt(double distance, boolean atEnd) {
+  		int low = 0;
+  		int high = this.segmentCount() - 1;
+  		while(low < high) {
+  			if(atEnd) {
+  				int middle = (low + high) >>> 1;
+  				if(distance <= this.lengthTo(middle + 1))
+  					high = middle;
+  				else
+  					low = middle + 1;
+  			}
+  			else {
+  				int middle = (low + high + 1) >>> 1;
+  				if(this.lengthTo(middle) <= distance)
+  					low = middle;
+  				else
+  					high = middle - 1;
+  			}
+  		}
+  		return low;
+  	}
+  	
+  	/**
+  	 * Computes the point at a distance along a segment.
+  	 * @requires gs != null
+  	 * @return gs.p1 if offset <= 0, gs.p2 if offset >= gs.length, and
+  	 * 		   otherwise the point offset kilometers from gs.p1 towards
+  	 * 		   gs.p2, rounded to millionths of degrees.
+  	 */
+  	static GeoPoint pointAlong(GeoSegment gs, double offset) {
+  		double length = gs.getLength();
+  		if(offset <= 0 || length == 0)
+  			return gs.getP1();
+  		if(offset >= length)
+  			return gs.getP2();
+  		double t = offset / length;
+  		GeoPoint p1 = gs.getP1();
+  		GeoPoint p2 = gs.getP2();
+  		return new GeoPoint(p1.getLatitude() + (int)Math.round(t * 
+  				(p2.getLatitude() - p1.getLatitude())), p1.getLongitude() + 
+  				(int)Math.round(t * (p2.getLongitude() - p1.getLongitude())));
   	}
   	
  	/**
@@ -130,7 +307,7 @@ public class GeoFeature {
      */
   	public GeoPoint getStart() {
   		checkRep();
-  		return this.geoSegments_.get(0).getP1();
+  		return this.segmentAt(0).getP1();
   	}
 
 
@@ -140,7 +317,7 @@ public class GeoFeature {
      */
   	public GeoPoint getEnd() {
   		checkRep();
-  		return this.geoSegments_.get(this.geoSegments_.size() - 1).getP2();
+  		return this.segmentAt(this.segmentCount() - 1).getP2();
   	}
 
   	/**
@@ -151,7 +328,7 @@ public class GeoFeature {
      */
   	public double getStartHeading() {
   		checkRep();
-  		return this.geoSegments_.get(0).getHeading();
+  		return this.segmentAt(0).getHeading();
   	}
 
 
@@ -163,7 +340,7 @@ public class GeoFeature {
      */
   	public double getEndHeading() {
   		checkRep();
-  		return this.geoSegments_.get(this.geoSegments_.size() - 1).getHeading();
+  		return this.segmentAt(this.segmentCount() - 1).getHeading();
   	}
 
 
@@ -176,11 +353,59 @@ public class GeoFeature {
      */
   	public double getLength() {
   		checkRep();
-  		double sumOfLengths = 0;
-  		for(GeoSegment gs : this.geoSegments_)
-  			sumOfLengths += gs.getLength();
+  		return this.lengthTo(this.segmentCount());
+  	}
+
+  	/**
+  	 * Returns total length of the geographic feature according to a given
+  	 * model.
+  	 * @requires model != null
+     * @return total length of the geographic feature, in kilometers, with
+     *         the length of every segment computed according to model.
+     */
+  	public double getLength(DistanceModel model) {
   		checkRep();
-  		return sumOfLengths;
+  		assert model != null;
+  		if(model == DistanceModel.FLAT)
+  			return this.getLength();
+  		double length = 0;
+  		for(int i = 0; i < this.segmentCount(); i++)
+  			length += this.segmentAt(i).getLength(model);
+  		return length;
+  	}
+
+  	/**
+  	 * Returns the bounding box of this geographic feature. The box is
+  	 * computed on first use, in O(|this.geoSegments|), and then cached.
+     * @return the smallest GeoBox containing every point of every segment
+     *         of this geographic feature.
+     */
+  	public GeoBox getBoundingBox() {
+  		checkRep();
+  		GeoBox box = this.boundingBox_;
+  		if(box == null) {
+  			int minLatitude = Integer.MAX_VALUE;
+  			int minLongitude = Integer.MAX_VALUE;
+  			int maxLatitude = Integer.MIN_VALUE;
+  			int maxLongitude = Integer.MIN_VALUE;
+  			for(int i = 0; i < this.segmentCount(); i++) {
+  				GeoSegment gs = this.segmentAt(i);
+  				GeoPoint p1 = gs.getP1();
+  				GeoPoint p2 = gs.getP2();
+  				minLatitude = Math.min(minLatitude, Math.min(
+  						p1.getLatitude(), p2.getLatitude()));
+  				minLongitude = Math.min(minLongitude, Math.min(
+  						p1.getLongitude(), p2.getLongitude()));
+  				maxLatitude = Math.max(maxLatitude, Math.max(
+  						p1.getLatitude(), p2.getLatitude()));
+  				maxLongitude = Math.max(maxLongitude, Math.max(
+  						p1.getLongitude(), p2.getLongitude()));
+  			}
+  			box = new GeoBox(minLatitude, minLongitude, maxLatitude,
+  							 maxLongitude);
+  			this.boundingBox_ = box;
+  		}
+  		return box;
   	}
 
   	/**
@@ -195,24 +420,207 @@ public class GeoFeature {
   	public GeoFeature addSegment(GeoSegment gs) {
   		checkRep();
   		assert gs != null;
-  		int lastIndex = this.geoSegments_.size() - 1;
-  		assert gs.getP1().equals(this.geoSegments_.get(lastIndex).getP2()); 
+  		assert gs.getP1().equals(this.getEnd()); 
   		assert gs.getName().equals(this.name_);
   		
-  		GeoSegment firstGeoSegment = this.geoSegments_.get(0);
+  		// the new geographic feature shares all the segments of this one,
+  		// gs is appended to the shared spine (or to a copy of it if this
+  		// feature was already extended by another segment). A view is
+  		// copied into a spine first, so later additions are in place.
+  		Spine<GeoSegment> geoSegments = (this.geoSegments_ != null) ?
+  				this.geoSegments_ : this.toSpine();
+  		int size = this.segmentCount();
+  		GeoFeature newGeoFeature = new GeoFeature(this.name_, 
+  				geoSegments.append(size, gs, gs.getLength()), size + 1);
   		
-  		// construct a new GeoFeature (which adds the first geoSegment)
-  		GeoFeature newGeoFeature = new GeoFeature(firstGeoSegment);
+  		// a known bounding box grows with the segment instead of being
+  		// computed again from all the segments
+  		GeoBox box = this.boundingBox_;
+  		if(box != null)
+  			newGeoFeature.boundingBox_ = box.union(
+  					new GeoBox(gs.getP1(), gs.getP2()));
   		
-  		// add the rest of the geoSegments to the new geographic feature
-  		for(int i = 1; i <= lastIndex; i++)
-  			newGeoFeature.geoSegments_.add(this.geoSegments_.get(i));
+  		checkRep();
+  		return newGeoFeature;
+  	}
+
+
+  	/**
+  	 * Creates a simplified GeoFeature that follows this GeoFeature within a
+  	 * tolerance, with the Douglas-Peucker algorithm.
+  	 * @requires tolerance >= 0
+  	 * @return a GeoFeature r such that r.name = this.name &&
+  	 * 		   r.start = this.start && r.end = this.end &&
+  	 * 		   r.geoSegments[0] = this.geoSegments[0] &&
+  	 * 		   r.geoSegments[last] = this.geoSegments[last] (so the start
+  	 * 		   and end headings are kept) and every other endpoint of r is
+  	 * 		   an endpoint of this, and every endpoint of this that was
+  	 * 		   dropped is at most tolerance meters from the segment of r
+  	 * 		   that replaces it, using the flat-surface, near the Technion
+  	 * 		   approximation. Returns this if no endpoint can be dropped.
+  	 * 		   Segments of this between kept endpoints are shared with r.
+  	 */
+  	public GeoFeature simplify(double tolerance) {
+  		checkRep();
+  		assert tolerance >= 0;
+  		int n = this.segmentCount();
+  		if(n <= 3)
+  			return this;
+  		
+  		// point i is the start of segment i, point n is the end
+  		int[] latitudes = new int[n + 1];
+  		int[] longitudes = new int[n + 1];
+  		for(int i = 0; i < n; i++) {
+  			GeoPoint p1 = this.segmentAt(i).getP1();
+  			latitudes[i] = p1.getLatitude();
+  			longitudes[i] = p1.getLongitude();
+  		}
+  		latitudes[n] = this.getEnd().getLatitude();
+  		longitudes[n] = this.getEnd().getLongitude();
   		
-  		// add the last geographic segment to the new geographic feature
-  		newGeoFeature.geoSegments_.add(new GeoSegment(gs));
+  		// the first and last segments are kept whole: simplify the points
+  		// 1 .. n - 1 between them, without recursion
+  		boolean[] kept = new boolean[n + 1];
+  		kept[0] = kept[1] = kept[n - 1] = kept[n] = true;
+  		double km = tolerance / 1000;
+  		int[] stack = new int[2 * (n + 1)];
+  		int top = 0;
+  		stack[top++] = 1;
+  		stack[top++] = n - 1;
+  		int count = 4;
+  		while(top > 0) {
+  			int to = stack[--top];
+  			int from = stack[--top];
+  			int farthest = -1;
+  			double distance = km;
+  			for(int i = from + 1; i < to; i++) {
+  				double d = GeoPoint.segmentDistance(latitudes[i], 
+  						longitudes[i], latitudes[from], longitudes[from], 
+  						latitudes[to], longitudes[to]);
+  				if(d > distance) {
+  					distance = d;
+  					farthest = i;
+  				}
+  			}
+  			if(farthest < 0)
+  				continue;
+  			kept[farthest] = true;
+  			count++;
+  			stack[top++] = from;
+  			stack[top++] = farthest;
+  			stack[top++] = farthest;
+  			stack[top++] = to;
+  		}
+  		if(count == n + 1)
+  			return this;
   		
+  		Spine<GeoSegment> geoSegments = new Spine<GeoSegment>();
+  		int size = 0;
+  		int from = 0;
+  		for(int i = 1; i <= n; i++) {
+  			if(!kept[i])
+  				continue;
+  			GeoSegment gs = (i == from + 1) ? this.segmentAt(from) :
+  				new GeoSegment(this.name_, this.segmentAt(from).getP1(),
+  							   this.segmentAt(i - 1).getP2());
+  			geoSegments = geoSegments.append(size++, gs, gs.getLength());
+  			from = i;
+  		}
+  		return new GeoFeature(this.name_, geoSegments, size);
+  	}
+
+
+  	/**
+  	 * Returns the point at a distance along this geographic feature.
+  	 * @requires 0 <= distance <= this.length
+  	 * @return the point reached after traveling distance kilometers along
+  	 * 		   this geographic feature from its start, interpolated between
+  	 * 		   the endpoints of the segment it falls on and rounded to
+  	 * 		   millionths of degrees. Found by binary search, in
+  	 * 		   O(log |this.geoSegments|).
+  	 */
+  	public GeoPoint getPointAt(double distance) {
   		checkRep();
-  		return newGeoFeature;
+  		assert (0 <= distance) && (distance <= this.getLength() + 1e-9);
+  		int i = this.segmentIndexAt(distance, false);
+  		return pointAlong(this.segmentAt(i), distance - this.lengthTo(i));
+  	}
+
+
+  	/**
+  	 * Returns the part of this geographic feature between two distances
+  	 * along it.
+  	 * @requires 0 <= from <= to <= this.length
+  	 * @return a GeoFeature r such that r.name = this.name &&
+  	 * 		   r.start = getPointAt(from) && r.end = getPointAt(to) and r
+  	 * 		   follows the segments of this in between, the first and last
+  	 * 		   of them cut at r.start and r.end. r is a view that shares the
+  	 * 		   segments of this, built in O(log |this.geoSegments|), or this
+  	 * 		   itself if from = 0 and to = this.length.
+  	 */
+  	public GeoFeature slice(double from, double to) {
+  		checkRep();
+  		assert (0 <= from) && (from <= to) && 
+  			   (to <= this.getLength() + 1e-9);
+  		if(this.viewDepth() >= Route.MAX_VIEW_DEPTH)
+  			return new GeoFeature(this).slice(from, to);
+  		int first = this.segmentIndexAt(from, false);
+  		int last = Math.max(first, this.segmentIndexAt(to, true));
+  		GeoSegment firstGs = this.segmentAt(first);
+  		GeoPoint start = pointAlong(firstGs, from - this.lengthTo(first));
+  		if(first < last && start.equals(firstGs.getP2())) {
+  			// do not start with an empty segment
+  			firstGs = this.segmentAt(++first);
+  			start = firstGs.getP1();
+  		}
+  		GeoSegment lastGs = this.segmentAt(last);
+  		GeoPoint end = pointAlong(lastGs, to - this.lengthTo(last));
+  		if(first < last && end.equals(lastGs.getP1())) {
+  			lastGs = this.segmentAt(--last);
+  			end = lastGs.getP2();
+  		}
+  		if(first == last) {
+  			GeoSegment gs = (start.equals(firstGs.getP1()) && 
+  							 end.equals(firstGs.getP2())) ? firstGs : 
+  							new GeoSegment(this.name_, start, end);
+  			if(first == 0 && this.segmentCount() == 1 && gs == firstGs)
+  				return this;
+  			return this.sliceView(first, last + 1, gs, gs);
+  		}
+  		GeoSegment head = start.equals(firstGs.getP1()) ? firstGs : 
+  				new GeoSegment(this.name_, start, firstGs.getP2());
+  		GeoSegment tail = end.equals(lastGs.getP2()) ? lastGs : 
+  				new GeoSegment(this.name_, lastGs.getP1(), end);
+  		if(first == 0 && last == this.segmentCount() - 1 && 
+  		   head == firstGs && tail == lastGs)
+  			return this;
+  		return this.sliceView(first, last + 1, head, tail);
+  	}
+  	
+  	/**
+  	 * Returns a view of a range of the segments of this geographic feature.
+  	 * @requires 0 <= from < to <= segmentCount() and head and tail are cut
+  	 * 			 from segmentAt(from) and segmentAt(to - 1) as for a
+  	 * 			 GeoFeatureSlice
+  	 * @return a GeoFeatureSlice whose segments are this[from, to), with
+  	 * 		   head instead of this[from] and tail instead of this[to - 1].
+  	 */
+  	GeoFeature sliceView(int from, int to, GeoSegment head, GeoSegment tail) {
+  		return new GeoFeatureSlice(this, from, to, head, tail);
+  	}
+
+
+  	/**
+  	 * Returns this geographic feature traveled in the opposite direction.
+  	 * @return a GeoFeature r such that r.name = this.name and r.geoSegments
+  	 * 		   are the reverses (see GeoSegment.reverse) of this.geoSegments,
+  	 * 		   in reverse order. So r.start = this.end && r.end = this.start
+  	 * 		   && r.length = this.length. r is a view built in O(1), whose
+  	 * 		   segments are reversed as they are accessed.
+  	 */
+  	public GeoFeature reverse() {
+  		checkRep();
+  		return new ReversedGeoFeature(this);
   	}
 
 
@@ -236,18 +644,35 @@ public class GeoFeature {
      */
   	public Iterator<GeoSegment> getGeoSegments() {
   		checkRep();
-  		int size = this.geoSegments_.size(); 
+  		final int size = this.segmentCount(); 
   		
-  		// the iterator iterates over an unmodifiable list in order 
-  		// to be safe from representation exposure(like removing element)
-  		Iterator<GeoSegment> it = Collections.unmodifiableList(
-  				this.geoSegments_).iterator();	
+  		// the iterator iterates over the shared spine (or the view) without
+  		// removal in order to be safe from representation exposure
+  		Iterator<GeoSegment> it = (this.geoSegments_ != null) ?
+  				this.geoSegments_.iterator(0, size) : 
+  				new Iterator<GeoSegment>() {
+  			private int next_ = 0;
+  			
+  			public boolean hasNext() {
+  				return this.next_ < size;
+  			}
+  			
+  			public GeoSegment next() {
+  				if(this.next_ >= size)
+  					throw new NoSuchElementException();
+  				return segmentAt(this.next_++);
+  			}
+  		};
   		
-  		for(int i = 0; i < size - 1 ; i++) {
-  			GeoSegment gs = this.geoSegments_.get(i);
-  			GeoSegment gsNext = this.geoSegments_.get(i + 1);
-  			assert gs.getName().equals(gsNext.getName());
-  			assert gs.getP2().equals(gsNext.getP1());	
+  		if(Validation.shouldCheck(false) && Validation.isThorough(false)) {
+  			long start = Validation.start();
+  			for(int i = 0; i < size - 1 ; i++) {
+  				GeoSegment gs = this.segmentAt(i);
+  				GeoSegment gsNext = this.segmentAt(i + 1);
+  				assert gs.getName().equals(gsNext.getName());
+  				assert gs.getP2().equals(gsNext.getP1());	
+  			}
+  			Validation.checked(start);
   		}
   		checkRep();
   		return it;
@@ -262,13 +687,18 @@ public class GeoFeature {
      **/
   	public boolean equals(Object o) {
   		checkRep();
+  		if(this == o)
+  			return true;
   		GeoFeature gf = (o instanceof GeoFeature) ? (GeoFeature)o : null;
-  		if(gf == null || gf.geoSegments_.size() != this.geoSegments_.size())
+  		int size = this.segmentCount();
+  		if(gf == null || gf.segmentCount() != size)
   			return false;
-  		for(int i = 0; i < this.geoSegments_.size() - 1 ; i++) {
-  			GeoSegment gsi = this.geoSegments_.get(i);
-  			GeoSegment gfsi = gf.geoSegments_.get(i);
-  			if(!gsi.equals(gfsi)) return false;		
+  		for(int i = 0; i < size; i++) {
+  			GeoSegment gsi = this.segmentAt(i);
+  			GeoSegment gfsi = gf.segmentAt(i);
+  			
+  			// shared (or interned) segments are equal by reference
+  			if(gsi != gfsi && !gsi.equals(gfsi)) return false;		
   		}
   		// otherwise the objects are identical according to the conditions above
   		checkRep();
@@ -295,7 +725,7 @@ public class GeoFeature {
   		checkRep();
   		return "GeoFeature named : " + this.name_ + ", start is : " + 
   				this.getStart().toString() + ", end is : " + this.getEnd().toString()
-  				+ ", and contains " + String.valueOf(this.geoSegments_.size()) +
+  				+ ", and contains " + String.valueOf(this.segmentCount()) +
   				" geographic segments, the length of this GeoFeature is " +
   				String.valueOf(this.getLength()) + ".";
   	}
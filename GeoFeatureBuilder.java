@@ -0,0 +1,170 @@
+package homework1;
+
+import java.util.stream.Stream;
+
+/**
+ * A GeoFeatureBuilder accumulates GeoSegments that make up a single
+ * geographic feature, and then freezes them into an immutable GeoFeature.
+ * <p>
+ * Unlike calling <tt>GeoFeature.addSegment</tt> repeatedly, adding a segment
+ * to a builder does not create an intermediate GeoFeature, and
+ * <tt>build</tt> does not copy the accumulated segments: the GeoFeature it
+ * returns shares them with the builder. The builder may keep being used
+ * after <tt>build</tt>; features built earlier are not affected.
+ * <p>
+ * Every added segment must be properly oriented, that is its p1 field must
+ * correspond to the p2 field of the previously added segment, and all the
+ * segments must have the same name.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   name : String          // name of the geographic feature being built
+ *   geoSegments : sequence	// the segments added so far
+ * </pre>
+ **/
+public class GeoFeatureBuilder {
+
+	private String name_;
+	private Spine<GeoSegment> geoSegments_;
+	private int size_;
+
+	// Abstraction Function :
+	// represents the geographic feature named name_ made of
+	// geoSegments_[0, size_), which is still under construction.
+
+	// Representation Invariant :
+	// geoSegments != null and size >= 0 and (size = 0 <=> name = null)
+	// and {geoSegment != null | geoSegment contained in geoSegments[0, size)}
+
+
+	/**
+	 * Constructs a new, empty GeoFeatureBuilder.
+	 * @effects Constructs a new GeoFeatureBuilder b such that
+	 * 			b.geoSegments is empty.
+	 **/
+	public GeoFeatureBuilder() {
+		this.name_ = null;
+		this.geoSegments_ = new Spine<GeoSegment>();
+		this.size_ = 0;
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (this.geoSegments_ != null) && (this.size_ >= 0) &&
+				((this.size_ == 0) == (this.name_ == null));
+	}
+
+	/**
+	 * Returns whether no segment was added to this builder.
+	 * @return true iff this.geoSegments is empty.
+	 */
+	public boolean isEmpty() {
+		checkRep();
+		return this.size_ == 0;
+	}
+
+	/**
+	 * Returns the name of the geographic feature being built.
+	 * @return this.name, or null if no segment was added yet.
+	 */
+	public String getName() {
+		checkRep();
+		return this.name_;
+	}
+
+	/**
+	 * Returns the end of the geographic feature being built.
+	 * @return the p2 field of the last added segment, or null if no segment
+	 * 		   was added yet.
+	 */
+	public GeoPoint getEnd() {
+		checkRep();
+		return (this.size_ == 0) ? null :
+								   this.geoSegments_.get(this.size_ - 1).getP2();
+	}
+
+	/**
+	 * Appends a segment to the geographic feature being built.
+	 * @requires gs != null && (this.geoSegments is empty ||
+	 * 			 (gs.p1 = this.end && gs.name = this.name))
+	 * @modifies this
+	 * @effects appends gs to this.geoSegments.
+	 * @return this.
+	 **/
+	public GeoFeatureBuilder add(GeoSegment gs) {
+		checkRep();
+		assert gs != null;
+		if(this.size_ == 0)
+			this.name_ = gs.getName();
+		else {
+			assert gs.getP1().equals(this.getEnd());
+			assert gs.getName().equals(this.name_);
+		}
+		this.geoSegments_ = this.geoSegments_.append(this.size_, gs,
+													  gs.getLength());
+		this.size_++;
+		checkRep();
+		return this;
+	}
+
+	/**
+	 * Appends segments to the geographic feature being built, in order.
+	 * @requires geoSegments != null and every segment satisfies the
+	 * 			 requirements of add when it is added.
+	 * @modifies this
+	 * @effects appends every segment of geoSegments to this.geoSegments.
+	 * @return this.
+	 **/
+	public GeoFeatureBuilder addAll(Iterable<GeoSegment> geoSegments) {
+		assert geoSegments != null;
+		for(GeoSegment gs : geoSegments)
+			add(gs);
+		return this;
+	}
+
+	/**
+	 * Appends segments to the geographic feature being built, in order.
+	 * @requires geoSegments != null and every segment satisfies the
+	 * 			 requirements of add when it is added.
+	 * @modifies this
+	 * @effects appends every segment of geoSegments to this.geoSegments.
+	 * @return this.
+	 **/
+	public GeoFeatureBuilder addAll(GeoSegment... geoSegments) {
+		assert geoSegments != null;
+		for(GeoSegment gs : geoSegments)
+			add(gs);
+		return this;
+	}
+
+	/**
+	 * Appends segments to the geographic feature being built, in the
+	 * encounter order of the given stream.
+	 * @requires geoSegments != null and every segment satisfies the
+	 * 			 requirements of add when it is added.
+	 * @modifies this
+	 * @effects appends every segment of geoSegments to this.geoSegments.
+	 * @return this.
+	 **/
+	public GeoFeatureBuilder addAll(Stream<GeoSegment> geoSegments) {
+		assert geoSegments != null;
+		geoSegments.forEachOrdered(this::add);
+		return this;
+	}
+
+	/**
+	 * Freezes the segments added so far into a GeoFeature.
+	 * @requires this.geoSegments is not empty
+	 * @return a new GeoFeature r such that r.name = this.name &&
+	 * 		   r.geoSegments = this.geoSegments.
+	 **/
+	public GeoFeature build() {
+		checkRep();
+		assert this.size_ > 0;
+		return new GeoFeature(this.name_, this.geoSegments_, this.size_);
+	}
+}
@@ -0,0 +1,135 @@
+package homework1;
+
+/**
+ * A GeoFeatureSlice is a view of a part of a GeoFeature, between two
+ * distances along it, as returned by <tt>GeoFeature.slice</tt>.
+ * <p>
+ * The slice shares the segments of the feature it views: it holds the
+ * feature, the range of its segments the slice covers, and the two cut
+ * segments that replace the first and last segment of that range. So a
+ * slice is built in constant time, whatever the length of the feature,
+ * and its prefix lengths come from the prefix sums of the feature.
+ */
+final class GeoFeatureSlice extends GeoFeature {
+
+	private final GeoFeature base_;
+	private final int from_;
+	private final int to_;
+	private final GeoSegment head_;
+	private final GeoSegment tail_;
+	private final double length_;
+
+	// base_.lengthTo(from_ + 1), the prefix of base_ the slice starts after
+	// (besides head_), so lengthTo asks base_ for a single prefix sum
+	private final double offset_;
+
+	// Abstraction Function :
+	// represents the geographic feature named base_.name whose segments are
+	// head_, base_.segmentAt(from_ + 1), ..., base_.segmentAt(to_ - 2),
+	// tail_, or only head_ (= tail_) when to_ = from_ + 1.
+
+	// Representation Invariant :
+	// base != null and 0 <= from < to <= base.segmentCount() and
+	// head != null and tail != null and (to = from + 1 => head = tail) and
+	// head and tail are named base.name and head.p2 = base[from].p2 and
+	// tail.p1 = base[to - 1].p1 when to > from + 1, and length is the sum
+	// of the lengths of the segments and
+	// offset = base.lengthTo(from + 1)
+
+
+	/**
+	 * Constructs a view of a range of the segments of a feature.
+	 * @requires base != null && 0 <= from < to <= base.segmentCount() and
+	 * 			 head and tail satisfy the representation invariant
+	 * @effects Constructs the geographic feature whose segments are
+	 * 			base[from, to), with head instead of base[from] and tail
+	 * 			instead of base[to - 1].
+	 */
+	GeoFeatureSlice(GeoFeature base, int from, int to, GeoSegment head,
+					GeoSegment tail) {
+		super(base.getName());
+		this.base_ = base;
+		this.from_ = from;
+		this.to_ = to;
+		this.head_ = head;
+		this.tail_ = tail;
+		this.offset_ = base.lengthTo(from + 1);
+		this.length_ = (to == from + 1) ? head.getLength() :
+				head.getLength() + (base.lengthTo(to - 1) - this.offset_) +
+				tail.getLength();
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (this.base_ != null) && (0 <= this.from_) &&
+			   (this.from_ < this.to_) &&
+			   (this.to_ <= this.base_.segmentCount()) &&
+			   (this.head_ != null) && (this.tail_ != null) &&
+			   ((this.to_ > this.from_ + 1) || (this.head_ == this.tail_));
+	}
+
+	/**
+	 * Returns the number of segments of this geographic feature.
+	 * @return the number of segments of this geographic feature.
+	 */
+	int segmentCount() {
+		return this.to_ - this.from_;
+	}
+
+	/**
+	 * Returns the total length of a prefix of this geographic feature.
+	 * @requires 0 <= count <= segmentCount()
+	 * @return the sum of the lengths of the first count segments of this
+	 * 		   geographic feature, in kilometers.
+	 */
+	double lengthTo(int count) {
+		if(count == 0)
+			return 0;
+		if(count == this.to_ - this.from_)
+			return this.length_;
+		return this.head_.getLength() + (this.base_.lengthTo(
+				this.from_ + count) - this.offset_);
+	}
+
+	/**
+	 * Returns the segment at the given position of this geographic feature.
+	 * @requires 0 <= index < segmentCount()
+	 * @return the segment at the given position of this geographic feature.
+	 */
+	GeoSegment segmentAt(int index) {
+		if(index == 0)
+			return this.head_;
+		if(index == this.to_ - this.from_ - 1)
+			return this.tail_;
+		return this.base_.segmentAt(this.from_ + index);
+	}
+
+	/**
+	 * Returns how many views lie between this geographic feature and the
+	 * spines holding its segments.
+	 * @return one more than the view depth of the viewed feature.
+	 */
+	int viewDepth() {
+		return this.base_.viewDepth() + 1;
+	}
+
+	/**
+	 * Returns a view of a range of the segments of this geographic feature.
+	 * A slice of a slice is a slice of the same base, so slicing a slice
+	 * again and again does not nest views.
+	 * @requires 0 <= from < to <= segmentCount() and head and tail are cut
+	 * 			 from segmentAt(from) and segmentAt(to - 1) as for a
+	 * 			 GeoFeatureSlice
+	 * @return a GeoFeatureSlice of base_ whose segments are this[from, to),
+	 * 		   with head instead of this[from] and tail instead of
+	 * 		   this[to - 1].
+	 */
+	GeoFeature sliceView(int from, int to, GeoSegment head, GeoSegment tail) {
+		return new GeoFeatureSlice(this.base_, this.from_ + from,
+								   this.from_ + to, head, tail);
+	}
+}
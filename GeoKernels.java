@@ -0,0 +1,88 @@
+package homework1;
+
+/**
+ * GeoKernels computes distances and headings in bulk, over polylines given
+ * as primitive coordinate arrays, without allocating any GeoPoints.
+ * <p>
+ * A polyline of n points is given by two arrays, <tt>latitudes</tt> and
+ * <tt>longitudes</tt>, holding the coordinates of its points in millionths
+ * of degrees; its i-th leg goes from point i to point i + 1.
+ * <p>
+ * The kernels return exactly the values that <tt>GeoPoint.distanceTo</tt>
+ * and <tt>GeoPoint.headingTo</tt> return for the same points (the maximum
+ * error with respect to them is 0). The distance loop only uses
+ * subtractions, multiplications, divisions and square roots over arrays,
+ * which the JIT compiler turns into SIMD instructions on its own; the
+ * heading loop calls <tt>Math.atan2</tt>, which has no SIMD form, and is
+ * kept scalar.
+ */
+public final class GeoKernels {
+
+	private GeoKernels() {
+	}
+
+	/**
+	 * Computes the length of every leg of a polyline.
+	 * @requires latitudes != null && longitudes != null && out != null &&
+	 * 			 latitudes.length = longitudes.length = n >= 1 &&
+	 * 			 out.length >= n - 1 and the coordinates are valid
+	 * @modifies out
+	 * @effects out[i] = the distance from point i to point i + 1, as computed
+	 * 			by GeoPoint.distanceTo, for every 0 <= i < n - 1.
+	 */
+	public static void distances(int[] latitudes, int[] longitudes,
+								 double[] out) {
+		assert (latitudes != null) && (longitudes != null) && (out != null);
+		assert (latitudes.length == longitudes.length) &&
+			   (latitudes.length >= 1) && (out.length >= latitudes.length - 1);
+		int legs = latitudes.length - 1;
+		for(int i = 0; i < legs; i++) {
+			// the same operations as GeoPoint.distance; the absolute values
+			// it takes do not change the squares, and Math.pow(x, 2) is x * x
+			double lat = (double)(latitudes[i + 1] - latitudes[i]) / 1000000 *
+						 GeoPoint.KM_PER_DEGREE_LATITUDE;
+			double lng = (double)(longitudes[i + 1] - longitudes[i]) /
+						 1000000 * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+			out[i] = Math.sqrt(lng * lng + lat * lat);
+		}
+	}
+
+	/**
+	 * Computes the heading of every leg of a polyline.
+	 * @requires latitudes != null && longitudes != null && out != null &&
+	 * 			 latitudes.length = longitudes.length = n >= 1 &&
+	 * 			 out.length >= n - 1 and the coordinates are valid and no two
+	 * 			 consecutive points are equal
+	 * @modifies out
+	 * @effects out[i] = the compass heading from point i to point i + 1, as
+	 * 			computed by GeoPoint.headingTo, for every 0 <= i < n - 1.
+	 */
+	public static void headings(int[] latitudes, int[] longitudes,
+								double[] out) {
+		assert (latitudes != null) && (longitudes != null) && (out != null);
+		assert (latitudes.length == longitudes.length) &&
+			   (latitudes.length >= 1) && (out.length >= latitudes.length - 1);
+		int legs = latitudes.length - 1;
+		for(int i = 0; i < legs; i++)
+			out[i] = GeoPoint.heading(latitudes[i], longitudes[i],
+									  latitudes[i + 1], longitudes[i + 1]);
+	}
+
+	/**
+	 * Computes the length of a polyline.
+	 * @requires latitudes != null && longitudes != null &&
+	 * 			 latitudes.length = longitudes.length >= 1 and the coordinates
+	 * 			 are valid
+	 * @return the sum of the lengths of the legs of the polyline, added in
+	 * 		   order.
+	 */
+	public static double length(int[] latitudes, int[] longitudes) {
+		assert (latitudes != null) && (longitudes != null);
+		double[] legs = new double[Math.max(0, latitudes.length - 1)];
+		distances(latitudes, longitudes, legs);
+		double length = 0;
+		for(double leg : legs)
+			length += leg;
+		return length;
+	}
+}
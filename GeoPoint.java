@@ -98,7 +98,7 @@ public class GeoPoint {
   		// TODO Implement this constructor
   		this.latitude_ = latitude;
   		this.longitude_ = longitude; 
-  		checkRep();
+  		checkRep(true);
   	}
   	
   	/**
@@ -114,7 +114,7 @@ public class GeoPoint {
   	public GeoPoint(GeoPoint point) {
   		this.latitude_ = point.latitude_;
   		this.longitude_ = point.longitude_;
-  		checkRep();
+  		checkRep(true);
   	}
   	
   	 
@@ -123,9 +123,24 @@ public class GeoPoint {
   	 * @throw AssertionError if representation invariant is violated
   	 */
   	private void checkRep() {
+  		checkRep(false);
+  	}
+  	
+  	/**
+  	 * check to see if the representation invariant is being violated,
+  	 * subject to the current Validation level.
+  	 * @param onConstruction whether this is called from a constructor.
+  	 * @throw AssertionError if representation invariant is violated
+  	 * @see homework1.Validation
+  	 */
+  	private void checkRep(boolean onConstruction) {
+  		if(!Validation.shouldCheck(onConstruction))
+  			return;
+  		long start = Validation.start();
   		assert ((MIN_LATITUDE <= this.latitude_) && 
   		(this.latitude_ <= MAX_LATITUDE) && (MIN_LONGITUDE <= this.longitude_)
   		  && (this.longitude_ <= MAX_LONGITUDE));
+  		Validation.checked(start);
   	}
   	
   	/**
@@ -159,13 +174,22 @@ public class GeoPoint {
   	public double distanceTo(GeoPoint gp) {
   		checkRep();
   		assert gp != null; 
-  		double latDiff = (double)(gp.latitude_ - this.latitude_);
-  		double lngDiff = (double)(gp.longitude_- this.longitude_);
-  		double latDiffInDegree = Math.abs(latDiff) / 1000000;
-  		double lngDiffInDegree = Math.abs(lngDiff) / 1000000;
+  		return distance(this.latitude_, this.longitude_, gp.latitude_, 
+  						gp.longitude_);
+  	}
+
+
+  	/**
+     * Computes the distance between GeoPoints according to a given model.
+     * @requires gp != null && model != null
+     * @return the distance from this to gp, in kilometers, according to
+     * 		   model.
+     **/
+  	public double distanceTo(GeoPoint gp, DistanceModel model) {
   		checkRep();
-  		return Math.sqrt(Math.pow(lngDiffInDegree * this.KM_PER_DEGREE_LONGITUDE
-  			, 2) + Math.pow(latDiffInDegree * this.KM_PER_DEGREE_LATITUDE, 2));
+  		assert (gp != null) && (model != null);
+  		return model.distance(this.latitude_, this.longitude_, gp.latitude_,
+  							  gp.longitude_);
   	}
 
 
@@ -175,9 +199,190 @@ public class GeoPoint {
      * @return the compass heading h from this to gp, in degrees, using the
      *         flat-surface, near the Technion approximation, such that
      *         0 <= h < 360. In compass headings, north = 0, east = 90,
-     *         south = 180, and west = 270.
+     *         south = 180, and west = 270. The heading is computed by the
+     *         current HeadingEngine mode.
      **/
   	public double headingTo(GeoPoint gp) {
+  		checkRep();
+  		assert (gp != null);
+  		return heading(this.latitude_, this.longitude_, gp.latitude_, 
+  					   gp.longitude_);
+  	}
+  	
+  	
+  	/**
+  	 * Computes the distance between two points given by their coordinates.
+  	 * @requires the coordinates, in millionths of degrees, are valid
+  	 * @return the distance from (latitude1, longitude1) to 
+  	 * 		   (latitude2, longitude2), using the flat-surface, near the 
+  	 * 		   Technion approximation. This is the value distanceTo returns 
+  	 * 		   for the same points.
+  	 */
+  	static double distance(int latitude1, int longitude1, int latitude2,
+  						   int longitude2) {
+  		double latDiff = (double)(latitude2 - latitude1);
+  		double lngDiff = (double)(longitude2 - longitude1);
+  		double latDiffInDegree = Math.abs(latDiff) / 1000000;
+  		double lngDiffInDegree = Math.abs(lngDiff) / 1000000;
+  		return Math.sqrt(Math.pow(lngDiffInDegree * KM_PER_DEGREE_LONGITUDE
+  			, 2) + Math.pow(latDiffInDegree * KM_PER_DEGREE_LATITUDE, 2));
+  	}
+  	
+  	
+  	/**
+  	 * Computes the distance between a point and a segment given by their 
+  	 * coordinates.
+  	 * @requires the coordinates, in millionths of degrees, are valid
+  	 * @return the distance from (latitude, longitude) to the nearest point
+  	 * 		   of the segment from (latitude1, longitude1) to 
+  	 * 		   (latitude2, longitude2), using the flat-surface, near the 
+  	 * 		   Technion approximation.
+  	 */
+  	static double segmentDistance(int latitude, int longitude, int latitude1,
+  								  int longitude1, int latitude2, 
+  								  int longitude2) {
+  		// work in kilometers, relative to the point
+  		double x1 = (double)(longitude1 - longitude) / 1000000 * 
+  					KM_PER_DEGREE_LONGITUDE;
+  		double y1 = (double)(latitude1 - latitude) / 1000000 * 
+  					KM_PER_DEGREE_LATITUDE;
+  		double dx = (double)(longitude2 - longitude1) / 1000000 * 
+  					KM_PER_DEGREE_LONGITUDE;
+  		double dy = (double)(latitude2 - latitude1) / 1000000 * 
+  					KM_PER_DEGREE_LATITUDE;
+  		double lengthSquared = dx * dx + dy * dy;
+  		
+  		// the position of the nearest point along the segment, in [0, 1]
+  		double t = 0;
+  		if(lengthSquared > 0)
+  			t = Math.max(0, Math.min(1, -(x1 * dx + y1 * dy) / lengthSquared));
+  		double x = x1 + t * dx;
+  		double y = y1 + t * dy;
+  		return Math.sqrt(x * x + y * y);
+  	}
+  	
+  	
+  	/**
+  	 * Computes the distance between two segments given by the coordinates
+  	 * of their endpoints.
+  	 * @requires the coordinates, in millionths of degrees, are valid
+  	 * @return 0 if the segment from (latitude1, longitude1) to
+  	 * 		   (latitude2, longitude2) and the segment from (latitude3,
+  	 * 		   longitude3) to (latitude4, longitude4) have a point in
+  	 * 		   common, and otherwise the distance between their nearest
+  	 * 		   points, using the flat-surface, near the Technion
+  	 * 		   approximation.
+  	 */
+  	static double segmentsDistance(int latitude1, int longitude1,
+  								   int latitude2, int longitude2,
+  								   int latitude3, int longitude3,
+  								   int latitude4, int longitude4) {
+  		if(segmentsIntersect(latitude1, longitude1, latitude2, longitude2,
+  							 latitude3, longitude3, latitude4, longitude4))
+  			return 0;
+  		
+  		// segments that do not meet are nearest at an endpoint of one of them
+  		double d1 = segmentDistance(latitude1, longitude1, latitude3,
+  									longitude3, latitude4, longitude4);
+  		double d2 = segmentDistance(latitude2, longitude2, latitude3,
+  									longitude3, latitude4, longitude4);
+  		double d3 = segmentDistance(latitude3, longitude3, latitude1,
+  									longitude1, latitude2, longitude2);
+  		double d4 = segmentDistance(latitude4, longitude4, latitude1,
+  									longitude1, latitude2, longitude2);
+  		return Math.min(Math.min(d1, d2), Math.min(d3, d4));
+  	}
+  	
+  	
+  	/**
+  	 * Tests whether two segments given by the coordinates of their
+  	 * endpoints have a point in common. The test is exact: it only uses
+  	 * integer arithmetic on the coordinates.
+  	 * @requires the coordinates, in millionths of degrees, are valid
+  	 * @return true iff the segment from (latitude1, longitude1) to
+  	 * 		   (latitude2, longitude2) and the segment from (latitude3,
+  	 * 		   longitude3) to (latitude4, longitude4) have a point in
+  	 * 		   common.
+  	 */
+  	static boolean segmentsIntersect(int latitude1, int longitude1,
+  									 int latitude2, int longitude2,
+  									 int latitude3, int longitude3,
+  									 int latitude4, int longitude4) {
+  		long o1 = orientation(latitude3, longitude3, latitude4, longitude4,
+  							  latitude1, longitude1);
+  		long o2 = orientation(latitude3, longitude3, latitude4, longitude4,
+  							  latitude2, longitude2);
+  		long o3 = orientation(latitude1, longitude1, latitude2, longitude2,
+  							  latitude3, longitude3);
+  		long o4 = orientation(latitude1, longitude1, latitude2, longitude2,
+  							  latitude4, longitude4);
+  		
+  		// each segment has its endpoints strictly on both sides of the other
+  		if(((o1 > 0 && o2 < 0) || (o1 < 0 && o2 > 0)) &&
+  		   ((o3 > 0 && o4 < 0) || (o3 < 0 && o4 > 0)))
+  			return true;
+  		
+  		// or an endpoint of one segment lies on the other
+  		return (o1 == 0 && inBox(latitude1, longitude1, latitude3,
+  								 longitude3, latitude4, longitude4)) ||
+  			   (o2 == 0 && inBox(latitude2, longitude2, latitude3,
+  								 longitude3, latitude4, longitude4)) ||
+  			   (o3 == 0 && inBox(latitude3, longitude3, latitude1,
+  								 longitude1, latitude2, longitude2)) ||
+  			   (o4 == 0 && inBox(latitude4, longitude4, latitude1,
+  								 longitude1, latitude2, longitude2));
+  	}
+  	
+  	
+  	/**
+  	 * Computes on which side of a line through two points a third point
+  	 * lies.
+  	 * @requires the coordinates, in millionths of degrees, are valid
+  	 * @return a positive number if (latitude, longitude) is on one side of
+  	 * 		   the line from (latitude1, longitude1) to (latitude2,
+  	 * 		   longitude2), a negative number if it is on the other side, and
+  	 * 		   0 if the three points are collinear.
+  	 */
+  	static long orientation(int latitude1, int longitude1, int latitude2,
+  							int longitude2, int latitude, int longitude) {
+  		// coordinate differences are below 2^29, so products fit in a long
+  		return (long)(latitude2 - latitude1) * (longitude - longitude1) -
+  			   (long)(longitude2 - longitude1) * (latitude - latitude1);
+  	}
+  	
+  	
+  	/**
+  	 * Tests whether a point lies in the bounding box of two points.
+  	 * @return true iff (latitude, longitude) is in the smallest box
+  	 * 		   containing (latitude1, longitude1) and (latitude2,
+  	 * 		   longitude2).
+  	 */
+  	private static boolean inBox(int latitude, int longitude, int latitude1,
+  								 int longitude1, int latitude2,
+  								 int longitude2) {
+  		return Math.min(latitude1, latitude2) <= latitude &&
+  			   latitude <= Math.max(latitude1, latitude2) &&
+  			   Math.min(longitude1, longitude2) <= longitude &&
+  			   longitude <= Math.max(longitude1, longitude2);
+  	}
+  	
+  	
+  	/**
+  	 * Computes the compass heading between two points given by their 
+  	 * coordinates.
+  	 * @requires the coordinates, in millionths of degrees, are valid and
+  	 * 			 the points are not equal
+  	 * @return the compass heading from (latitude1, longitude1) to 
+  	 * 		   (latitude2, longitude2), in degrees. This is the value 
+  	 * 		   headingTo returns for the same points.
+  	 * @see homework1.HeadingEngine
+  	 */
+  	static double heading(int latitude1, int longitude1, int latitude2,
+  						  int longitude2) {
+  		if(HeadingEngine.isFast())
+  			return HeadingEngine.fastHeading(latitude1, longitude1, latitude2,
+  											 longitude2);
+  		
 		 //	Implementation hints:
 		 // 1. You may find the mehtod Math.atan2() useful when
 		 // implementing this method. More info can be found at:
@@ -188,11 +393,8 @@ public class GeoPoint {
 		 // mathematical convention, "east" is 0 degrees, and degrees
 		 // increase in the counterclockwise direction. 
 		 
-  		// TODO Implement this method
-  		checkRep();
-  		assert (gp != null);
-  		double latDiff = (double)(gp.latitude_ - this.latitude_);
-  		double lngDiff = (double)(gp.longitude_- this.longitude_);
+  		double latDiff = (double)(latitude2 - latitude1);
+  		double lngDiff = (double)(longitude2 - longitude1);
   		double latDiffInDegree = latDiff / 1000000;
   		double lngDiffInDegree = lngDiff / 1000000;
   		double heading = Math.atan2(latDiffInDegree, lngDiffInDegree);	
@@ -202,9 +404,92 @@ public class GeoPoint {
 
   		// convert to 0-360 compass degrees, note that North = 0
   		heading = (450 - heading) % 360;
-  		checkRep();
   		return heading;
   	}
+  	
+  	
+  	/**
+  	 * Packs a point into a single long, for allocation-free geometry.
+  	 * @requires the point given by (latitude, longitude) in millionths
+   	 *           of a degree is valid such that:
+   	 *           (MIN_LATITUDE <= latitude <= MAX_LATITUDE) and
+     * 	 		 (MIN_LONGITUDE <= longitude <= MAX_LONGITUDE)
+  	 * @return a long p such that latitudeOf(p) = latitude &&
+  	 * 		   longitudeOf(p) = longitude. 
+  	 */
+  	public static long pack(int latitude, int longitude) {
+  		assert (MIN_LATITUDE <= latitude) && (latitude <= MAX_LATITUDE) &&
+  			   (MIN_LONGITUDE <= longitude) && (longitude <= MAX_LONGITUDE);
+  		return ((long)latitude << 32) | (longitude & 0xffffffffL);
+  	}
+  	
+  	/**
+  	 * Returns the latitude of a packed point.
+  	 * @requires p was returned by pack
+  	 * @return the latitude of p in millionths of degrees.
+  	 */
+  	public static int latitudeOf(long p) {
+  		return (int)(p >> 32);
+  	}
+  	
+  	/**
+  	 * Returns the longitude of a packed point.
+  	 * @requires p was returned by pack
+  	 * @return the longitude of p in millionths of degrees.
+  	 */
+  	public static int longitudeOf(long p) {
+  		return (int)p;
+  	}
+  	
+  	/**
+  	 * Packs this GeoPoint into a single long.
+  	 * @return pack(this.latitude, this.longitude)
+  	 */
+  	public long toPacked() {
+  		checkRep();
+  		return pack(this.latitude_, this.longitude_);
+  	}
+  	
+  	/**
+  	 * Constructs a GeoPoint from a packed point.
+  	 * @requires p was returned by pack
+  	 * @return a new GeoPoint gp such that gp.latitude = latitudeOf(p) &&
+  	 * 		   gp.longitude = longitudeOf(p).
+  	 */
+  	public static GeoPoint fromPacked(long p) {
+  		return new GeoPoint(latitudeOf(p), longitudeOf(p));
+  	}
+  	
+  	/**
+  	 * Computes the distance between packed points.
+  	 * @requires p1 and p2 were returned by pack
+  	 * @return fromPacked(p1).distanceTo(fromPacked(p2)), exactly, without
+  	 * 		   allocating GeoPoints.
+  	 */
+  	public static double distance(long p1, long p2) {
+  		return distance(latitudeOf(p1), longitudeOf(p1), latitudeOf(p2),
+  						longitudeOf(p2));
+  	}
+  	
+  	/**
+  	 * Computes the compass heading between packed points.
+  	 * @requires p1 and p2 were returned by pack && p1 != p2
+  	 * @return fromPacked(p1).headingTo(fromPacked(p2)), exactly, without
+  	 * 		   allocating GeoPoints.
+  	 */
+  	public static double heading(long p1, long p2) {
+  		return heading(latitudeOf(p1), longitudeOf(p1), latitudeOf(p2),
+  					   longitudeOf(p2));
+  	}
+  	
+  	/**
+  	 * Compares packed points for equality.
+  	 * @requires p1 and p2 were returned by pack
+  	 * @return fromPacked(p1).equals(fromPacked(p2))
+  	 */
+  	public static boolean equal(long p1, long p2) {
+  		return p1 == p2;
+  	}
 
 
   	/**
@@ -214,6 +499,8 @@ public class GeoPoint {
      **/
   	public boolean equals(Object gp) {
   		checkRep();
+  		if(this == gp)
+  			return true;
   		GeoPoint gpPointer = (gp instanceof GeoPoint) ? (GeoPoint)gp : null;
   		return (gp != null) && (gp instanceof GeoPoint) && 
   				(this.longitude_ == gpPointer.longitude_) && 
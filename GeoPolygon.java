@@ -0,0 +1,202 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A GeoPolygon is a simple polygon on the earth, such as a geofence, given
+ * by its vertices in order. GeoPolygons are immutable.
+ * <p>
+ * The sides of the polygon are straight in millionths of degrees, like
+ * GeoSegments, and the polygon includes its sides. Together with its
+ * vertices, a GeoPolygon keeps its bounding box and a SegmentIndex over its
+ * sides, so tests against a Route (see <tt>Route.passesThrough</tt>) only
+ * look at the sides near the route.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   vertices : sequence of GeoPoint   // the corners, in order
+ * </pre>
+ **/
+public final class GeoPolygon {
+
+	/** Name of the GeoSegments that are the sides of a polygon. **/
+	static final String SIDE_NAME = "";
+
+	private final List<GeoPoint> vertices_;
+
+	// the coordinates of vertices_[i] are (latitudes_[i], longitudes_[i])
+	private final int[] latitudes_;
+	private final int[] longitudes_;
+
+	private final GeoBox boundingBox_;
+
+	// the sides vertices_[i] -> vertices_[i + 1], and the last vertex back
+	// to the first one
+	private final SegmentIndex sides_;
+
+	// Abstraction Function :
+	// represents the region of the earth enclosed by the closed path
+	// vertices_[0], vertices_[1], ..., vertices_[n - 1], vertices_[0],
+	// including the path itself.
+
+	// Representation Invariant :
+	// vertices != null and n = |vertices| >= 3 and no vertex is null and
+	// no two consecutive vertices (nor the last and the first) are equal
+	// and latitudes and longitudes hold the coordinates of the vertices and
+	// boundingBox is the smallest box containing them and sides indexes the
+	// n sides of the polygon
+
+
+	/**
+	 * Constructs a GeoPolygon from its vertices.
+	 * @requires vertices != null && |vertices| >= 3 and no vertex is null
+	 * 			 and no two consecutive vertices, nor the last and the first
+	 * 			 one, are equal and the sides do not cross each other
+	 * @effects constructs a GeoPolygon p such that p.vertices = vertices.
+	 */
+	public GeoPolygon(List<GeoPoint> vertices) {
+		assert vertices != null;
+		this.vertices_ = Collections.unmodifiableList(
+				new ArrayList<GeoPoint>(vertices));
+		int n = this.vertices_.size();
+		this.latitudes_ = new int[n];
+		this.longitudes_ = new int[n];
+		List<GeoSegment> sides = new ArrayList<GeoSegment>(n);
+		for(int i = 0; i < n; i++) {
+			GeoPoint gp = this.vertices_.get(i);
+			this.latitudes_[i] = gp.getLatitude();
+			this.longitudes_[i] = gp.getLongitude();
+			sides.add(new GeoSegment(SIDE_NAME, gp,
+									 this.vertices_.get((i + 1) % n)));
+		}
+		int minLatitude = Integer.MAX_VALUE;
+		int minLongitude = Integer.MAX_VALUE;
+		int maxLatitude = Integer.MIN_VALUE;
+		int maxLongitude = Integer.MIN_VALUE;
+		for(int i = 0; i < n; i++) {
+			minLatitude = Math.min(minLatitude, this.latitudes_[i]);
+			minLongitude = Math.min(minLongitude, this.longitudes_[i]);
+			maxLatitude = Math.max(maxLatitude, this.latitudes_[i]);
+			maxLongitude = Math.max(maxLongitude, this.longitudes_[i]);
+		}
+		this.boundingBox_ = new GeoBox(minLatitude, minLongitude,
+									   maxLatitude, maxLongitude);
+		this.sides_ = new SegmentIndex(sides);
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		int n = this.vertices_.size();
+		assert (n >= 3) && (this.latitudes_.length == n) &&
+			   (this.longitudes_.length == n) && (this.sides_.size() == n);
+		for(int i = 0; i < n; i++)
+			assert !this.vertices_.get(i).equals(
+					this.vertices_.get((i + 1) % n));
+	}
+
+	/**
+	 * Returns the vertices of this polygon.
+	 * @return an unmodifiable list of this.vertices.
+	 */
+	public List<GeoPoint> getVertices() {
+		return this.vertices_;
+	}
+
+	/**
+	 * Returns the bounding box of this polygon.
+	 * @return the smallest GeoBox containing this polygon.
+	 */
+	public GeoBox getBoundingBox() {
+		return this.boundingBox_;
+	}
+
+	/**
+	 * Returns an index over the sides of this polygon.
+	 * @return a SegmentIndex whose segments are the sides of this polygon,
+	 * 		   named SIDE_NAME.
+	 */
+	SegmentIndex sides() {
+		return this.sides_;
+	}
+
+	/**
+	 * Returns whether this polygon contains a point. The test is exact: it
+	 * only uses integer arithmetic on the coordinates.
+	 * @requires gp != null
+	 * @return true iff gp is inside this polygon or on one of its sides.
+	 */
+	public boolean contains(GeoPoint gp) {
+		assert gp != null;
+		int latitude = gp.getLatitude();
+		int longitude = gp.getLongitude();
+		if(!this.boundingBox_.contains(latitude, longitude))
+			return false;
+
+		// count the sides crossed by a ray from gp to the north: gp is
+		// inside iff it crosses an odd number of them
+		int n = this.latitudes_.length;
+		boolean inside = false;
+		for(int i = 0; i < n; i++) {
+			int j = (i + 1 == n) ? 0 : i + 1;
+			int latitude1 = this.latitudes_[i];
+			int longitude1 = this.longitudes_[i];
+			int latitude2 = this.latitudes_[j];
+			int longitude2 = this.longitudes_[j];
+			long side = GeoPoint.orientation(latitude1, longitude1,
+											 latitude2, longitude2,
+											 latitude, longitude);
+			if(side == 0 &&
+			   Math.min(latitude1, latitude2) <= latitude &&
+			   latitude <= Math.max(latitude1, latitude2) &&
+			   Math.min(longitude1, longitude2) <= longitude &&
+			   longitude <= Math.max(longitude1, longitude2))
+				return true;
+
+			// a side spanning the longitude of gp (half open, so a vertex
+			// on the ray is counted once) is crossed iff it is north of gp
+			if((longitude1 > longitude) != (longitude2 > longitude) &&
+			   (side > 0) == (longitude2 > longitude1))
+				inside = !inside;
+		}
+		return inside;
+	}
+
+	/**
+	 * Compares the specified Object with this GeoPolygon for equality.
+	 * @return o != null && (o instanceof GeoPolygon) &&
+	 * 		   o.vertices = this.vertices
+	 */
+	public boolean equals(Object o) {
+		if(this == o)
+			return true;
+		if(!(o instanceof GeoPolygon))
+			return false;
+		GeoPolygon p = (GeoPolygon)o;
+		return Arrays.equals(this.latitudes_, p.latitudes_) &&
+			   Arrays.equals(this.longitudes_, p.longitudes_);
+	}
+
+	/**
+	 * Returns a hash code value for this GeoPolygon.
+	 * @return a hash code value for this GeoPolygon.
+	 */
+	public int hashCode() {
+		return 31 * Arrays.hashCode(this.latitudes_) +
+			   Arrays.hashCode(this.longitudes_);
+	}
+
+	/**
+	 * Returns a string representation of this GeoPolygon.
+	 * @return a string representation of this GeoPolygon.
+	 */
+	public String toString() {
+		return "GeoPolygon" + this.vertices_;
+	}
+}
@@ -44,6 +44,11 @@ public class GeoSegment  {
 	private final String name_;
 	private final GeoPoint p1_;
 	private final GeoPoint p2_;
+	
+	// GeoSegments are immutable, so their length and heading are computed
+	// once when they are constructed.
+	private final double length_;
+	private final double heading_;
 
 	
   	// TODO Write abstraction function and representation invariant
@@ -53,7 +58,8 @@ public class GeoSegment  {
 	// another geographic point2 
 	
 	// Representation Invariant :
-	// p1 != null and p2 != null and name != null 
+	// p1 != null and p2 != null and name != null and
+	// length = p1.distanceTo(p2) and heading = p1.headingTo(p2)
 	
 	
   	/**
@@ -63,10 +69,19 @@ public class GeoSegment  {
      **/
   	public GeoSegment(String name, GeoPoint p1, GeoPoint p2) {
   		
-  		this.name_ = name;
-  		this.p1_ = p1;
-  		this.p2_ = p2;
-  		checkRep();
+  		if(Interning.isEnabled()) {
+  			this.name_ = Interning.intern(name);
+  			this.p1_ = Interning.intern(p1);
+  			this.p2_ = Interning.intern(p2);
+  		}
+  		else {
+  			this.name_ = name;
+  			this.p1_ = p1;
+  			this.p2_ = p2;
+  		}
+  		this.length_ = p1.distanceTo(p2);
+  		this.heading_ = p1.headingTo(p2);
+  		checkRep(true);
   	}
   	
   	/**
@@ -76,19 +91,68 @@ public class GeoSegment  {
      * final.
 	 **/
   	public GeoSegment(GeoSegment gs) {
-  		this.name_ = new String(gs.name_);
-  		this.p1_ = new GeoPoint(gs.p1_);
-  		this.p2_ = new GeoPoint(gs.p2_);
+  		// when interning is enabled the copy shares the canonical instances
+  		if(Interning.isEnabled()) {
+  			this.name_ = Interning.intern(gs.name_);
+  			this.p1_ = Interning.intern(gs.p1_);
+  			this.p2_ = Interning.intern(gs.p2_);
+  		}
+  		else {
+  			this.name_ = new String(gs.name_);
+  			this.p1_ = new GeoPoint(gs.p1_);
+  			this.p2_ = new GeoPoint(gs.p2_);
+  		}
+  		this.length_ = gs.length_;
+  		this.heading_ = gs.heading_;
   		
   	}
+
+  	/**
+     * Constructs a new GeoSegment whose length and heading are already known,
+     * such as a segment read from a RoadSnapshot.
+     * @requires name != null && p1 != null && p2 != null &&
+     * 			 length = p1.distanceTo(p2) && heading = p1.headingTo(p2)
+     * @effects constructs a new GeoSegment with the specified name and
+     * 			endpoints, without computing its length and heading again.
+     **/
+  	GeoSegment(String name, GeoPoint p1, GeoPoint p2, double length,
+  			   double heading) {
+  		if(Interning.isEnabled()) {
+  			this.name_ = Interning.intern(name);
+  			this.p1_ = Interning.intern(p1);
+  			this.p2_ = Interning.intern(p2);
+  		}
+  		else {
+  			this.name_ = name;
+  			this.p1_ = p1;
+  			this.p2_ = p2;
+  		}
+  		this.length_ = length;
+  		this.heading_ = heading;
+  		checkRep(true);
+  	}
   	
   	/**
   	 * check to see if the representation invariant is being violated
   	 * @throw AssertionError if representation invariant is violated
   	 */
   	private void checkRep() {
+  		checkRep(false);
+  	}
+  	
+  	/**
+  	 * check to see if the representation invariant is being violated,
+  	 * subject to the current Validation level.
+  	 * @param onConstruction whether this is called from a constructor.
+  	 * @throw AssertionError if representation invariant is violated
+  	 * @see homework1.Validation
+  	 */
+  	private void checkRep(boolean onConstruction) {
+  		if(!Validation.shouldCheck(onConstruction))
+  			return;
+  		long start = Validation.start();
   		assert (this.name_ != null) && (this.p1_ != null) && (this.p2_ != null);
-  		
+  		Validation.checked(start);
   	}
   	/**
      * Returns a new GeoSegment like this one, but with its endpoints reversed.
@@ -102,13 +166,32 @@ public class GeoSegment  {
   	}
 
 
+  	/**
+     * Returns a new GeoSegment like this one, but with its endpoints
+     * reversed, keeping the length of this one (distances are symmetric)
+     * and computing only its heading.
+     * @return a new GeoSegment gs such that gs.name = this.name
+     *         && gs.p1 = this.p2 && gs.p2 = this.p1
+     **/
+  	GeoSegment reversed() {
+  		checkRep();
+  		return new GeoSegment(this.name_, this.p2_, this.p1_, this.length_,
+  							  GeoPoint.heading(this.p2_.getLatitude(),
+  											   this.p2_.getLongitude(),
+  											   this.p1_.getLatitude(),
+  											   this.p1_.getLongitude()));
+  	}
+
+
   	/**
   	 * Returns the name of this GeoSegment.
-     * @return the name of this GeoSegment.
+     * @return the name of this GeoSegment. When interning is enabled this
+     * 		   is the shared, canonical name.
+     * @see homework1.Interning
      */
   	public String getName() {
   		checkRep();
-  		return new String(this.name_);
+  		return Interning.isEnabled() ? this.name_ : new String(this.name_);
   	}
 
 
@@ -139,11 +222,25 @@ public class GeoSegment  {
      */
   	public double getLength() {
   		checkRep();
-  		return this.p1_.distanceTo(this.p2_);
+  		return this.length_;
   		
   	}
 
 
+  	/**
+  	 * Returns the length of the segment according to a given model.
+  	 * @requires model != null
+     * @return the length of the segment, in kilometers, according to model.
+     */
+  	public double getLength(DistanceModel model) {
+  		checkRep();
+  		assert model != null;
+  		if(model == DistanceModel.FLAT)
+  			return this.length_;
+  		return this.p1_.distanceTo(this.p2_, model);
+  	}
+
+
   	/**
   	 * Returns the compass heading from p1 to p2.
      * @requires this.length != 0 and p1 != p2
@@ -152,7 +249,41 @@ public class GeoSegment  {
      **/
   	public double getHeading() {
   		checkRep();
-  		return this.p1_.headingTo(this.p2_);
+  		return this.heading_;
+  	}
+
+
+  	/**
+  	 * Computes the distance between a GeoPoint and this segment.
+  	 * @requires gp != null
+     * @return the distance from gp to the nearest point of this segment, in
+     *         kilometers, using the flat-surface, near the Technion
+     *         approximation.
+     **/
+  	public double distanceTo(GeoPoint gp) {
+  		checkRep();
+  		assert gp != null;
+  		return GeoPoint.segmentDistance(gp.getLatitude(), gp.getLongitude(),
+  				this.p1_.getLatitude(), this.p1_.getLongitude(), 
+  				this.p2_.getLatitude(), this.p2_.getLongitude());
+  	}
+
+
+  	/**
+  	 * Computes the distance between another GeoSegment and this segment.
+  	 * @requires gs != null
+     * @return 0 if gs and this segment have a point in common, and otherwise
+     *         the distance between their nearest points, in kilometers,
+     *         using the flat-surface, near the Technion approximation.
+     **/
+  	public double distanceTo(GeoSegment gs) {
+  		checkRep();
+  		assert gs != null;
+  		return GeoPoint.segmentsDistance(
+  				this.p1_.getLatitude(), this.p1_.getLongitude(),
+  				this.p2_.getLatitude(), this.p2_.getLongitude(),
+  				gs.p1_.getLatitude(), gs.p1_.getLongitude(),
+  				gs.p2_.getLatitude(), gs.p2_.getLongitude());
   	}
 
 
@@ -163,6 +294,8 @@ public class GeoSegment  {
    	 **/
   	public boolean equals(Object gs) {
   		checkRep();
+  		if(this == gs)
+  			return true;
   		GeoSegment gs_t = (gs instanceof GeoSegment) ? (GeoSegment)gs : null;
   		return (gs != null) && (gs instanceof GeoSegment) && 
   				(this.name_.equals(gs_t.name_)) && (this.p1_.equals(gs_t.p1_))
@@ -0,0 +1,36 @@
+package homework1;
+
+/**
+ * The haversine DistanceModel: the great-circle distance between points on
+ * a spherical earth.
+ */
+final class HaversineModel implements DistanceModel {
+
+	private static final double RADIANS_PER_UNIT = Math.PI / 180 / 1000000;
+
+	/**
+	 * Computes the distance between two points given by their coordinates.
+	 * @requires the coordinates, in millionths of degrees, are valid
+	 * @return the great-circle distance from (latitude1, longitude1) to
+	 * 		   (latitude2, longitude2), in kilometers.
+	 */
+	public double distance(int latitude1, int longitude1, int latitude2,
+						   int longitude2) {
+		double phi1 = latitude1 * RADIANS_PER_UNIT;
+		double phi2 = latitude2 * RADIANS_PER_UNIT;
+		double sinLat = Math.sin((phi2 - phi1) / 2);
+		double sinLng = Math.sin(
+				((double)longitude2 - longitude1) * RADIANS_PER_UNIT / 2);
+		double h = sinLat * sinLat +
+				   Math.cos(phi1) * Math.cos(phi2) * sinLng * sinLng;
+		return 2 * EARTH_RADIUS * Math.asin(Math.sqrt(Math.min(1, h)));
+	}
+
+	/**
+	 * Returns a string representation of this model.
+	 * @return "HAVERSINE"
+	 */
+	public String toString() {
+		return "HAVERSINE";
+	}
+}
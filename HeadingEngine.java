@@ -0,0 +1,141 @@
+package homework1;
+
+/**
+ * HeadingEngine selects how compass headings between points are computed,
+ * by <tt>GeoPoint.headingTo</tt> and everything built on it (the headings
+ * of GeoSegments, GeoFeatures and Routes, and the turns chosen by route
+ * formatters).
+ * <ul>
+ * <li><tt>EXACT</tt> - headings are computed with <tt>Math.atan2</tt>. This
+ *     is the default.</li>
+ * <li><tt>FAST</tt> - headings are computed with a polynomial approximation
+ *     of atan2, which costs about half as much and differs from the exact
+ *     heading by at most <tt>MAX_ERROR</tt> degrees (measured around the
+ *     compass, so 359.9999 and 0.0001 are 0.0002 degrees apart). Turns are
+ *     classified in steps of tens of degrees, so the fast engine can stand
+ *     in for the exact one when formatting directions.</li>
+ * </ul>
+ * The initial mode is read from the <tt>homework1.heading</tt> system
+ * property (for example <tt>-Dhomework1.heading=fast</tt>). GeoSegments
+ * compute their heading once, when constructed, so changing the mode only
+ * affects segments constructed afterwards.
+ */
+public final class HeadingEngine {
+
+	/**
+	 * The ways headings can be computed.
+	 */
+	public enum Mode { EXACT, FAST }
+
+	/** System property holding the initial mode. **/
+	public static final String PROPERTY = "homework1.heading";
+
+	/**
+	 * Maximum difference, in degrees around the compass, between a heading
+	 * computed by the FAST mode and the same heading computed by the EXACT
+	 * mode.
+	 */
+	public static final double MAX_ERROR = 0.001;
+
+	// the radians to degrees factor of GeoPoint.heading, so that both modes
+	// approximate the same value
+	private static final double DEGREES_PER_RADIAN = 180 / 3.14159;
+
+	// coefficients of the odd polynomial approximating atan(t) for
+	// 0 <= t <= 1 within 1e-5 radians (Abramowitz and Stegun 4.4.49)
+	private static final double A1 = 0.9998660;
+	private static final double A3 = -0.3302995;
+	private static final double A5 = 0.1801410;
+	private static final double A7 = -0.0851330;
+	private static final double A9 = 0.0208351;
+
+	private static volatile boolean fast_ =
+			parseMode(System.getProperty(PROPERTY)) == Mode.FAST;
+
+
+	private HeadingEngine() {
+	}
+
+	/**
+	 * Returns the current mode.
+	 * @return the current mode.
+	 */
+	public static Mode getMode() {
+		return fast_ ? Mode.FAST : Mode.EXACT;
+	}
+
+	/**
+	 * Sets the mode.
+	 * @requires mode != null
+	 * @effects sets the mode to mode.
+	 */
+	public static void setMode(Mode mode) {
+		assert mode != null;
+		fast_ = (mode == Mode.FAST);
+	}
+
+	/**
+	 * Returns whether headings are computed by the FAST mode.
+	 * @return getMode() = FAST
+	 */
+	static boolean isFast() {
+		return fast_;
+	}
+
+	/**
+	 * Computes the compass heading between two points given by their
+	 * coordinates, with the FAST mode.
+	 * @requires the coordinates, in millionths of degrees, are valid
+	 * @return the compass heading h from (latitude1, longitude1) to
+	 * 		   (latitude2, longitude2), in degrees, such that 0 <= h < 360,
+	 * 		   within MAX_ERROR of the heading computed by the EXACT mode.
+	 * 		   For equal points this is 90, exactly as in the EXACT mode.
+	 */
+	public static double fastHeading(int latitude1, int longitude1,
+									 int latitude2, int longitude2) {
+		double y = (double)(latitude2 - latitude1);
+		double x = (double)(longitude2 - longitude1);
+		double ax = Math.abs(x);
+		double ay = Math.abs(y);
+		if(ax == 0 && ay == 0)
+			return 90;	// atan2(0, 0) = 0, east, like the EXACT mode
+
+		// reduce to an angle in [0, 45] degrees, then unfold it
+		double t = Math.min(ax, ay) / Math.max(ax, ay);
+		double s = t * t;
+		double angle = ((((A9 * s + A7) * s + A5) * s + A3) * s + A1) * t;
+		if(ay > ax)
+			angle = Math.PI / 2 - angle;
+		if(x < 0)
+			angle = Math.PI - angle;
+		if(y < 0)
+			angle = -angle;
+
+		return (450 - angle * DEGREES_PER_RADIAN) % 360;
+	}
+
+	/**
+	 * Returns the difference between two compass headings.
+	 * @requires 0 <= h1 < 360 && 0 <= h2 < 360
+	 * @return the smallest angle, in degrees, between h1 and h2 around the
+	 * 		   compass, which is between 0 and 180.
+	 */
+	public static double difference(double h1, double h2) {
+		double d = Math.abs(h1 - h2);
+		return (d > 180) ? 360 - d : d;
+	}
+
+	/**
+	 * Parses a mode.
+	 * @return the mode named by value (ignoring case), or EXACT if value is
+	 * 		   null or names no mode.
+	 */
+	private static Mode parseMode(String value) {
+		if(value != null) {
+			for(Mode mode : Mode.values())
+				if(mode.name().equalsIgnoreCase(value.trim()))
+					return mode;
+		}
+		return Mode.EXACT;
+	}
+}
@@ -0,0 +1,183 @@
+package homework1;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An IncrementalDirections keeps the directions for a Route up to date as
+ * the route grows, one segment at a time, as it does in live navigation.
+ * <p>
+ * The directions are the lines a RouteFormatter computes for the
+ * geographic features of the route, one line per feature. Adding a segment
+ * changes at most one of them: when the segment continues the last
+ * feature, only the last line is computed again (with its new length), and
+ * when it starts a new feature, a single line is added, turning from the
+ * end heading of the previous feature. So an update costs the same no
+ * matter how long the route is.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   route : Route          // the route so far
+ *   heading : angle        // the initial heading, in degrees
+ *   lines : sequence       // the directions for route, one per feature
+ * </pre>
+ **/
+public class IncrementalDirections {
+
+	private final RouteFormatter formatter_;
+	private final double heading_;
+	private Route route_;
+	private final List<String> lines_;
+
+	// Abstraction Function :
+	// represents the directions lines_ for the route route_, starting with
+	// the heading heading_, as computed by formatter_.
+
+	// Representation Invariant :
+	// formatter != null and route != null and 0 <= heading < 360 and
+	// lines.size() = route.geoFeatureCount() and lines[i] =
+	// formatter.computeLine(route.geoFeatureAt(i), i = 0 ? heading :
+	// route.geoFeatureAt(i - 1).endHeading)
+
+
+	/**
+	 * Constructs the directions for a route.
+	 * @requires formatter != null && route != null && 0 <= heading < 360
+	 * @effects Constructs a new IncrementalDirections d such that
+	 * 			d.route = route and d.heading = heading and d.lines are the
+	 * 			lines of formatter.computeDirections(route, heading).
+	 **/
+	public IncrementalDirections(RouteFormatter formatter, Route route,
+								 double heading) {
+		assert (formatter != null) && (route != null) &&
+			   (0 <= heading) && (heading < 360);
+		this.formatter_ = formatter;
+		this.heading_ = heading;
+		this.route_ = route;
+		this.lines_ = new ArrayList<String>(route.geoFeatureCount());
+		for(int i = 0; i < route.geoFeatureCount(); i++)
+			this.lines_.add(computeLine(i));
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (this.formatter_ != null) && (this.route_ != null) &&
+			   (0 <= this.heading_) && (this.heading_ < 360) &&
+			   (this.lines_.size() == this.route_.geoFeatureCount());
+	}
+
+	/**
+	 * Computes the line of a geographic feature of the route.
+	 * @requires 0 <= index < route.geoFeatureCount()
+	 * @return the line of route.geoFeatureAt(index), turning from the end
+	 * 		   heading of the previous feature, or from heading for the first.
+	 */
+	private String computeLine(int index) {
+		double origHeading = (index == 0) ? this.heading_ :
+				this.route_.geoFeatureAt(index - 1).getEndHeading();
+		return this.formatter_.computeLine(this.route_.geoFeatureAt(index),
+										   origHeading);
+	}
+
+	/**
+	 * Extends the route by a segment, and updates the directions.
+	 * @requires gs != null && gs.p1 = route.end
+	 * @modifies this
+	 * @effects sets route to route.addSegment(gs), and either computes the
+	 * 			last line again, if gs continues the last geographic feature,
+	 * 			or adds the line of the new feature gs starts.
+	 * @return the index of the line that changed or was added.
+	 **/
+	public int addSegment(GeoSegment gs) {
+		checkRep();
+		assert gs != null;
+		this.route_ = this.route_.addSegment(gs);
+		int last = this.route_.geoFeatureCount() - 1;
+		if(last < this.lines_.size())
+			this.lines_.set(last, computeLine(last));
+		else
+			this.lines_.add(computeLine(last));
+		checkRep();
+		return last;
+	}
+
+	/**
+	 * Returns the route of these directions.
+	 * @return this.route
+	 */
+	public Route getRoute() {
+		checkRep();
+		return this.route_;
+	}
+
+	/**
+	 * Returns the number of lines of these directions.
+	 * @return |this.lines|, the number of geographic features of the route.
+	 */
+	public int getLineCount() {
+		checkRep();
+		return this.lines_.size();
+	}
+
+	/**
+	 * Returns a line of these directions.
+	 * @requires 0 <= index < getLineCount()
+	 * @return this.lines[index], the line of the index-th geographic feature
+	 * 		   of the route, without its newline.
+	 */
+	public String getLine(int index) {
+		checkRep();
+		assert (0 <= index) && (index < this.lines_.size());
+		return this.lines_.get(index);
+	}
+
+	/**
+	 * Returns the last line of these directions.
+	 * @return the line of the last geographic feature of the route.
+	 */
+	public String getLastLine() {
+		return getLine(this.lines_.size() - 1);
+	}
+
+	/**
+	 * Writes these directions into an Appendable.
+	 * @requires out != null
+	 * @modifies out
+	 * @effects appends every line of this.lines to out, in order, each
+	 * 			followed by a newline.
+	 * @throws IOException if out throws it.
+	 */
+	public void writeDirections(Appendable out) throws IOException {
+		checkRep();
+		assert out != null;
+		for(String line : this.lines_) {
+			out.append(line);
+			out.append('\n');
+		}
+	}
+
+	/**
+	 * Returns these directions.
+	 * @return the lines of this.lines, in order, each followed by a
+	 * 		   newline.
+	 */
+	public String getDirections() {
+		StringBuilder directions = new StringBuilder();
+		for(String line : this.lines_)
+			directions.append(line).append('\n');
+		return directions.toString();
+	}
+
+	/**
+	 * Returns a string representation of these directions.
+	 * @return getDirections()
+	 */
+	public String toString() {
+		return getDirections();
+	}
+}
@@ -0,0 +1,97 @@
+package homework1;
+
+/**
+ * Interning provides opt-in flyweight factories for GeoPoints and for the
+ * names of GeoSegments.
+ * <p>
+ * In a road network the same intersections and street names appear in
+ * thousands of segments. Interning maps every GeoPoint (or name) to a single
+ * canonical instance equal to it, so equal values share memory and compare
+ * by reference. The pools hold their instances weakly, so values no longer
+ * in use are garbage collected, and they are safe for concurrent use.
+ * <p>
+ * The factory methods always intern. In addition, while interning is
+ * enabled (with <tt>-Dhomework1.interning=true</tt> or
+ * <tt>setEnabled(true)</tt>), GeoSegment constructors intern their name and
+ * endpoints, and <tt>GeoSegment.getName</tt> returns the shared name instead
+ * of a copy. Interning is disabled by default.
+ */
+public final class Interning {
+
+	/** System property enabling interning when set to "true". **/
+	public static final String PROPERTY = "homework1.interning";
+
+	private static volatile boolean enabled_ = Boolean.getBoolean(PROPERTY);
+
+	private static final WeakPool<GeoPoint> points_ = new WeakPool<GeoPoint>();
+	private static final WeakPool<String> names_ = new WeakPool<String>();
+
+
+	private Interning() {
+	}
+
+	/**
+	 * Returns whether GeoSegments intern their names and endpoints.
+	 * @return true iff interning is enabled.
+	 */
+	public static boolean isEnabled() {
+		return enabled_;
+	}
+
+	/**
+	 * Enables or disables interning in GeoSegments.
+	 * @effects isEnabled() = enabled
+	 */
+	public static void setEnabled(boolean enabled) {
+		enabled_ = enabled;
+	}
+
+	/**
+	 * Returns the canonical GeoPoint equal to a given one.
+	 * @requires gp != null
+	 * @return the canonical GeoPoint c such that c.equals(gp).
+	 */
+	public static GeoPoint intern(GeoPoint gp) {
+		assert gp != null;
+		return points_.intern(gp);
+	}
+
+	/**
+	 * Returns the canonical GeoPoint at a given location.
+	 * @requires the point given by (latitude, longitude) in millionths
+	 *           of a degree is valid
+	 * @return the canonical GeoPoint c such that c.latitude = latitude &&
+	 * 		   c.longitude = longitude.
+	 */
+	public static GeoPoint point(int latitude, int longitude) {
+		return points_.intern(new GeoPoint(latitude, longitude));
+	}
+
+	/**
+	 * Returns the canonical String equal to a given name.
+	 * @requires name != null
+	 * @return the canonical String c such that c.equals(name).
+	 */
+	public static String intern(String name) {
+		assert name != null;
+		return names_.intern(name);
+	}
+
+	/**
+	 * Returns the number of canonical GeoPoints currently pooled.
+	 * @return the number of canonical GeoPoints that were not garbage
+	 * 		   collected yet.
+	 */
+	public static int pointCount() {
+		return points_.size();
+	}
+
+	/**
+	 * Returns the number of canonical names currently pooled.
+	 * @return the number of canonical names that were not garbage
+	 * 		   collected yet.
+	 */
+	public static int nameCount() {
+		return names_.size();
+	}
+}
@@ -0,0 +1,562 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A MapMatcher turns traces of noisy GPS fixes into Routes made of the
+ * GeoSegments of a RoadGraph, with a hidden Markov model: the hidden state
+ * at every fix is the segment the vehicle was on, and the most likely
+ * sequence of segments is found with the Viterbi algorithm.
+ * <p>
+ * The candidates of a fix are the (at most <tt>MAX_CANDIDATES</tt>)
+ * segments nearest to it within the search radius. The emission
+ * probability of a candidate falls with the distance from the fix to the
+ * segment, as a Gaussian of deviation <tt>sigma</tt>. The transition
+ * probability between candidates of consecutive fixes falls with the
+ * difference between the length of the shortest route from one to the
+ * other, along the graph, and the straight-line distance between the
+ * fixes (GeoPoint.distanceTo), exponentially with scale <tt>beta</tt>.
+ * Routes longer than twice the sum of the distance between the fixes and
+ * the radius are not considered.
+ * <p>
+ * A trace is matched by a MapMatcher.Trace, one fix at a time. As soon as
+ * the most likely paths to all the candidates of the latest fix agree on
+ * their beginning, that beginning can no longer change, and its segments
+ * are appended to the matched Route. A trace keeps at most
+ * <tt>MAX_LAG</tt> fixes that are not matched yet: when the paths have not
+ * agreed by then, the oldest fix is matched to the most likely path so
+ * far. So the memory of a trace, besides the Route it produces, does not
+ * grow with its length. When no candidate of a fix can be reached from the
+ * candidates of the previous one, the matched Route ends there and a new
+ * one starts.
+ * <p>
+ * A MapMatcher is immutable, and any number of traces may be matched by it
+ * concurrently, each by one thread at a time.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   graph : RoadGraph   // the roads fixes are matched to
+ *   radius : real       // the search radius of candidates, in kilometers
+ *   sigma : real        // the deviation of the GPS noise, in kilometers
+ *   beta : real         // the scale of transition differences, in kilometers
+ * </pre>
+ */
+public final class MapMatcher {
+
+	/** The default search radius of candidates, in kilometers. **/
+	public static final double DEFAULT_RADIUS = 0.05;
+
+	/** The default deviation of the GPS noise, in kilometers. **/
+	public static final double DEFAULT_SIGMA = 0.005;
+
+	/** The default scale of transition differences, in kilometers. **/
+	public static final double DEFAULT_BETA = 0.005;
+
+	/** Maximum number of candidate segments of a fix. **/
+	public static final int MAX_CANDIDATES = 8;
+
+	/** Maximum number of fixes of a trace that are not matched yet. **/
+	public static final int MAX_LAG = 32;
+
+	// the path between candidates on the same edge, the later one ahead
+	private static final int[] NO_EDGES = new int[0];
+
+	private final RoadGraph graph_;
+	private final SegmentIndex index_;
+	private final Map<GeoSegment, Integer> edges_;
+	private final double radius_;
+	private final double sigma_;
+	private final double beta_;
+
+	// Abstraction Function :
+	// represents the matcher of fixes to the segments of graph_, with the
+	// search radius radius_, the GPS deviation sigma_ and the transition
+	// scale beta_.
+
+	// Representation Invariant :
+	// graph != null and index indexes graph's edge segments and edges maps
+	// each of them to an edge of graph whose segment it is, and radius > 0
+	// and sigma > 0 and beta > 0
+
+
+	/**
+	 * Constructs a matcher to a graph, with the default parameters.
+	 * @requires graph != null
+	 * @effects constructs a MapMatcher m such that m.graph = graph and
+	 * 			m.radius = DEFAULT_RADIUS and m.sigma = DEFAULT_SIGMA and
+	 * 			m.beta = DEFAULT_BETA.
+	 */
+	public MapMatcher(RoadGraph graph) {
+		this(graph, DEFAULT_RADIUS, DEFAULT_SIGMA, DEFAULT_BETA);
+	}
+
+	/**
+	 * Constructs a matcher to a graph.
+	 * @requires graph != null && radius > 0 && sigma > 0 && beta > 0
+	 * @effects constructs a MapMatcher m such that m.graph = graph and
+	 * 			m.radius = radius and m.sigma = sigma and m.beta = beta.
+	 */
+	public MapMatcher(RoadGraph graph, double radius, double sigma,
+					  double beta) {
+		assert (graph != null) && (radius > 0) && (sigma > 0) && (beta > 0);
+		this.graph_ = graph;
+		this.radius_ = radius;
+		this.sigma_ = sigma;
+		this.beta_ = beta;
+		this.edges_ = new IdentityHashMap<GeoSegment, Integer>();
+		for(int e = 0; e < graph.edgeCount(); e++)
+			this.edges_.putIfAbsent(graph.edgeSegment(e), e);
+		this.index_ = new SegmentIndex(this.edges_.keySet());
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (this.graph_ != null) &&
+			   (this.index_.size() == this.edges_.size()) &&
+			   (this.radius_ > 0) && (this.sigma_ > 0) && (this.beta_ > 0);
+	}
+
+	/**
+	 * Starts matching a trace.
+	 * @requires sink != null
+	 * @return a new Trace of this matcher that gives sink every Route it
+	 * 		   matches, once the Route ends.
+	 */
+	public Trace open(Consumer<Route> sink) {
+		assert sink != null;
+		return new Trace(sink);
+	}
+
+	/**
+	 * Matches a trace.
+	 * @requires fixes != null and no fix in it is null
+	 * @return the Routes matched to fixes, in order: one Route, unless the
+	 * 		   trace leaves the graph or breaks it. Empty if no fix has a
+	 * 		   candidate.
+	 */
+	public List<Route> match(List<GeoPoint> fixes) {
+		assert fixes != null;
+		List<Route> routes = new ArrayList<Route>(1);
+		Trace trace = new Trace(routes::add);
+		for(GeoPoint fix : fixes)
+			trace.addFix(fix);
+		trace.finish();
+		return routes;
+	}
+
+	/**
+	 * Matches many traces, in parallel on the common ForkJoin pool.
+	 * @requires traces != null and no trace or fix in it is null
+	 * @return the list l such that l.get(i) = match(traces.get(i)).
+	 */
+	public List<List<Route>> matchAll(List<List<GeoPoint>> traces) {
+		assert traces != null;
+		// a parallel stream still collects in the order of the traces
+		return IntStream.range(0, traces.size()).parallel()
+				.mapToObj(i -> match(traces.get(i)))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Computes the position of the point of a segment nearest to a fix.
+	 * @requires fix != null && gs != null
+	 * @return the distance, in kilometers, from gs.p1 along gs to the point
+	 * 		   of gs nearest to fix, using the flat-surface, near the Technion
+	 * 		   approximation.
+	 */
+	private static double offset(GeoPoint fix, GeoSegment gs) {
+		GeoPoint p1 = gs.getP1();
+		GeoPoint p2 = gs.getP2();
+		double x = (double)(fix.getLongitude() - p1.getLongitude()) /
+				   1000000 * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		double y = (double)(fix.getLatitude() - p1.getLatitude()) /
+				   1000000 * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double dx = (double)(p2.getLongitude() - p1.getLongitude()) /
+					1000000 * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		double dy = (double)(p2.getLatitude() - p1.getLatitude()) /
+					1000000 * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double lengthSquared = dx * dx + dy * dy;
+		if(lengthSquared == 0)
+			return 0;
+		double t = Math.max(0, Math.min(1, (x * dx + y * dy) / lengthSquared));
+		return t * gs.getLength();
+	}
+
+	/**
+	 * The candidates of one fix, and the most likely paths to them.
+	 */
+	private static final class Step {
+
+		// candidate c lies offset[c] kilometers along edge[c], which leaves
+		// node source[c]. score[c] is the log probability of the most
+		// likely path to c, which comes from candidate parent[c] of the
+		// previous step through the edges path[c] (ending with edge[c]), or
+		// -infinity when no path reaches c; parent[c] = -1 when c starts a
+		// Route.
+		private final int[] edge_ = new int[MAX_CANDIDATES];
+		private final int[] source_ = new int[MAX_CANDIDATES];
+		private final double[] offset_ = new double[MAX_CANDIDATES];
+		private final double[] emission_ = new double[MAX_CANDIDATES];
+		private final double[] score_ = new double[MAX_CANDIDATES];
+		private final int[] parent_ = new int[MAX_CANDIDATES];
+		private final int[][] path_ = new int[MAX_CANDIDATES][];
+		private final boolean[] mark_ = new boolean[MAX_CANDIDATES];
+		private int count_;
+
+		/**
+		 * Returns the most likely candidate.
+		 * @requires count_ > 0
+		 * @return the candidate of highest score.
+		 */
+		private int best() {
+			int best = 0;
+			for(int c = 1; c < this.count_; c++)
+				if(this.score_[c] > this.score_[best])
+					best = c;
+			return best;
+		}
+	}
+
+	/**
+	 * A Trace matches the fixes of one trace, as they arrive. A Trace may
+	 * be used by one thread at a time.
+	 * <p>
+	 * <b>The following fields are used in the specification:</b>
+	 * <pre>
+	 *   fixes : sequence     // the fixes added since the last Route ended
+	 *   route : Route        // the part of fixes matched so far, or null
+	 *   sink : Consumer      // receives every Route once it ends
+	 * </pre>
+	 */
+	public final class Trace {
+
+		private final Consumer<Route> sink_;
+		private final Step[] window_;
+		private final int[] chain_;
+		private int first_;
+		private int size_;
+		private GeoPoint last_;
+		private RouteBuilder route_;
+		private int added_;
+
+		// Abstraction Function :
+		// represents the fixes matched to route_, followed by the fixes
+		// whose candidates are held by the steps window_[first_], ...,
+		// window_[first_ + size_ - 1] (modulo the length of window_), of
+		// which last_ is the latest. added_ counts the segments ever added
+		// to the routes of this trace.
+
+		// Representation Invariant :
+		// sink != null and 0 <= size <= MAX_LAG and (size = 0 <=>
+		// last = null) and the parent of every candidate of a step that is
+		// not the first is a candidate of the step before it
+
+
+		/**
+		 * Constructs a trace with no fixes.
+		 * @requires sink != null
+		 * @effects constructs a Trace t such that t.fixes is empty and
+		 * 			t.sink = sink.
+		 */
+		private Trace(Consumer<Route> sink) {
+			this.sink_ = sink;
+			this.window_ = new Step[MAX_LAG + 1];
+			this.chain_ = new int[MAX_LAG + 1];
+			this.first_ = 0;
+			this.size_ = 0;
+			this.last_ = null;
+			this.route_ = new RouteBuilder();
+			this.added_ = 0;
+			checkRep();
+		}
+
+		/**
+		 * check to see if the representation invariant is being violated
+		 * @throw AssertionError if representation invariant is violated
+		 */
+		private void checkRep() {
+			assert (this.sink_ != null) && (0 <= this.size_) &&
+				   (this.size_ <= MAX_LAG) &&
+				   ((this.size_ == 0) == (this.last_ == null));
+		}
+
+		/**
+		 * Returns a step of the window.
+		 * @requires 0 <= i < window_.length
+		 * @return the i-th step of the window, from the oldest.
+		 */
+		private Step step(int i) {
+			return this.window_[(this.first_ + i) % this.window_.length];
+		}
+
+		/**
+		 * Adds a fix to this trace.
+		 * @requires fix != null
+		 * @modifies this, sink
+		 * @effects appends fix to this.fixes, and extends this.route by the
+		 * 			segments of the fixes whose match can no longer change.
+		 * 			A fix with no segment within the radius is ignored. When
+		 * 			no candidate of fix can be reached from the previous fix,
+		 * 			gives this.route to sink and starts a new Route at fix.
+		 * @return the number of segments added to this.route, or to the
+		 * 		   Route given to sink and the new one.
+		 */
+		public int addFix(GeoPoint fix) {
+			checkRep();
+			assert fix != null;
+			int slot = (this.first_ + this.size_) % this.window_.length;
+			if(this.window_[slot] == null)
+				this.window_[slot] = new Step();
+			Step step = this.window_[slot];
+			if(!candidates(fix, step))
+				return 0;
+			int before = this.added_;
+			if(this.size_ == 0 || !transitions(fix, step)) {
+				// fix starts a route, after the previous one if it breaks
+				finish();
+				for(int c = 0; c < step.count_; c++) {
+					step.score_[c] = step.emission_[c];
+					step.parent_[c] = -1;
+					step.path_[c] = null;
+				}
+			}
+			this.size_++;
+			this.last_ = fix;
+			commitConverged();
+			if(this.size_ > MAX_LAG) {
+				// the paths did not agree in time: keep the most likely
+				int c = step(this.size_ - 1).best();
+				for(int i = this.size_ - 1; i > 0; i--)
+					c = step(i).parent_[c];
+				commit(0, c);
+			}
+			checkRep();
+			return this.added_ - before;
+		}
+
+		/**
+		 * Finds the candidates of a fix.
+		 * @requires fix != null && step != null
+		 * @modifies step
+		 * @effects sets the candidates of step to the segments of graph
+		 * 			within radius of fix, nearest first, and their emission
+		 * 			log probabilities.
+		 * @return true iff fix has a candidate.
+		 */
+		private boolean candidates(GeoPoint fix, Step step) {
+			step.count_ = 0;
+			for(GeoSegment gs : index_.nearest(fix, MAX_CANDIDATES)) {
+				double distance = gs.distanceTo(fix);
+				if(distance > radius_)
+					break;
+				int c = step.count_++;
+				int e = edges_.get(gs);
+				step.edge_[c] = e;
+				step.source_[c] = graph_.edgeSource(e);
+				step.offset_[c] = offset(fix, gs);
+				step.emission_[c] = -0.5 * (distance / sigma_) *
+									(distance / sigma_);
+			}
+			return step.count_ > 0;
+		}
+
+		/**
+		 * Finds the most likely paths to the candidates of a fix.
+		 * @requires size_ > 0 and step holds the candidates of fix
+		 * @modifies step
+		 * @effects sets the score, parent and path of every candidate of
+		 * 			step, from the candidates of the latest step, searching
+		 * 			the graph from each of them.
+		 * @return true iff some candidate of step can be reached.
+		 */
+		private boolean transitions(GeoPoint fix, Step step) {
+			Step previous = step(this.size_ - 1);
+			double straight = this.last_.distanceTo(fix);
+			double limit = 2 * (straight + radius_);
+			Arrays.fill(step.score_, 0, step.count_, Double.NEGATIVE_INFINITY);
+			boolean reached = false;
+			for(int a = 0; a < previous.count_; a++) {
+				if(previous.score_[a] == Double.NEGATIVE_INFINITY)
+					continue;
+				int edge = previous.edge_[a];
+				double offset = previous.offset_[a];
+				double rest = graph_.edgeLength(edge) - offset;
+				int from = graph_.edgeTarget(edge);
+				SearchScratch scratch = graph_.scratch();
+				if(rest <= limit)
+					graph_.searchWithin(scratch, from, limit - rest,
+										step.source_, step.count_);
+				for(int b = 0; b < step.count_; b++) {
+					boolean ahead = (step.edge_[b] == edge) &&
+									(step.offset_[b] >= offset);
+					double length;
+					if(ahead)
+						length = step.offset_[b] - offset;
+					else if(scratch.isClosed(step.source_[b]))
+						length = rest + scratch.distance(step.source_[b]) +
+								 step.offset_[b];
+					else
+						continue;
+					double score = previous.score_[a] + step.emission_[b] -
+								   Math.abs(length - straight) / beta_;
+					if(score > step.score_[b]) {
+						step.score_[b] = score;
+						step.parent_[b] = a;
+						step.path_[b] = ahead ? NO_EDGES :
+										path(scratch, step.source_[b],
+											 step.edge_[b]);
+						reached = true;
+					}
+				}
+			}
+			if(reached) {
+				// keep the scores near 0, however long the trace
+				double best = step.score_[step.best()];
+				for(int b = 0; b < step.count_; b++)
+					step.score_[b] -= best;
+			}
+			return reached;
+		}
+
+		/**
+		 * Returns the edges of a path found by a search.
+		 * @requires node was closed by the search whose state is in scratch
+		 * 			 and edge leaves node
+		 * @return the edges of the shortest route from the source of the
+		 * 		   search to node, followed by edge.
+		 */
+		private int[] path(SearchScratch scratch, int node, int edge) {
+			int length = 1;
+			for(int e = scratch.parentEdge(node); e >= 0;
+				e = scratch.parentEdge(graph_.edgeSource(e)))
+				length++;
+			int[] path = new int[length];
+			path[--length] = edge;
+			for(int e = scratch.parentEdge(node); e >= 0;
+				e = scratch.parentEdge(graph_.edgeSource(e)))
+				path[--length] = e;
+			return path;
+		}
+
+		/**
+		 * Commits the steps on which the paths to the latest candidates
+		 * agree.
+		 * @modifies this
+		 * @effects if the most likely paths to every possible candidate of
+		 * 			the latest step pass through a single candidate of an
+		 * 			earlier step, commits the latest such step to it.
+		 */
+		private void commitConverged() {
+			Step latest = step(this.size_ - 1);
+			for(int c = 0; c < latest.count_; c++)
+				latest.mark_[c] = latest.score_[c] > Double.NEGATIVE_INFINITY;
+			for(int i = this.size_ - 2; i >= 0; i--) {
+				Step step = step(i);
+				Step next = step(i + 1);
+				Arrays.fill(step.mark_, false);
+				int marked = 0;
+				int only = -1;
+				for(int c = 0; c < next.count_; c++) {
+					int parent = next.parent_[c];
+					if(next.mark_[c] && !step.mark_[parent]) {
+						step.mark_[parent] = true;
+						marked++;
+						only = parent;
+					}
+				}
+				if(marked == 1) {
+					commit(i, only);
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Commits the oldest steps of the window.
+		 * @requires 0 <= i < size_ and c is a possible candidate of step(i)
+		 * @modifies this
+		 * @effects matches the steps 0 .. i to the path to candidate c of
+		 * 			step i, appending its segments to this.route, and removes
+		 * 			them from the window. The candidates of later steps whose
+		 * 			paths do not pass through c become impossible.
+		 */
+		private void commit(int i, int c) {
+			for(int j = i; j >= 0; j--) {
+				this.chain_[j] = c;
+				c = step(j).parent_[c];
+			}
+			for(int j = 0; j <= i; j++) {
+				Step step = step(j);
+				int k = this.chain_[j];
+				if(step.parent_[k] < 0) {
+					this.route_.add(graph_.edgeSegment(step.edge_[k]));
+					this.added_++;
+				}
+				else
+					for(int e : step.path_[k]) {
+						this.route_.add(graph_.edgeSegment(e));
+						this.added_++;
+					}
+			}
+			this.first_ = (this.first_ + i + 1) % this.window_.length;
+			this.size_ -= i + 1;
+			if(this.size_ == 0) {
+				this.last_ = null;
+				return;
+			}
+			Step head = step(0);
+			for(int b = 0; b < head.count_; b++)
+				if(head.parent_[b] != this.chain_[i])
+					head.score_[b] = Double.NEGATIVE_INFINITY;
+			for(int j = 1; j < this.size_; j++) {
+				Step step = step(j);
+				Step previous = step(j - 1);
+				for(int b = 0; b < step.count_; b++)
+					if(step.score_[b] > Double.NEGATIVE_INFINITY &&
+					   previous.score_[step.parent_[b]] ==
+					   Double.NEGATIVE_INFINITY)
+						step.score_[b] = Double.NEGATIVE_INFINITY;
+			}
+		}
+
+		/**
+		 * Returns the Route matched so far.
+		 * @return this.route, a Route of the segments of the fixes whose
+		 * 		   match can no longer change, or null if there is none.
+		 */
+		public Route getRoute() {
+			checkRep();
+			return this.route_.isEmpty() ? null : this.route_.build();
+		}
+
+		/**
+		 * Ends the Route of this trace.
+		 * @modifies this, sink
+		 * @effects matches every remaining fix to the most likely path,
+		 * 			gives the resulting Route to sink if it is not empty,
+		 * 			and makes this.fixes empty, so that the next fix starts
+		 * 			a new Route.
+		 */
+		public void finish() {
+			checkRep();
+			if(this.size_ > 0)
+				commit(this.size_ - 1, step(this.size_ - 1).best());
+			if(!this.route_.isEmpty()) {
+				this.sink_.accept(this.route_.build());
+				this.route_ = new RouteBuilder();
+			}
+			checkRep();
+		}
+	}
+}
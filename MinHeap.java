@@ -0,0 +1,138 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A MinHeap is a priority queue of int values ordered by double keys, kept
+ * in primitive arrays so that pushing and popping never allocates (except
+ * to grow the arrays). It is meant to be reused across searches: clear
+ * empties it without releasing its arrays.
+ * <p>
+ * A MinHeap is not safe for concurrent use.
+ */
+final class MinHeap {
+
+	private double[] keys_;
+	private int[] values_;
+	private int size_;
+
+	// Abstraction Function :
+	// represents the multiset of pairs (keys[i], values[i]) for
+	// 0 <= i < size.
+
+	// Representation Invariant :
+	// 0 <= size <= keys.length = values.length and for every 0 < i < size,
+	// keys[(i - 1) / 2] <= keys[i]
+
+
+	/**
+	 * Constructs an empty MinHeap.
+	 * @requires capacity >= 1
+	 * @effects constructs an empty MinHeap with room for capacity pairs.
+	 */
+	MinHeap(int capacity) {
+		assert capacity >= 1;
+		this.keys_ = new double[capacity];
+		this.values_ = new int[capacity];
+		this.size_ = 0;
+	}
+
+	/**
+	 * Returns whether this heap is empty.
+	 * @return true iff this heap holds no pair.
+	 */
+	boolean isEmpty() {
+		return this.size_ == 0;
+	}
+
+	/**
+	 * Returns the number of pairs in this heap.
+	 * @return the number of pairs in this heap.
+	 */
+	int size() {
+		return this.size_;
+	}
+
+	/**
+	 * Removes every pair from this heap.
+	 * @modifies this
+	 * @effects this heap is empty.
+	 */
+	void clear() {
+		this.size_ = 0;
+	}
+
+	/**
+	 * Adds a pair to this heap.
+	 * @modifies this
+	 * @effects adds (key, value) to this heap.
+	 */
+	void push(double key, int value) {
+		if(this.size_ == this.keys_.length) {
+			this.keys_ = Arrays.copyOf(this.keys_, 2 * this.size_);
+			this.values_ = Arrays.copyOf(this.values_, 2 * this.size_);
+		}
+		int i = this.size_++;
+		while(i > 0) {
+			int parent = (i - 1) >>> 1;
+			if(this.keys_[parent] <= key)
+				break;
+			this.keys_[i] = this.keys_[parent];
+			this.values_[i] = this.values_[parent];
+			i = parent;
+		}
+		this.keys_[i] = key;
+		this.values_[i] = value;
+	}
+
+	/**
+	 * Returns the smallest key in this heap.
+	 * @requires !isEmpty()
+	 * @return the smallest key of a pair in this heap.
+	 */
+	double peekKey() {
+		assert this.size_ > 0;
+		return this.keys_[0];
+	}
+
+	/**
+	 * Returns the value of a pair with the smallest key in this heap.
+	 * @requires !isEmpty()
+	 * @return the value of the pair that pop would remove.
+	 */
+	int peekValue() {
+		assert this.size_ > 0;
+		return this.values_[0];
+	}
+
+	/**
+	 * Removes a pair with the smallest key from this heap.
+	 * @requires !isEmpty()
+	 * @modifies this
+	 * @effects removes a pair with the smallest key from this heap.
+	 * @return the value of the removed pair.
+	 */
+	int pop() {
+		assert this.size_ > 0;
+		int top = this.values_[0];
+		int last = --this.size_;
+		double key = this.keys_[last];
+		int value = this.values_[last];
+		int i = 0;
+		while(true) {
+			int child = 2 * i + 1;
+			if(child >= last)
+				break;
+			if(child + 1 < last && this.keys_[child + 1] < this.keys_[child])
+				child++;
+			if(key <= this.keys_[child])
+				break;
+			this.keys_[i] = this.keys_[child];
+			this.values_[i] = this.values_[child];
+			i = child;
+		}
+		this.keys_[i] = key;
+		this.values_[i] = value;
+		return top;
+	}
+}
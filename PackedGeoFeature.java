@@ -0,0 +1,125 @@
+package homework1;
+
+/**
+ * A PackedGeoFeature is a view of a geographic feature of a PackedRoute, as
+ * returned by <tt>PackedRoute.getGeoFeatures</tt>.
+ * <p>
+ * The view shares the vertex columns of the route and holds the range of
+ * vertices the feature covers, so it is built in constant time: a segment
+ * is created only when it is accessed. The prefix lengths of the feature
+ * are summed segment by segment, like a spine does, the first time they are
+ * needed, so they are equal to those of the same feature built with a
+ * GeoFeatureBuilder.
+ */
+final class PackedGeoFeature extends GeoFeature {
+
+	private final String name_;
+	private final int[] latitudes_;
+	private final int[] longitudes_;
+	private final int from_;
+	private final int to_;
+
+	// lengths_[i] is the total length of segments 0, ..., i, or null until
+	// lengthTo is first called
+	private volatile double[] lengths_;
+
+	// Abstraction Function :
+	// represents the geographic feature named name_ whose segments are
+	// (name_, vertex i, vertex i + 1) for from_ <= i < to_, where vertex i is
+	// (latitudes_[i], longitudes_[i]).
+
+	// Representation Invariant :
+	// name != null and latitudes != null and longitudes != null and
+	// latitudes.length = longitudes.length and
+	// 0 <= from < to < latitudes.length and lengths is null or holds the
+	// prefix sums of the lengths of the to - from segments
+
+
+	/**
+	 * Constructs a view of a range of the vertices of a PackedRoute.
+	 * @requires name != null && latitudes != null && longitudes != null &&
+	 * 			 latitudes.length = longitudes.length &&
+	 * 			 0 <= from < to < latitudes.length and the columns are not
+	 * 			 modified afterwards
+	 * @effects Constructs the geographic feature named name made of the
+	 * 			segments between vertices from, from + 1, ..., to.
+	 */
+	PackedGeoFeature(String name, int[] latitudes, int[] longitudes,
+					 int from, int to) {
+		super(name);
+		this.name_ = name;
+		this.latitudes_ = latitudes;
+		this.longitudes_ = longitudes;
+		this.from_ = from;
+		this.to_ = to;
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (this.name_ != null) && (this.latitudes_ != null) &&
+			   (this.longitudes_ != null) &&
+			   (this.latitudes_.length == this.longitudes_.length) &&
+			   (0 <= this.from_) && (this.from_ < this.to_) &&
+			   (this.to_ < this.latitudes_.length);
+	}
+
+	/**
+	 * Returns the vertex at the given position of the packed columns.
+	 * @requires 0 <= index < latitudes_.length
+	 * @return the vertex at the given position of the packed columns.
+	 */
+	private GeoPoint vertexAt(int index) {
+		if(Interning.isEnabled())
+			return Interning.point(this.latitudes_[index],
+								   this.longitudes_[index]);
+		return new GeoPoint(this.latitudes_[index], this.longitudes_[index]);
+	}
+
+	/**
+	 * Returns the number of segments of this geographic feature.
+	 * @return the number of segments of this geographic feature.
+	 */
+	int segmentCount() {
+		return this.to_ - this.from_;
+	}
+
+	/**
+	 * Returns the total length of a prefix of this geographic feature.
+	 * @requires 0 <= count <= segmentCount()
+	 * @return the sum of the lengths of the first count segments of this
+	 * 		   geographic feature, in kilometers.
+	 */
+	double lengthTo(int count) {
+		if(count == 0)
+			return 0;
+		double[] lengths = this.lengths_;
+		if(lengths == null) {
+			lengths = new double[this.to_ - this.from_];
+			double sum = 0;
+			for(int i = this.from_; i < this.to_; i++) {
+				sum += GeoPoint.distance(this.latitudes_[i],
+										 this.longitudes_[i],
+										 this.latitudes_[i + 1],
+										 this.longitudes_[i + 1]);
+				lengths[i - this.from_] = sum;
+			}
+			this.lengths_ = lengths;
+		}
+		return lengths[count - 1];
+	}
+
+	/**
+	 * Returns the segment at the given position of this geographic feature.
+	 * @requires 0 <= index < segmentCount()
+	 * @return a new segment equal to the segment at the given position of
+	 * 		   this geographic feature.
+	 */
+	GeoSegment segmentAt(int index) {
+		int i = this.from_ + index;
+		return new GeoSegment(this.name_, vertexAt(i), vertexAt(i + 1));
+	}
+}
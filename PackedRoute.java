@@ -0,0 +1,423 @@
+package homework1;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A PackedRoute is a compact, read-only representation of a Route, meant
+ * for holding very long routes (or very many routes) in memory.
+ * <p>
+ * Instead of GeoFeature, GeoSegment and GeoPoint objects, a PackedRoute
+ * keeps the vertices of the route in two <tt>int</tt> columns of latitudes
+ * and longitudes, in millionths of degrees (the units GeoPoint uses), where
+ * consecutive segments share their common vertex. Geographic features are
+ * stored as offsets into the vertices, together with an index into a table
+ * of the distinct names of the route, which are interned (see Interning)
+ * so that routes along the same streets share them. A segment thus costs 8
+ * bytes instead of a GeoSegment, two GeoPoints and a name.
+ * <p>
+ * PackedRoutes are immutable and offer the same read operations as Route.
+ * The GeoFeatures they return are views over the packed columns (see
+ * PackedGeoFeature), and their GeoSegments are created on demand.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   start : GeoPoint            // location of the start of the route
+ *   end : GeoPoint              // location of the end of the route
+ *   startHeading : angle        // direction of travel at the start of the route, in degrees
+ *   endHeading : angle          // direction of travel at the end of the route, in degrees
+ *   geoFeatures : sequence      // a sequence of geographic features that make up this Route
+ *   geoSegments : sequence      // a sequence of segments that make up this Route
+ *   length : real               // total length of the route, in kilometers
+ * </pre>
+ **/
+public class PackedRoute {
+
+	// vertex i is (latitudes_[i], longitudes_[i]), segment i connects
+	// vertex i to vertex i + 1.
+	private final int[] latitudes_;
+	private final int[] longitudes_;
+
+	// feature i is made of the segments featureOffsets_[i], ...,
+	// featureOffsets_[i + 1] - 1 and is named names_[featureNames_[i]].
+	private final int[] featureOffsets_;
+	private final int[] featureNames_;
+	private final String[] names_;
+
+	// featureLengths_[i] is the total length of features 0, ..., i.
+	private final double[] featureLengths_;
+
+	// Abstraction Function :
+	// represents the route made of the segments
+	// (names[featureNames[f]], vertex i, vertex i + 1) for every feature f
+	// and every featureOffsets[f] <= i < featureOffsets[f + 1].
+
+	// Representation Invariant :
+	// all the arrays are non null and latitudes.length = longitudes.length
+	// and featureOffsets[0] = 0 and featureOffsets is strictly increasing
+	// and featureOffsets[featureOffsets.length - 1] = latitudes.length - 1
+	// and featureNames.length = featureLengths.length =
+	// featureOffsets.length - 1 >= 1 and every featureNames[i] indexes names
+	// and consecutive features have different names.
+
+
+	/**
+	 * Constructs a PackedRoute equivalent to a given Route.
+	 * @requires route != null
+	 * @effects Constructs a new PackedRoute made of the same geoSegments,
+	 * 			in the same order, as route.
+	 **/
+	public PackedRoute(Route route) {
+		this(geoSegmentsOf(route));
+	}
+
+	/**
+	 * Constructs a PackedRoute from a sequence of segments.
+	 * @requires geoSegments != null && geoSegments is not empty &&
+	 * 			 every segment after the first starts where the previous
+	 * 			 one ends (its p1 equals the previous p2)
+	 * @effects Constructs a new PackedRoute r such that
+	 * 			r.geoSegments = geoSegments.
+	 **/
+	public PackedRoute(Iterable<GeoSegment> geoSegments) {
+		assert geoSegments != null;
+		int[] latitudes = new int[16];
+		int[] longitudes = new int[16];
+		int[] featureOffsets = new int[8];
+		int[] featureNames = new int[8];
+		double[] featureLengths = new double[8];
+		HashMap<String, Integer> nameIds = new HashMap<String, Integer>();
+		String[] names = new String[4];
+
+		int vertices = 0;
+		int features = 0;
+		double length = 0;
+		double featureLength = 0;
+		String name = null;
+		for(GeoSegment gs : geoSegments) {
+			if(vertices == 0) {
+				latitudes[0] = gs.getP1().getLatitude();
+				longitudes[0] = gs.getP1().getLongitude();
+				vertices = 1;
+			}
+			else
+				assert gs.getP1().getLatitude() == latitudes[vertices - 1] &&
+					   gs.getP1().getLongitude() == longitudes[vertices - 1];
+
+			// gs starts a new geographic feature
+			if(name == null || !name.equals(gs.getName())) {
+				if(features + 1 >= featureOffsets.length) {
+					featureOffsets = Arrays.copyOf(featureOffsets,
+												   2 * featureOffsets.length);
+					featureNames = Arrays.copyOf(featureNames,
+												 2 * featureNames.length);
+					featureLengths = Arrays.copyOf(featureLengths,
+												   2 * featureLengths.length);
+				}
+				name = gs.getName();
+				Integer id = nameIds.get(name);
+				if(id == null) {
+					id = nameIds.size();
+					nameIds.put(name, id);
+					if(id == names.length)
+						names = Arrays.copyOf(names, 2 * names.length);
+					names[id] = Interning.intern(name);
+				}
+				featureOffsets[features] = vertices - 1;
+				featureNames[features] = id;
+				features++;
+
+				// lengths are summed feature by feature, like in Route
+				length = (features == 1) ? 0 : featureLengths[features - 2];
+				featureLength = 0;
+			}
+
+			if(vertices == latitudes.length) {
+				latitudes = Arrays.copyOf(latitudes, 2 * latitudes.length);
+				longitudes = Arrays.copyOf(longitudes, 2 * longitudes.length);
+			}
+			latitudes[vertices] = gs.getP2().getLatitude();
+			longitudes[vertices] = gs.getP2().getLongitude();
+			vertices++;
+			featureLength += gs.getLength();
+			featureLengths[features - 1] = length + featureLength;
+		}
+		assert vertices >= 2;
+		featureOffsets[features] = vertices - 1;
+
+		this.latitudes_ = Arrays.copyOf(latitudes, vertices);
+		this.longitudes_ = Arrays.copyOf(longitudes, vertices);
+		this.featureOffsets_ = Arrays.copyOf(featureOffsets, features + 1);
+		this.featureNames_ = Arrays.copyOf(featureNames, features);
+		this.featureLengths_ = Arrays.copyOf(featureLengths, features);
+		this.names_ = Arrays.copyOf(names, nameIds.size());
+		checkRep(true);
+	}
+
+	/**
+	 * Returns the segments of a route as an Iterable.
+	 * @requires route != null
+	 * @return an Iterable over route.geoSegments.
+	 */
+	private static Iterable<GeoSegment> geoSegmentsOf(final Route route) {
+		assert route != null;
+		return route::getGeoSegments;
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		checkRep(false);
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated,
+	 * subject to the current Validation level.
+	 * @param onConstruction whether this is called from a constructor.
+	 * @throw AssertionError if representation invariant is violated
+	 * @see homework1.Validation
+	 */
+	private void checkRep(boolean onConstruction) {
+		if(!Validation.shouldCheck(onConstruction))
+			return;
+		long start = Validation.start();
+		assert (this.latitudes_ != null) && (this.longitudes_ != null) &&
+			   (this.featureOffsets_ != null) && (this.featureNames_ != null)
+			   && (this.featureLengths_ != null) && (this.names_ != null);
+		assert this.latitudes_.length == this.longitudes_.length;
+		assert (this.featureNames_.length >= 1) &&
+			   (this.featureNames_.length == this.featureOffsets_.length - 1)
+			   && (this.featureLengths_.length == this.featureNames_.length);
+		assert (this.featureOffsets_[0] == 0) &&
+			   (this.featureOffsets_[this.featureNames_.length] ==
+				this.latitudes_.length - 1);
+
+		// walking the features is O(n)
+		if(Validation.isThorough(onConstruction)) {
+			for(int i = 0; i < this.featureNames_.length; i++) {
+				assert this.featureOffsets_[i] < this.featureOffsets_[i + 1];
+				assert (0 <= this.featureNames_[i]) &&
+					   (this.featureNames_[i] < this.names_.length);
+				assert (i == 0) ||
+					   (this.featureNames_[i - 1] != this.featureNames_[i]);
+			}
+		}
+		Validation.checked(start);
+	}
+
+	/**
+	 * Returns the vertex at the given position of this route.
+	 * @requires 0 <= index <= number of segments of this route
+	 * @return the vertex at the given position of this route.
+	 */
+	private GeoPoint vertexAt(int index) {
+		if(Interning.isEnabled())
+			return Interning.point(this.latitudes_[index],
+								   this.longitudes_[index]);
+		return new GeoPoint(this.latitudes_[index], this.longitudes_[index]);
+	}
+
+	/**
+	 * Returns the number of segments of this route.
+	 * @return the number of segments of this route.
+	 */
+	int segmentCount() {
+		return this.latitudes_.length - 1;
+	}
+
+	/**
+	 * Returns the number of geographic features of this route.
+	 * @return the number of geographic features of this route.
+	 */
+	int geoFeatureCount() {
+		return this.featureNames_.length;
+	}
+
+	/**
+	 * Returns a view of the geographic feature at the given position of
+	 * this route.
+	 * @requires 0 <= index < geoFeatureCount()
+	 * @return a new PackedGeoFeature, sharing the vertex columns of this
+	 * 		   route, equal to the geographic feature at the given position
+	 * 		   of this route.
+	 */
+	GeoFeature geoFeatureAt(int index) {
+		return new PackedGeoFeature(this.names_[this.featureNames_[index]],
+									this.latitudes_, this.longitudes_,
+									this.featureOffsets_[index],
+									this.featureOffsets_[index + 1]);
+	}
+
+	/**
+	 * Returns location of the start of the route.
+	 * @return location of the start of the route.
+	 **/
+	public GeoPoint getStart() {
+		checkRep();
+		return vertexAt(0);
+	}
+
+	/**
+	 * Returns location of the end of the route.
+	 * @return location of the end of the route.
+	 **/
+	public GeoPoint getEnd() {
+		checkRep();
+		return vertexAt(this.latitudes_.length - 1);
+	}
+
+	/**
+	 * Returns direction of travel at the start of the route, in degrees.
+	 * @requires start != the other endPoint on the same geoSegment
+	 * @return direction (in compass heading) of travel at the start of the
+	 *         route, in degrees.
+	 **/
+	public double getStartHeading() {
+		checkRep();
+		return GeoPoint.heading(this.latitudes_[0], this.longitudes_[0],
+								this.latitudes_[1], this.longitudes_[1]);
+	}
+
+	/**
+	 * Returns direction of travel at the end of the route, in degrees.
+	 * @requires end != the other endPoint on the same geoSegment
+	 * @return direction (in compass heading) of travel at the end of the
+	 *         route, in degrees.
+	 **/
+	public double getEndHeading() {
+		checkRep();
+		int last = this.latitudes_.length - 1;
+		return GeoPoint.heading(this.latitudes_[last - 1],
+								this.longitudes_[last - 1],
+								this.latitudes_[last], this.longitudes_[last]);
+	}
+
+	/**
+	 * Returns total length of the route.
+	 * @return total length of the route, in kilometers.  NOTE: this is NOT
+	 *         as-the-crow-flies, but rather the total distance required to
+	 *         traverse the route. These values are not necessarily equal.
+	 **/
+	public double getLength() {
+		checkRep();
+		return this.featureLengths_[this.featureLengths_.length - 1];
+	}
+
+	/**
+	 * Returns an Iterator of GeoFeature objects. The concatenation
+	 * of the GeoFeatures, in order, is equivalent to this route. No two
+	 * consecutive GeoFeature objects have the same name.
+	 * @return an Iterator of GeoFeatures with the same specification as
+	 * 		   <tt>Route.getGeoFeatures</tt>. The GeoFeatures are created
+	 * 		   as the iteration reaches them.
+	 * @see homework1.Route#getGeoFeatures()
+	 **/
+	public Iterator<GeoFeature> getGeoFeatures() {
+		checkRep();
+		return new Iterator<GeoFeature>() {
+			private int next_ = 0;
+
+			public boolean hasNext() {
+				return this.next_ < geoFeatureCount();
+			}
+
+			public GeoFeature next() {
+				if(!hasNext())
+					throw new NoSuchElementException();
+				return geoFeatureAt(this.next_++);
+			}
+		};
+	}
+
+	/**
+	 * Returns an Iterator of GeoSegment objects. The concatenation of the
+	 * GeoSegments, in order, is equivalent to this route.
+	 * @return an Iterator of GeoSegments with the same specification as
+	 * 		   <tt>Route.getGeoSegments</tt>. The GeoSegments are created
+	 * 		   as the iteration reaches them.
+	 * @see homework1.Route#getGeoSegments()
+	 **/
+	public Iterator<GeoSegment> getGeoSegments() {
+		checkRep();
+		return new Iterator<GeoSegment>() {
+			private int next_ = 0;
+			private int feature_ = 0;
+			private GeoPoint p1_ = vertexAt(0);
+
+			public boolean hasNext() {
+				return this.next_ < segmentCount();
+			}
+
+			public GeoSegment next() {
+				if(!hasNext())
+					throw new NoSuchElementException();
+				while(featureOffsets_[this.feature_ + 1] <= this.next_)
+					this.feature_++;
+				GeoPoint p2 = vertexAt(++this.next_);
+				GeoSegment gs = new GeoSegment(
+						names_[featureNames_[this.feature_]], this.p1_, p2);
+				this.p1_ = p2;
+				return gs;
+			}
+		};
+	}
+
+	/**
+	 * Returns a Route equal to this PackedRoute.
+	 * @return a new Route made of the same geoSegments, in the same order,
+	 * 		   as this.
+	 **/
+	public Route toRoute() {
+		checkRep();
+		return new RouteBuilder().addAll(this::getGeoSegments).build();
+	}
+
+	/**
+	 * Compares the specified Object with this PackedRoute for equality.
+	 * @return true iff (o instanceof PackedRoute) &&
+	 *         (o.geoSegments and this.geoSegments contain
+	 *          the same elements in the same order).
+	 **/
+	public boolean equals(Object o) {
+		checkRep();
+		if(!(o instanceof PackedRoute))
+			return false;
+		PackedRoute r = (PackedRoute)o;
+		if(!Arrays.equals(this.latitudes_, r.latitudes_) ||
+		   !Arrays.equals(this.longitudes_, r.longitudes_) ||
+		   !Arrays.equals(this.featureOffsets_, r.featureOffsets_))
+			return false;
+		for(int i = 0; i < this.featureNames_.length; i++) {
+			if(!this.names_[this.featureNames_[i]].equals(
+					r.names_[r.featureNames_[i]]))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a hash code for this.
+	 * @return a hash code for this.
+	 **/
+	public int hashCode() {
+		checkRep();
+		return GeoPoint.factor * this.latitudes_[0] +
+				this.longitudes_[this.longitudes_.length - 1];
+	}
+
+	/**
+	 * Returns a string representation of this.
+	 * @return a string representation of this.
+	 **/
+	public String toString() {
+		checkRep();
+		return "PackedRoute start is : " + this.getStart().toString() +
+				", end is : " + this.getEnd().toString() +
+				", with total length : " + String.valueOf(this.getLength()) +
+				".";
+	}
+}
@@ -0,0 +1,102 @@
+package homework1;
+
+/**
+ * A ReversedGeoFeature is a view of a GeoFeature traveled in the opposite
+ * direction, as returned by <tt>GeoFeature.reverse</tt>.
+ * <p>
+ * The view holds the feature it reverses and nothing else: a segment is
+ * reversed only when it is accessed, keeping its length and computing its
+ * heading exactly as for a segment built the other way, and prefix lengths
+ * come from the prefix sums of the feature. So a reversal is built
+ * in constant time, whatever the length of the feature.
+ */
+final class ReversedGeoFeature extends GeoFeature {
+
+	private final GeoFeature base_;
+
+	// Abstraction Function :
+	// represents the geographic feature named base_.name whose segments are
+	// base_.segmentAt(n - 1).reverse(), ..., base_.segmentAt(0).reverse(),
+	// for n = base_.segmentCount().
+
+	// Representation Invariant :
+	// base != null
+
+
+	/**
+	 * Constructs a view of a feature traveled in the opposite direction.
+	 * @requires base != null
+	 * @effects Constructs the geographic feature whose segments are the
+	 * 			reverses of the segments of base, in reverse order.
+	 */
+	ReversedGeoFeature(GeoFeature base) {
+		super(base.getName());
+		this.base_ = base;
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert this.base_ != null;
+	}
+
+	/**
+	 * Returns the number of segments of this geographic feature.
+	 * @return the number of segments of this geographic feature.
+	 */
+	int segmentCount() {
+		return this.base_.segmentCount();
+	}
+
+	/**
+	 * Returns the total length of a prefix of this geographic feature.
+	 * @requires 0 <= count <= segmentCount()
+	 * @return the sum of the lengths of the first count segments of this
+	 * 		   geographic feature, in kilometers.
+	 */
+	double lengthTo(int count) {
+		int n = this.base_.segmentCount();
+		if(count == 0)
+			return 0;
+		return this.base_.lengthTo(n) - this.base_.lengthTo(n - count);
+	}
+
+	/**
+	 * Returns the segment at the given position of this geographic feature.
+	 * @requires 0 <= index < segmentCount()
+	 * @return the segment at the given position of this geographic feature.
+	 */
+	GeoSegment segmentAt(int index) {
+		return this.base_.segmentAt(this.base_.segmentCount() - 1 -
+									index).reversed();
+	}
+
+	/**
+	 * Returns how many views lie between this geographic feature and the
+	 * spines holding its segments.
+	 * @return one more than the view depth of the reversed feature.
+	 */
+	int viewDepth() {
+		return this.base_.viewDepth() + 1;
+	}
+
+	/**
+	 * Returns the bounding box of this geographic feature.
+	 * @return the bounding box of the reversed feature, which covers the
+	 * 		   same points.
+	 */
+	public GeoBox getBoundingBox() {
+		return this.base_.getBoundingBox();
+	}
+
+	/**
+	 * Returns this geographic feature traveled in the opposite direction.
+	 * @return the reversed feature itself.
+	 */
+	public GeoFeature reverse() {
+		return this.base_;
+	}
+}
@@ -0,0 +1,100 @@
+package homework1;
+
+/**
+ * A ReversedRoute is a view of a Route traveled in the opposite direction,
+ * as returned by <tt>Route.reverse</tt>.
+ * <p>
+ * The view holds the route it reverses and nothing else: a geographic
+ * feature is reversed (as a ReversedGeoFeature) only when it is accessed,
+ * and prefix lengths come from the prefix sums of the route. So a reversal
+ * is built in constant time, whatever the length of the route.
+ */
+final class ReversedRoute extends Route {
+
+	private final Route base_;
+
+	// Abstraction Function :
+	// represents the route whose geographic features are
+	// base_.geoFeatureAt(n - 1).reverse(), ...,
+	// base_.geoFeatureAt(0).reverse(), for n = base_.geoFeatureCount().
+
+	// Representation Invariant :
+	// base != null
+
+
+	/**
+	 * Constructs a view of a route traveled in the opposite direction.
+	 * @requires base != null
+	 * @effects Constructs the route whose geographic features are the
+	 * 			reverses of the features of base, in reverse order.
+	 */
+	ReversedRoute(Route base) {
+		this.base_ = base;
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert this.base_ != null;
+	}
+
+	/**
+	 * Returns the number of geographic features of this route.
+	 * @return the number of geographic features of this route.
+	 */
+	int geoFeatureCount() {
+		return this.base_.geoFeatureCount();
+	}
+
+	/**
+	 * Returns the total length of a prefix of this route.
+	 * @requires 0 <= count <= geoFeatureCount()
+	 * @return the sum of the lengths of the first count geographic features
+	 * 		   of this route, in kilometers.
+	 */
+	double lengthTo(int count) {
+		int n = this.base_.geoFeatureCount();
+		if(count == 0)
+			return 0;
+		return this.base_.lengthTo(n) - this.base_.lengthTo(n - count);
+	}
+
+	/**
+	 * Returns the geographic feature at the given position of this route.
+	 * @requires 0 <= index < geoFeatureCount()
+	 * @return the geographic feature at the given position of this route.
+	 */
+	GeoFeature geoFeatureAt(int index) {
+		return this.base_.geoFeatureAt(this.base_.geoFeatureCount() - 1 -
+									   index).reverse();
+	}
+
+	/**
+	 * Returns how many views lie between this route and the spines holding
+	 * its geographic features.
+	 * @return one more than the view depth of the reversed route.
+	 */
+	int viewDepth() {
+		return this.base_.viewDepth() + 1;
+	}
+
+	/**
+	 * Returns the bounding box of this route.
+	 * @return the bounding box of the reversed route, which covers the same
+	 * 		   points.
+	 */
+	public GeoBox getBoundingBox() {
+		return this.base_.getBoundingBox();
+	}
+
+	/**
+	 * Returns this route traveled in the opposite direction.
+	 * @return the reversed route itself.
+	 */
+	public Route reverse() {
+		return this.base_;
+	}
+}
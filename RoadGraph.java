@@ -0,0 +1,498 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * A RoadGraph is an immutable directed graph of roads, whose nodes are
+ * GeoPoints and whose edges are GeoSegments, built by a RoadGraphBuilder.
+ * It finds shortest Routes between its nodes.
+ * <p>
+ * The graph is stored in compressed sparse row form: the edges leaving
+ * node v are the edges <tt>edgeStart[v] .. edgeStart[v + 1] - 1</tt> of
+ * primitive arrays holding their targets and lengths, so a search walks
+ * the graph without touching any object but the result. The length of an
+ * edge is the length of its segment.
+ * <p>
+ * Shortest routes are found with A*, guided by the straight-line distance
+ * to the destination (GeoPoint.distanceTo), which never exceeds the length
+ * of any route to it. Every thread searching a RoadGraph reuses its own
+ * working arrays, so searches allocate nothing but their result, and a
+ * RoadGraph is safe for concurrent searches.
+ * <p>
+ * Distance and route matrices, between many sources and many targets, run
+ * a single Dijkstra search from every source that stops once it has
+ * reached all the targets, instead of one search per pair. The searches
+ * from different sources run in parallel on the common ForkJoin pool.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   nodes : set of GeoPoint          // the endpoints of the segments
+ *   geoSegments : bag of GeoSegment  // the edges, each from p1 to p2
+ * </pre>
+ */
+public final class RoadGraph {
+
+	private final GeoPoint[] points_;
+	private final int[] latitudes_;
+	private final int[] longitudes_;
+	private final Map<GeoPoint, Integer> nodes_;
+
+	private final int[] edgeStart_;
+	private final int[] edgeTarget_;
+	private final double[] edgeLength_;
+	private final GeoSegment[] edgeSegment_;
+
+	private final ThreadLocal<SearchScratch> scratch_;
+
+	// Abstraction Function :
+	// represents the graph whose nodes are points_[0..n-1] and whose edges
+	// are edgeSegment_[0..m-1], where edge e goes from the node v such that
+	// edgeStart_[v] <= e < edgeStart_[v + 1] to the node edgeTarget_[e].
+
+	// Representation Invariant :
+	// n = points.length = latitudes.length = longitudes.length and
+	// nodes maps points[v] to v for every node v and
+	// edgeStart.length = n + 1 and edgeStart[0] = 0 and edgeStart is
+	// nondecreasing and edgeStart[n] = m = edgeTarget.length =
+	// edgeLength.length = edgeSegment.length and for every edge e from v,
+	// edgeSegment[e].p1 = points[v] and edgeSegment[e].p2 =
+	// points[edgeTarget[e]] and edgeLength[e] = edgeSegment[e].length
+
+
+	/**
+	 * Constructs a RoadGraph from its compressed sparse rows.
+	 * @requires the arguments satisfy the representation invariant, which
+	 * 			 this constructor completes
+	 * @effects constructs the graph whose nodes are points and whose edges
+	 * 			leaving points[v] are segments[edgeStart[v] ..
+	 * 			edgeStart[v + 1] - 1].
+	 */
+	RoadGraph(GeoPoint[] points, int[] edgeStart, int[] edgeTarget,
+			  GeoSegment[] edgeSegment) {
+		int n = points.length;
+		this.points_ = points;
+		this.latitudes_ = new int[n];
+		this.longitudes_ = new int[n];
+		this.nodes_ = new HashMap<GeoPoint, Integer>(2 * n);
+		for(int v = 0; v < n; v++) {
+			this.latitudes_[v] = points[v].getLatitude();
+			this.longitudes_[v] = points[v].getLongitude();
+			this.nodes_.put(points[v], v);
+		}
+		this.edgeStart_ = edgeStart;
+		this.edgeTarget_ = edgeTarget;
+		this.edgeSegment_ = edgeSegment;
+		this.edgeLength_ = new double[edgeSegment.length];
+		for(int e = 0; e < edgeSegment.length; e++)
+			this.edgeLength_[e] = edgeSegment[e].getLength();
+		this.scratch_ = ThreadLocal.withInitial(() -> new SearchScratch(n));
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		int n = this.points_.length;
+		assert (this.latitudes_.length == n) &&
+			   (this.longitudes_.length == n) &&
+			   (this.nodes_.size() == n) &&
+			   (this.edgeStart_.length == n + 1) &&
+			   (this.edgeStart_[0] == 0) &&
+			   (this.edgeStart_[n] == this.edgeTarget_.length) &&
+			   (this.edgeTarget_.length == this.edgeLength_.length) &&
+			   (this.edgeLength_.length == this.edgeSegment_.length);
+	}
+
+	/**
+	 * Returns the number of nodes of this graph.
+	 * @return |this.nodes|
+	 */
+	public int nodeCount() {
+		return this.points_.length;
+	}
+
+	/**
+	 * Returns the number of edges of this graph.
+	 * @return |this.geoSegments|
+	 */
+	public int edgeCount() {
+		return this.edgeTarget_.length;
+	}
+
+	/**
+	 * Returns whether a point is a node of this graph.
+	 * @requires gp != null
+	 * @return true iff gp is in this.nodes.
+	 */
+	public boolean contains(GeoPoint gp) {
+		assert gp != null;
+		return this.nodes_.containsKey(gp);
+	}
+
+	/**
+	 * Returns the node of a point.
+	 * @requires gp != null
+	 * @return the index of the node gp, or -1 if gp is not a node.
+	 */
+	int node(GeoPoint gp) {
+		Integer node = this.nodes_.get(gp);
+		return (node == null) ? -1 : node;
+	}
+
+	/**
+	 * Returns the point of a node.
+	 * @requires 0 <= v < nodeCount()
+	 * @return the point of node v.
+	 */
+	GeoPoint point(int v) {
+		return this.points_[v];
+	}
+
+	/**
+	 * Returns the latitude of a node.
+	 * @requires 0 <= v < nodeCount()
+	 * @return the latitude of node v, in millionths of degrees.
+	 */
+	int latitude(int v) {
+		return this.latitudes_[v];
+	}
+
+	/**
+	 * Returns the longitude of a node.
+	 * @requires 0 <= v < nodeCount()
+	 * @return the longitude of node v, in millionths of degrees.
+	 */
+	int longitude(int v) {
+		return this.longitudes_[v];
+	}
+
+	/**
+	 * Returns the first edge leaving a node.
+	 * @requires 0 <= v <= nodeCount()
+	 * @return the index of the first edge leaving v; the edges leaving v
+	 * 		   are edgeStart(v) .. edgeStart(v + 1) - 1.
+	 */
+	int edgeStart(int v) {
+		return this.edgeStart_[v];
+	}
+
+	/**
+	 * Returns the target of an edge.
+	 * @requires 0 <= e < edgeCount()
+	 * @return the node edge e leads to.
+	 */
+	int edgeTarget(int e) {
+		return this.edgeTarget_[e];
+	}
+
+	/**
+	 * Returns the length of an edge.
+	 * @requires 0 <= e < edgeCount()
+	 * @return the length of edge e, in kilometers.
+	 */
+	double edgeLength(int e) {
+		return this.edgeLength_[e];
+	}
+
+	/**
+	 * Returns the segment of an edge.
+	 * @requires 0 <= e < edgeCount()
+	 * @return the segment of edge e.
+	 */
+	GeoSegment edgeSegment(int e) {
+		return this.edgeSegment_[e];
+	}
+
+	/**
+	 * Returns the working arrays of searches made by the current thread.
+	 * @return the search scratch of the current thread, reset.
+	 */
+	SearchScratch scratch() {
+		SearchScratch scratch = this.scratch_.get();
+		scratch.reset();
+		return scratch;
+	}
+
+	/**
+	 * Finds a shortest route between two nodes.
+	 * @requires from != null && to != null
+	 * @return a Route r from from to to such that no route made of
+	 * 		   this.geoSegments from from to to is shorter than r, or null if
+	 * 		   from or to is not in this.nodes, or from = to, or to cannot be
+	 * 		   reached from from. The segments of r are grouped into
+	 * 		   GeoFeatures like Route.addSegment groups them.
+	 */
+	public Route shortestRoute(GeoPoint from, GeoPoint to) {
+		assert (from != null) && (to != null);
+		int source = node(from);
+		int target = node(to);
+		if(source < 0 || target < 0 || source == target)
+			return null;
+		SearchScratch scratch = scratch();
+		if(!search(scratch, source, target))
+			return null;
+		return route(scratch, target);
+	}
+
+	/**
+	 * Computes the length of a shortest route between two nodes.
+	 * @requires from != null && to != null
+	 * @return the length of shortestRoute(from, to), 0 if from = to and it
+	 * 		   is a node, or positive infinity if there is no such route.
+	 */
+	public double shortestDistance(GeoPoint from, GeoPoint to) {
+		assert (from != null) && (to != null);
+		int source = node(from);
+		int target = node(to);
+		if(source < 0 || target < 0)
+			return Double.POSITIVE_INFINITY;
+		SearchScratch scratch = scratch();
+		return search(scratch, source, target) ? scratch.distance(target) :
+												 Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Computes the lengths of shortest routes from every point of a list to
+	 * every point of another, in parallel.
+	 * @requires from != null && to != null and no point in them is null
+	 * @return the row-major matrix d of from.size() rows and to.size()
+	 * 		   columns such that d[i * to.size() + j] =
+	 * 		   shortestDistance(from.get(i), to.get(j)).
+	 */
+	public double[] distanceMatrix(List<GeoPoint> from, List<GeoPoint> to) {
+		assert (from != null) && (to != null);
+		int columns = to.size();
+		double[] matrix = new double[from.size() * columns];
+		searchRows(from, to, (row, scratch, targets) -> {
+			for(int j = 0; j < columns; j++)
+				matrix[row * columns + j] = (targets[j] < 0) ?
+						Double.POSITIVE_INFINITY : scratch.distance(targets[j]);
+		});
+		return matrix;
+	}
+
+	/**
+	 * Finds shortest routes from every point of a list to every point of
+	 * another, in parallel.
+	 * @requires from != null && to != null and no point in them is null
+	 * @return the row-major matrix r of from.size() rows and to.size()
+	 * 		   columns such that r[i * to.size() + j] is a route like
+	 * 		   shortestRoute(from.get(i), to.get(j)), or null when it is null.
+	 */
+	public Route[] routeMatrix(List<GeoPoint> from, List<GeoPoint> to) {
+		assert (from != null) && (to != null);
+		int columns = to.size();
+		Route[] matrix = new Route[from.size() * columns];
+		searchRows(from, to, (row, scratch, targets) -> {
+			for(int j = 0; j < columns; j++) {
+				int target = targets[j];
+				if(target >= 0 && scratch.isClosed(target) &&
+				   scratch.parentEdge(target) >= 0)
+					matrix[row * columns + j] = route(scratch, target);
+			}
+		});
+		return matrix;
+	}
+
+	/**
+	 * Reads the result of the search of one row of a matrix.
+	 */
+	private interface RowReader {
+		/**
+		 * Reads the result of a one-to-many search.
+		 * @requires scratch holds the search from the source of row, and
+		 * 			 targets[j] is the node of the j-th column, or -1
+		 */
+		void read(int row, SearchScratch scratch, int[] targets);
+	}
+
+	/**
+	 * Runs a one-to-many search from every point of a list to the points of
+	 * another, on the common ForkJoin pool, where every worker thread reuses
+	 * its own working arrays.
+	 * @requires from != null && to != null and no point in them is null
+	 * @effects calls reader once for every row i, from the thread that ran
+	 * 			the search from from.get(i); when from.get(i) is not a node,
+	 * 			every target is -1.
+	 */
+	private void searchRows(List<GeoPoint> from, List<GeoPoint> to,
+							RowReader reader) {
+		int[] targets = new int[to.size()];
+		boolean[] isTarget = new boolean[this.points_.length];
+		int targetNodes = 0;
+		for(int j = 0; j < targets.length; j++) {
+			targets[j] = node(to.get(j));
+			if(targets[j] >= 0 && !isTarget[targets[j]]) {
+				isTarget[targets[j]] = true;
+				targetNodes++;
+			}
+		}
+		int count = targetNodes;
+		int[] unreachable = new int[targets.length];
+		Arrays.fill(unreachable, -1);
+		IntStream.range(0, from.size()).parallel().forEach(row -> {
+			int source = node(from.get(row));
+			SearchScratch scratch = scratch();
+			if(source < 0) {
+				reader.read(row, scratch, unreachable);
+				return;
+			}
+			searchMany(scratch, source, isTarget, count);
+			reader.read(row, scratch, targets);
+		});
+	}
+
+	/**
+	 * Runs Dijkstra from a node until it closes a set of nodes.
+	 * @requires scratch was just reset and source is a node and targets is
+	 * 			 the number of nodes v such that isTarget[v]
+	 * @modifies scratch
+	 * @effects maps every node closed by the search to its distance from
+	 * 			source and to the last edge of a shortest route to it; the
+	 * 			search stops once every node v such that isTarget[v], that
+	 * 			can be reached from source, is closed.
+	 */
+	private void searchMany(SearchScratch scratch, int source,
+							boolean[] isTarget, int targets) {
+		MinHeap queue = scratch.queue();
+		scratch.reach(source, 0, -1);
+		queue.push(0, source);
+		while(!queue.isEmpty() && targets > 0) {
+			int v = queue.pop();
+			if(scratch.isClosed(v))
+				continue;
+			scratch.close(v);
+			if(isTarget[v])
+				targets--;
+			double distance = scratch.distance(v);
+			for(int e = this.edgeStart_[v]; e < this.edgeStart_[v + 1]; e++) {
+				int w = this.edgeTarget_[e];
+				double d = distance + this.edgeLength_[e];
+				if(d < scratch.distance(w)) {
+					scratch.reach(w, d, e);
+					queue.push(d, w);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs Dijkstra from a node until it closes some nodes, as far as a
+	 * distance.
+	 * @requires scratch was just reset and source is a node and limit >= 0
+	 * 			 and 0 <= count <= targets.length and targets[0 .. count - 1]
+	 * 			 are nodes
+	 * @modifies scratch
+	 * @effects maps every node closed by the search to its distance from
+	 * 			source and to the last edge of a shortest route to it; the
+	 * 			search stops once it has closed every node of targets[0 ..
+	 * 			count - 1] or every node at most limit away from source,
+	 * 			and closes no node farther than limit.
+	 */
+	void searchWithin(SearchScratch scratch, int source, double limit,
+					  int[] targets, int count) {
+		MinHeap queue = scratch.queue();
+		scratch.reach(source, 0, -1);
+		queue.push(0, source);
+		int remaining = count;
+		while(!queue.isEmpty() && remaining > 0) {
+			int v = queue.pop();
+			if(scratch.isClosed(v))
+				continue;
+			double distance = scratch.distance(v);
+			if(distance > limit)
+				return;
+			scratch.close(v);
+			for(int i = 0; i < count; i++)
+				if(targets[i] == v)
+					remaining--;
+			for(int e = this.edgeStart_[v]; e < this.edgeStart_[v + 1]; e++) {
+				int w = this.edgeTarget_[e];
+				double d = distance + this.edgeLength_[e];
+				if(d < scratch.distance(w)) {
+					scratch.reach(w, d, e);
+					queue.push(d, w);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs A* from a node to another.
+	 * @requires scratch was just reset and source and target are nodes
+	 * @modifies scratch
+	 * @effects maps every node closed by the search to its distance from
+	 * 			source and to the last edge of a shortest route to it.
+	 * @return true iff target can be reached from source, in which case
+	 * 		   target is closed.
+	 */
+	private boolean search(SearchScratch scratch, int source, int target) {
+		int targetLatitude = this.latitudes_[target];
+		int targetLongitude = this.longitudes_[target];
+		MinHeap queue = scratch.queue();
+		scratch.reach(source, 0, -1);
+		queue.push(0, source);
+		while(!queue.isEmpty()) {
+			int v = queue.pop();
+			if(scratch.isClosed(v))
+				continue;
+			scratch.close(v);
+			if(v == target)
+				return true;
+			double distance = scratch.distance(v);
+			for(int e = this.edgeStart_[v]; e < this.edgeStart_[v + 1]; e++) {
+				int w = this.edgeTarget_[e];
+				double d = distance + this.edgeLength_[e];
+				if(d < scratch.distance(w)) {
+					scratch.reach(w, d, e);
+					queue.push(d + GeoPoint.distance(this.latitudes_[w],
+							this.longitudes_[w], targetLatitude,
+							targetLongitude), w);
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Builds the route found by a search.
+	 * @requires target was closed by the search whose state is in scratch,
+	 * 			 and is not its source
+	 * @return the route made of the edges of the shortest route to target.
+	 */
+	private Route route(SearchScratch scratch, int target) {
+		List<GeoSegment> segments = new ArrayList<GeoSegment>();
+		for(int e = scratch.parentEdge(target); e >= 0;
+			e = scratch.parentEdge(this.edgeSource(e)))
+			segments.add(this.edgeSegment_[e]);
+		Collections.reverse(segments);
+		return new RouteBuilder().addAll(segments).build();
+	}
+
+	/**
+	 * Returns the source of an edge.
+	 * @requires 0 <= e < edgeCount()
+	 * @return the node edge e leaves, found by binary search.
+	 */
+	int edgeSource(int e) {
+		int low = 0;
+		int high = this.points_.length - 1;
+		// the last node v such that edgeStart[v] <= e
+		while(low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if(this.edgeStart_[middle] <= e)
+				low = middle;
+			else
+				high = middle - 1;
+		}
+		return low;
+	}
+}
@@ -0,0 +1,159 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A RoadGraphBuilder accumulates GeoSegments, and then freezes them into an
+ * immutable RoadGraph.
+ * <p>
+ * The endpoints of the segments become the nodes of the graph, where equal
+ * GeoPoints are the same node, and every segment becomes an edge from its
+ * p1 to its p2. Two-way streets are added with <tt>addTwoWay</tt>, which
+ * adds both a segment and its reverse.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   geoSegments : sequence	// the segments added so far
+ * </pre>
+ */
+public class RoadGraphBuilder {
+
+	private final Map<GeoPoint, Integer> nodes_;
+	private final List<GeoPoint> points_;
+	private final List<GeoSegment> segments_;
+	private int[] sources_;
+	private int[] targets_;
+
+	// Abstraction Function :
+	// represents the sequence of segments segments_, where the endpoints of
+	// segments_[i] are the nodes sources_[i] and targets_[i], and node v is
+	// the point points_[v].
+
+	// Representation Invariant :
+	// nodes maps every point of points to its index in points, and
+	// sources.length = targets.length >= segments.size(), and for every
+	// 0 <= i < segments.size(), points[sources[i]] = segments[i].p1 and
+	// points[targets[i]] = segments[i].p2
+
+
+	/**
+	 * Constructs a new, empty RoadGraphBuilder.
+	 * @effects Constructs a new RoadGraphBuilder b such that b.geoSegments
+	 * 			is empty.
+	 */
+	public RoadGraphBuilder() {
+		this.nodes_ = new HashMap<GeoPoint, Integer>();
+		this.points_ = new ArrayList<GeoPoint>();
+		this.segments_ = new ArrayList<GeoSegment>();
+		this.sources_ = new int[16];
+		this.targets_ = new int[16];
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (this.nodes_.size() == this.points_.size()) &&
+			   (this.sources_.length == this.targets_.length) &&
+			   (this.sources_.length >= this.segments_.size());
+	}
+
+	/**
+	 * Returns the node of a point, creating it if needed.
+	 * @requires gp != null
+	 * @modifies this
+	 * @return the index of gp in points_.
+	 */
+	private int node(GeoPoint gp) {
+		Integer node = this.nodes_.get(gp);
+		if(node == null) {
+			node = this.points_.size();
+			this.nodes_.put(gp, node);
+			this.points_.add(gp);
+		}
+		return node;
+	}
+
+	/**
+	 * Adds a one-way segment to the graph being built.
+	 * @requires gs != null
+	 * @modifies this
+	 * @effects appends gs to this.geoSegments.
+	 * @return this.
+	 */
+	public RoadGraphBuilder add(GeoSegment gs) {
+		assert gs != null;
+		int edge = this.segments_.size();
+		if(edge == this.sources_.length) {
+			this.sources_ = Arrays.copyOf(this.sources_, 2 * edge);
+			this.targets_ = Arrays.copyOf(this.targets_, 2 * edge);
+		}
+		this.sources_[edge] = node(gs.getP1());
+		this.targets_[edge] = node(gs.getP2());
+		this.segments_.add(gs);
+		checkRep();
+		return this;
+	}
+
+	/**
+	 * Adds a two-way segment to the graph being built.
+	 * @requires gs != null
+	 * @modifies this
+	 * @effects appends gs and then gs.reverse() to this.geoSegments.
+	 * @return this.
+	 */
+	public RoadGraphBuilder addTwoWay(GeoSegment gs) {
+		assert gs != null;
+		add(gs);
+		return add(gs.reverse());
+	}
+
+	/**
+	 * Adds one-way segments to the graph being built, in order.
+	 * @requires geoSegments != null and no segment in it is null
+	 * @modifies this
+	 * @effects appends every segment of geoSegments to this.geoSegments.
+	 * @return this.
+	 */
+	public RoadGraphBuilder addAll(Iterable<GeoSegment> geoSegments) {
+		assert geoSegments != null;
+		for(GeoSegment gs : geoSegments)
+			add(gs);
+		return this;
+	}
+
+	/**
+	 * Freezes the segments added so far into a RoadGraph.
+	 * @return a new RoadGraph g whose nodes are the endpoints of
+	 * 		   this.geoSegments and whose edges are this.geoSegments.
+	 */
+	public RoadGraph build() {
+		checkRep();
+		int nodes = this.points_.size();
+		int edges = this.segments_.size();
+
+		// counting sort of the edges by their source
+		int[] edgeStart = new int[nodes + 1];
+		for(int i = 0; i < edges; i++)
+			edgeStart[this.sources_[i] + 1]++;
+		for(int v = 0; v < nodes; v++)
+			edgeStart[v + 1] += edgeStart[v];
+		int[] next = Arrays.copyOf(edgeStart, nodes);
+		int[] targets = new int[edges];
+		GeoSegment[] segments = new GeoSegment[edges];
+		for(int i = 0; i < edges; i++) {
+			int e = next[this.sources_[i]]++;
+			targets[e] = this.targets_[i];
+			segments[e] = this.segments_.get(i);
+		}
+
+		return new RoadGraph(this.points_.toArray(new GeoPoint[nodes]),
+							 edgeStart, targets, segments);
+	}
+}
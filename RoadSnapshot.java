@@ -0,0 +1,566 @@
+package homework1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A RoadSnapshot is a read-only road network stored in a file, written
+ * once from a RoadGraph and then opened by memory-mapping the file, so that
+ * opening it creates no objects per node or edge, whatever its size.
+ * <p>
+ * The file holds the graph as flat arrays, in the byte order of the
+ * machine that wrote it, after a big-endian header that records that order
+ * (0 for big-endian, 1 for little-endian), so a snapshot can be opened on
+ * any machine:
+ * <pre>
+ *   header       int magic, version, order, nodes, edges, names, nameBytes
+ *   latitudes    int[nodes]      // sorted by latitude, then longitude
+ *   longitudes   int[nodes]
+ *   edgeStart    int[nodes + 1]  // the edges leaving node v are
+ *   edgeTarget   int[edges]      // edgeStart[v] .. edgeStart[v + 1] - 1
+ *   edgeName     int[edges]      // indexes into the names table
+ *   edgeLength   double[edges]
+ *   edgeHeading  double[edges]
+ *   nameStart    int[names + 1]  // name i is the UTF-8 bytes
+ *   nameBytes    byte[nameBytes] // nameStart[i] .. nameStart[i + 1] - 1
+ * </pre>
+ * where every array starts at a multiple of 8 bytes. Nodes are sorted so
+ * that the node of a point is found by binary search, without an index on
+ * the heap; lengths and headings are stored so that segments need no
+ * trigonometry.
+ * <p>
+ * Only the names table is read into the heap when a snapshot is opened.
+ * Opening a snapshot also checks, in one pass over the nodes and edges,
+ * that the arrays are consistent (the offsets ordered and in range, every
+ * edge targeting a node and naming a name, the nodes sorted), so that a
+ * corrupt file fails to open instead of failing later.
+ * The GeoSegments and GeoFeatures a snapshot returns are views created on
+ * demand from the mapped arrays; <tt>toRoadGraph</tt> loads the whole
+ * network for searching it. Every array must be smaller than 2 GB.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   nodes : set of GeoPoint          // the endpoints of the segments
+ *   geoSegments : bag of GeoSegment  // the edges, each from p1 to p2
+ * </pre>
+ */
+public final class RoadSnapshot {
+
+	private static final int MAGIC = 0x52475331;
+	private static final int VERSION = 2;
+	private static final int HEADER_BYTES = 28;
+	private static final int BIG_ENDIAN = 0;
+	private static final int LITTLE_ENDIAN = 1;
+
+	private final int nodes_;
+	private final int edges_;
+	private final IntBuffer latitudes_;
+	private final IntBuffer longitudes_;
+	private final IntBuffer edgeStart_;
+	private final IntBuffer edgeTarget_;
+	private final IntBuffer edgeName_;
+	private final DoubleBuffer edgeLength_;
+	private final DoubleBuffer edgeHeading_;
+	private final String[] names_;
+
+	// Abstraction Function :
+	// represents the graph whose nodes are the points (latitudes_[v],
+	// longitudes_[v]) and whose edges are the segments
+	// (names_[edgeName_[e]], node v, node edgeTarget_[e]) for every node v
+	// and edgeStart_[v] <= e < edgeStart_[v + 1].
+
+	// Representation Invariant :
+	// the buffers hold nodes, nodes, nodes + 1, edges, edges, edges and
+	// edges values, and the nodes are sorted by latitude then longitude,
+	// and edgeStart[0] = 0 and edgeStart[nodes] = edges, and every
+	// edgeName[e] indexes names
+
+
+	/**
+	 * Constructs a RoadSnapshot over the arrays of a mapped file.
+	 * @requires the arguments satisfy the representation invariant
+	 */
+	private RoadSnapshot(int nodes, int edges, IntBuffer latitudes,
+						 IntBuffer longitudes, IntBuffer edgeStart,
+						 IntBuffer edgeTarget, IntBuffer edgeName,
+						 DoubleBuffer edgeLength, DoubleBuffer edgeHeading,
+						 String[] names) {
+		this.nodes_ = nodes;
+		this.edges_ = edges;
+		this.latitudes_ = latitudes;
+		this.longitudes_ = longitudes;
+		this.edgeStart_ = edgeStart;
+		this.edgeTarget_ = edgeTarget;
+		this.edgeName_ = edgeName;
+		this.edgeLength_ = edgeLength;
+		this.edgeHeading_ = edgeHeading;
+		this.names_ = names;
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (this.latitudes_.limit() == this.nodes_) &&
+			   (this.longitudes_.limit() == this.nodes_) &&
+			   (this.edgeStart_.limit() == this.nodes_ + 1) &&
+			   (this.edgeTarget_.limit() == this.edges_) &&
+			   (this.edgeName_.limit() == this.edges_) &&
+			   (this.edgeLength_.limit() == this.edges_) &&
+			   (this.edgeHeading_.limit() == this.edges_) &&
+			   (this.edgeStart_.get(0) == 0) &&
+			   (this.edgeStart_.get(this.nodes_) == this.edges_);
+	}
+
+	/**
+	 * Writes a snapshot of a graph to a file.
+	 * @requires graph != null && path != null
+	 * @modifies the file at path
+	 * @effects replaces the file at path by a snapshot of graph, whose
+	 * 			nodes and segments are those of graph.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void write(RoadGraph graph, Path path) throws IOException {
+		assert (graph != null) && (path != null);
+		int n = graph.nodeCount();
+		int m = graph.edgeCount();
+
+		// renumber the nodes in sorted order; the key of a node orders it by
+		// latitude, then by longitude, both signed
+		long[] sorted = new long[n];
+		for(int v = 0; v < n; v++)
+			sorted[v] = ((long)graph.latitude(v) << 32) |
+						((long)graph.longitude(v) - Integer.MIN_VALUE);
+		Integer[] order = new Integer[n];
+		for(int v = 0; v < n; v++)
+			order[v] = v;
+		Arrays.sort(order, (u, v) -> Long.compare(sorted[u], sorted[v]));
+		int[] renumber = new int[n];
+		for(int i = 0; i < n; i++)
+			renumber[order[i]] = i;
+
+		// the names table, in order of first use
+		Map<String, Integer> nameIndex = new HashMap<String, Integer>();
+		int[] edgeName = new int[m];
+		for(int e = 0; e < m; e++) {
+			String name = graph.edgeSegment(e).getName();
+			Integer index = nameIndex.get(name);
+			if(index == null) {
+				index = nameIndex.size();
+				nameIndex.put(name, index);
+			}
+			edgeName[e] = index;
+		}
+		byte[][] names = new byte[nameIndex.size()][];
+		int nameBytes = 0;
+		for(Map.Entry<String, Integer> entry : nameIndex.entrySet()) {
+			names[entry.getValue()] =
+					entry.getKey().getBytes(StandardCharsets.UTF_8);
+			nameBytes += names[entry.getValue()].length;
+		}
+
+		try(FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = section(HEADER_BYTES)
+					.order(ByteOrder.BIG_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION)
+				  .putInt((ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN) ?
+						  BIG_ENDIAN : LITTLE_ENDIAN)
+				  .putInt(n).putInt(m).putInt(names.length).putInt(nameBytes);
+			write(channel, header);
+
+			ByteBuffer latitudes = section(4L * n);
+			ByteBuffer longitudes = section(4L * n);
+			for(int i = 0; i < n; i++) {
+				latitudes.putInt(graph.latitude(order[i]));
+				longitudes.putInt(graph.longitude(order[i]));
+			}
+			write(channel, latitudes);
+			write(channel, longitudes);
+
+			ByteBuffer edgeStart = section(4L * (n + 1));
+			ByteBuffer edgeTarget = section(4L * m);
+			ByteBuffer edgeNames = section(4L * m);
+			ByteBuffer edgeLength = section(8L * m);
+			ByteBuffer edgeHeading = section(8L * m);
+			int edges = 0;
+			for(int i = 0; i < n; i++) {
+				edgeStart.putInt(edges);
+				int v = order[i];
+				for(int e = graph.edgeStart(v); e < graph.edgeStart(v + 1);
+					e++) {
+					edgeTarget.putInt(renumber[graph.edgeTarget(e)]);
+					edgeNames.putInt(edgeName[e]);
+					edgeLength.putDouble(graph.edgeLength(e));
+					edgeHeading.putDouble(graph.edgeSegment(e).getHeading());
+					edges++;
+				}
+			}
+			edgeStart.putInt(edges);
+			write(channel, edgeStart);
+			write(channel, edgeTarget);
+			write(channel, edgeNames);
+			write(channel, edgeLength);
+			write(channel, edgeHeading);
+
+			ByteBuffer nameStart = section(4L * (names.length + 1));
+			ByteBuffer bytes = section(nameBytes);
+			int start = 0;
+			for(byte[] name : names) {
+				nameStart.putInt(start);
+				bytes.put(name);
+				start += name.length;
+			}
+			nameStart.putInt(start);
+			write(channel, nameStart);
+			write(channel, bytes);
+		}
+	}
+
+	/**
+	 * Opens a snapshot written by <tt>write</tt>, by mapping its file, and
+	 * checks that its arrays are consistent.
+	 * @requires path != null
+	 * @return the snapshot stored in the file at path. The file must not
+	 * 		   be modified while the snapshot is in use.
+	 * @throws IOException if the file cannot be read, is not a snapshot, or
+	 * 		   is corrupt.
+	 */
+	public static RoadSnapshot open(Path path) throws IOException {
+		assert path != null;
+		try(FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.READ)) {
+			ByteBuffer header = map(channel, 0, HEADER_BYTES,
+									ByteOrder.BIG_ENDIAN);
+			if(header.getInt() != MAGIC || header.getInt() != VERSION)
+				throw new IOException(path + " is not a road snapshot");
+			int code = header.getInt();
+			int n = header.getInt();
+			int m = header.getInt();
+			int nameCount = header.getInt();
+			int nameBytes = header.getInt();
+			if((code != BIG_ENDIAN && code != LITTLE_ENDIAN) || n < 0 ||
+			   m < 0 || nameCount < 0 || nameBytes < 0)
+				throw new IOException(path + " is not a road snapshot");
+			ByteOrder order = (code == BIG_ENDIAN) ? ByteOrder.BIG_ENDIAN :
+													 ByteOrder.LITTLE_ENDIAN;
+
+			long offset = padded(HEADER_BYTES);
+			IntBuffer latitudes = map(channel, offset, 4L * n, order)
+					.asIntBuffer();
+			offset += padded(4L * n);
+			IntBuffer longitudes = map(channel, offset, 4L * n, order)
+					.asIntBuffer();
+			offset += padded(4L * n);
+			IntBuffer edgeStart = map(channel, offset, 4L * (n + 1), order)
+					.asIntBuffer();
+			offset += padded(4L * (n + 1));
+			IntBuffer edgeTarget = map(channel, offset, 4L * m, order)
+					.asIntBuffer();
+			offset += padded(4L * m);
+			IntBuffer edgeName = map(channel, offset, 4L * m, order)
+					.asIntBuffer();
+			offset += padded(4L * m);
+			DoubleBuffer edgeLength = map(channel, offset, 8L * m, order)
+					.asDoubleBuffer();
+			offset += padded(8L * m);
+			DoubleBuffer edgeHeading = map(channel, offset, 8L * m, order)
+					.asDoubleBuffer();
+			offset += padded(8L * m);
+
+			// one pass over the nodes and their edges checks the arrays the
+			// queries index with: a corrupt file would otherwise throw (or
+			// loop) much later, in the middle of a query
+			if(edgeStart.get(0) != 0 || edgeStart.get(n) != m)
+				throw new IOException(path + " is corrupt: the edges of " +
+									  "the nodes do not cover 0 .. " + m);
+			for(int v = 0; v < n; v++) {
+				if(v > 0 && (latitudes.get(v - 1) > latitudes.get(v) ||
+							 (latitudes.get(v - 1) == latitudes.get(v) &&
+							  longitudes.get(v - 1) >= longitudes.get(v))))
+					throw new IOException(path + " is corrupt: node " + v +
+										  " is out of order");
+				int start = edgeStart.get(v);
+				int end = edgeStart.get(v + 1);
+				if(start > end || end > m)
+					throw new IOException(path + " is corrupt: the edges " +
+										  "of node " + v + " are " + start +
+										  " .. " + (end - 1));
+				for(int e = start; e < end; e++) {
+					int target = edgeTarget.get(e);
+					if(target < 0 || target >= n)
+						throw new IOException(path + " is corrupt: edge " +
+											  e + " targets node " + target);
+					int name = edgeName.get(e);
+					if(name < 0 || name >= nameCount)
+						throw new IOException(path + " is corrupt: edge " +
+											  e + " has name " + name);
+				}
+			}
+
+			// the names table is small, and read into the heap
+			IntBuffer nameStart = map(channel, offset,
+					4L * (nameCount + 1), order).asIntBuffer();
+			offset += padded(4L * (nameCount + 1));
+			ByteBuffer bytes = map(channel, offset, nameBytes, order);
+			if(nameStart.get(0) != 0 || nameStart.get(nameCount) != nameBytes)
+				throw new IOException(path + " is corrupt: the names do " +
+									  "not cover 0 .. " + nameBytes);
+			String[] names = new String[nameCount];
+			byte[] name = new byte[0];
+			for(int i = 0; i < nameCount; i++) {
+				int start = nameStart.get(i);
+				int end = nameStart.get(i + 1);
+				if(start > end || end > nameBytes)
+					throw new IOException(path + " is corrupt: name " + i +
+										  " is bytes " + start + " .. " +
+										  (end - 1));
+				int length = end - start;
+				if(name.length < length)
+					name = new byte[length];
+				bytes.get(name, 0, length);
+				names[i] = new String(name, 0, length, StandardCharsets.UTF_8);
+			}
+			return new RoadSnapshot(n, m, latitudes, longitudes, edgeStart,
+					edgeTarget, edgeName, edgeLength, edgeHeading, names);
+		}
+	}
+
+	/**
+	 * Allocates the buffer of a section of a snapshot.
+	 * @requires 0 <= bytes < 2^31 - 8
+	 * @return a heap buffer of bytes bytes, padded to a multiple of 8, in
+	 * 		   native byte order.
+	 */
+	private static ByteBuffer section(long bytes) {
+		return ByteBuffer.allocate((int)padded(bytes))
+						 .order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Writes a whole section to a channel.
+	 * @modifies channel, section
+	 * @effects writes all of section, from its start, to channel.
+	 * @throws IOException if channel throws it.
+	 */
+	private static void write(FileChannel channel, ByteBuffer section)
+			throws IOException {
+		section.clear();
+		while(section.hasRemaining())
+			channel.write(section);
+	}
+
+	/**
+	 * Maps a section of a snapshot.
+	 * @requires order != null
+	 * @return the bytes offset .. offset + bytes - 1 of channel, mapped
+	 * 		   read-only, in the given byte order.
+	 * @throws IOException if the file is too short, or channel throws it.
+	 */
+	private static ByteBuffer map(FileChannel channel, long offset,
+								  long bytes, ByteOrder order)
+			throws IOException {
+		if(offset + bytes > channel.size() || bytes > Integer.MAX_VALUE)
+			throw new IOException("truncated road snapshot");
+		return channel.map(FileChannel.MapMode.READ_ONLY, offset, bytes)
+					  .order(order);
+	}
+
+	/**
+	 * Rounds a size up to a multiple of 8.
+	 * @requires bytes >= 0
+	 * @return the least multiple of 8 that is at least bytes.
+	 */
+	private static long padded(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	/**
+	 * Returns the number of nodes of this snapshot.
+	 * @return |this.nodes|
+	 */
+	public int nodeCount() {
+		return this.nodes_;
+	}
+
+	/**
+	 * Returns the number of edges of this snapshot.
+	 * @return |this.geoSegments|
+	 */
+	public int edgeCount() {
+		return this.edges_;
+	}
+
+	/**
+	 * Returns whether a point is a node of this snapshot.
+	 * @requires gp != null
+	 * @return true iff gp is in this.nodes.
+	 */
+	public boolean contains(GeoPoint gp) {
+		assert gp != null;
+		return node(gp.getLatitude(), gp.getLongitude()) >= 0;
+	}
+
+	/**
+	 * Returns the segments leaving a point.
+	 * @requires gp != null
+	 * @return an Iterator over the segments of this.geoSegments whose p1 is
+	 * 		   gp, created as they are returned; empty if gp is not a node.
+	 */
+	public Iterator<GeoSegment> getGeoSegments(GeoPoint gp) {
+		assert gp != null;
+		int v = node(gp.getLatitude(), gp.getLongitude());
+		final int end = (v < 0) ? 0 : this.edgeStart_.get(v + 1);
+		final int start = (v < 0) ? 0 : this.edgeStart_.get(v);
+		final GeoPoint p1 = gp;
+		return new Iterator<GeoSegment>() {
+			private int next_ = start;
+
+			public boolean hasNext() {
+				return this.next_ < end;
+			}
+
+			public GeoSegment next() {
+				if(!hasNext())
+					throw new NoSuchElementException();
+				return segment(p1, this.next_++);
+			}
+		};
+	}
+
+	/**
+	 * Returns the geographic feature that follows a street from a segment.
+	 * @requires gs != null
+	 * @return the GeoFeature that starts with gs and goes on along the
+	 * 		   segments with the name of gs, for as long as exactly one of
+	 * 		   them continues the street (not counting the segment back to
+	 * 		   where it came from), or null if gs is not in this.geoSegments.
+	 */
+	public GeoFeature getGeoFeature(GeoSegment gs) {
+		assert gs != null;
+		GeoPoint p2 = gs.getP2();
+		int u = node(gs.getP1().getLatitude(), gs.getP1().getLongitude());
+		int w = node(p2.getLatitude(), p2.getLongitude());
+		if(u < 0 || w < 0)
+			return null;
+		int first = -1;
+		for(int e = this.edgeStart_.get(u); e < this.edgeStart_.get(u + 1);
+			e++)
+			if(this.edgeTarget_.get(e) == w &&
+			   this.names_[this.edgeName_.get(e)].equals(gs.getName()))
+				first = e;
+		if(first < 0)
+			return null;
+
+		GeoFeatureBuilder builder = new GeoFeatureBuilder().add(gs);
+		int name = this.edgeName_.get(first);
+		int previous = u;
+		int v = w;
+		// a street that is a loop ends when it comes back to its start
+		for(int count = 1; count < this.edges_; count++) {
+			int next = -1;
+			for(int e = this.edgeStart_.get(v); e < this.edgeStart_.get(v + 1);
+				e++) {
+				if(this.edgeName_.get(e) != name ||
+				   this.edgeTarget_.get(e) == previous)
+					continue;
+				if(next >= 0) {
+					next = -1;
+					break;
+				}
+				next = e;
+			}
+			if(next < 0 || next == first)
+				break;
+			GeoSegment segment = segment(p2, next);
+			builder.add(segment);
+			p2 = segment.getP2();
+			previous = v;
+			v = this.edgeTarget_.get(next);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Loads this snapshot into a RoadGraph, to search it.
+	 * @return a new RoadGraph whose nodes are this.nodes and whose edges are
+	 * 		   this.geoSegments. Every node and edge becomes an object on
+	 * 		   the heap.
+	 */
+	public RoadGraph toRoadGraph() {
+		GeoPoint[] points = new GeoPoint[this.nodes_];
+		for(int v = 0; v < this.nodes_; v++)
+			points[v] = point(v);
+		int[] edgeStart = new int[this.nodes_ + 1];
+		this.edgeStart_.get(0, edgeStart);
+		int[] edgeTarget = new int[this.edges_];
+		this.edgeTarget_.get(0, edgeTarget);
+		GeoSegment[] segments = new GeoSegment[this.edges_];
+		for(int v = 0; v < this.nodes_; v++)
+			for(int e = edgeStart[v]; e < edgeStart[v + 1]; e++)
+				segments[e] = new GeoSegment(this.names_[this.edgeName_.get(e)],
+						points[v], points[edgeTarget[e]],
+						this.edgeLength_.get(e), this.edgeHeading_.get(e));
+		return new RoadGraph(points, edgeStart, edgeTarget, segments);
+	}
+
+	/**
+	 * Returns the node of a point.
+	 * @return the index of the node at (latitude, longitude), found by
+	 * 		   binary search, or -1 if there is no such node.
+	 */
+	int node(int latitude, int longitude) {
+		int low = 0;
+		int high = this.nodes_ - 1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			int lat = this.latitudes_.get(middle);
+			int c = (lat != latitude) ? Integer.compare(lat, latitude) :
+					Integer.compare(this.longitudes_.get(middle), longitude);
+			if(c < 0)
+				low = middle + 1;
+			else if(c > 0)
+				high = middle - 1;
+			else
+				return middle;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the point of a node.
+	 * @requires 0 <= v < nodeCount()
+	 * @return a new GeoPoint at node v.
+	 */
+	GeoPoint point(int v) {
+		return new GeoPoint(this.latitudes_.get(v), this.longitudes_.get(v));
+	}
+
+	/**
+	 * Returns the segment of an edge.
+	 * @requires 0 <= e < edgeCount() and p1 is the point of the node e
+	 * 			 leaves
+	 * @return a new GeoSegment for edge e, with its stored length and
+	 * 		   heading.
+	 */
+	private GeoSegment segment(GeoPoint p1, int e) {
+		return new GeoSegment(this.names_[this.edgeName_.get(e)], p1,
+				point(this.edgeTarget_.get(e)), this.edgeLength_.get(e),
+				this.edgeHeading_.get(e));
+	}
+}
@@ -3,7 +3,10 @@ package homework1;
 
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.Collections;
+import java.util.NoSuchElementException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
 
 /**
  * A Route is a path that traverses arbitrary GeoSegments, regardless
@@ -36,8 +39,31 @@ import java.util.Collections;
  **/
 public class Route {
 	
+	/** Minimum number of segments of a route simplified in parallel. **/
+	public static final int PARALLEL_SIMPLIFY_SEGMENTS = 1 << 14;
 	
-	private final  ArrayList<GeoFeature> geoFeatures_;
+	// the deepest nesting of views that reverse and concat build on: a
+	// deeper route (or boundary feature) is first copied into a spine, so
+	// that accessing a feature of a view stays O(MAX_VIEW_DEPTH)
+	static final int MAX_VIEW_DEPTH = 32;
+	
+	
+	// the geographic features of this route are geoFeatures_[0, size_)
+	// followed by lastGeoFeature_. The spine may be shared with other routes,
+	// so a route never copies the features (or segments) it was built from.
+	// The spine also holds the prefix sums of the feature lengths. A view
+	// over other routes (such as a RouteSlice) has no spine: it overrides
+	// geoFeatureCount, lengthTo and geoFeatureAt, which every other method
+	// goes through.
+	private final  Spine<GeoFeature> geoFeatures_;
+	private final  int size_;
+	private final  GeoFeature lastGeoFeature_;
+	
+	// the bounding box of the route and an index over its segments, both
+	// computed on first use. Threads that race to compute them compute
+	// equal values, so they need no lock.
+	private volatile GeoBox boundingBox_;
+	private volatile SegmentIndex segmentIndex_;
 
 	
  	// TODO Write abstraction function and representation invariant
@@ -45,11 +71,14 @@ public class Route {
 	// Abstraction Function :
 	// represents  geographic route which starts and ends with gs endpoints.
 	// this route consists of geographic features connected with each other 
-	// connecting the two endpoints the start and the end.
+	// connecting the two endpoints the start and the end, which are
+	// geoFeatures[0], ..., geoFeatures[size - 1], lastGeoFeature.
 	
 	// Representation Invariant :
-	// geoFeqtures != null and start != null and end != null
-	// and {geoFeature != null | geoFeature contained in geoFetures list} 
+	// geoFeqtures != null and lastGeoFeature != null and size >= 0 
+	// and start != null and end != null
+	// and {geoFeature != null | geoFeature contained in geoFetures[0, size)},
+	// or geoFeatures = null and lastGeoFeature = null for a view
 
 
   	/**
@@ -65,9 +94,10 @@ public class Route {
   		
   		assert gs != null;
   		
-  		this.geoFeatures_ = new ArrayList<GeoFeature>();
-  		this.geoFeatures_.add(new GeoFeature(new GeoSegment(gs)));
-  		checkRep();
+  		this.geoFeatures_ = new Spine<GeoFeature>();
+  		this.size_ = 0;
+  		this.lastGeoFeature_ = new GeoFeature(gs);
+  		checkRep(true);
   	}
   	
 	/** Constructs a copy constructor.
@@ -76,13 +106,46 @@ public class Route {
   	 * @effects Constructs a new copy of the given route,
   	 * 			such that :
   	 * 			copy contains all the geoFeatures in r and in the same order.
+  	 * 			Since Routes are immutable the copy shares its geoFeatures 
+  	 * 			with r.
   	 **/ 
   	public Route(Route r) {
   		assert r != null;
   		r.checkRep();
-  		this.geoFeatures_ = new ArrayList<GeoFeature>();
-  		for(GeoFeature gf : r.geoFeatures_) 
-  			this.geoFeatures_.add(new GeoFeature(gf));
+  		this.geoFeatures_ = (r.geoFeatures_ != null) ? r.geoFeatures_ :
+  							r.toSpine();
+  		this.size_ = r.geoFeatureCount() - 1;
+  		this.lastGeoFeature_ = r.geoFeatureAt(this.size_);
+  		this.boundingBox_ = r.boundingBox_;
+  		this.segmentIndex_ = r.segmentIndex_;
+  		checkRep(true);
+  	}
+  	
+  	/**
+  	 * Constructs a route over the prefix of a spine and a last feature.
+  	 * @requires geoFeatures != null && size >= 0 && lastGeoFeature != null
+  	 * 			 && geoFeatures[0, size), lastGeoFeature are connected and
+  	 * 			 no two consecutive of them have the same name
+  	 * @effects Constructs a new Route made of geoFeatures[0, size) followed
+  	 * 			by lastGeoFeature.
+  	 */
+  	Route(Spine<GeoFeature> geoFeatures, int size, GeoFeature lastGeoFeature) {
+  		this.geoFeatures_ = geoFeatures;
+  		this.size_ = size;
+  		this.lastGeoFeature_ = lastGeoFeature;
+  		checkRep(true);
+  	}
+  	
+  	/**
+  	 * Constructs the base of a view over other routes.
+  	 * @requires the view overrides geoFeatureCount, lengthTo and 
+  	 * 			 geoFeatureAt, and checks its own representation
+  	 * @effects Constructs a new Route with no spine.
+  	 */
+  	Route() {
+  		this.geoFeatures_ = null;
+  		this.size_ = 0;
+  		this.lastGeoFeature_ = null;
   	}
   	
 	/**
@@ -90,17 +153,132 @@ public class Route {
   	 * @throw AssertionError if representation invariant is violated
   	 */
   	private void checkRep() {
-  		assert (this.geoFeatures_ != null);
+  		checkRep(false);
+  	}
+  	
+  	/**
+  	 * check to see if the representation invariant is being violated,
+  	 * subject to the current Validation level.
+  	 * @param onConstruction whether this is called from a constructor.
+  	 * @throw AssertionError if representation invariant is violated
+  	 * @see homework1.Validation
+  	 */
+  	private void checkRep(boolean onConstruction) {
+  		if(!Validation.shouldCheck(onConstruction))
+  			return;
+  		long start = Validation.start();
+  		assert ((this.geoFeatures_ != null) == (this.lastGeoFeature_ != null))
+  				&& (this.size_ >= 0);
   		
+  		// walking the features is O(n), the features themselves were 
+  		// checked when they were constructed.
+  		if(Validation.isThorough(onConstruction))
+  			assert geoFeaturesAreValid();
+  		Validation.checked(start);
+  	}
+  	
+  	/**
+  	 * check that no null element exists in any of the geoFeatures.
+  	 * @return true if the geoFeatures are valid
+  	 * @throw AssertionError otherwise
+  	 */
+  	private boolean geoFeaturesAreValid() {
   		// check that for each geoFeature no null element exists
-  		for(GeoFeature gf : this.geoFeatures_) {
+  		for(int i = 0; i < this.geoFeatureCount(); i++) {
+  			GeoFeature gf = this.geoFeatureAt(i);
   			assert gf != null;
   			Iterator<GeoSegment> it = gf.getGeoSegments();
   			while(it.hasNext()) {
   				assert(it != null);
   				it.next();
   			}
-  		}	
+  		}
+  		return true;
+  	}
+  	
+  	/**
+  	 * Returns the number of geographic features of this route.
+  	 * @return the number of geographic features of this route.
+  	 */
+  	int geoFeatureCount() {
+  		return this.size_ + 1;
+  	}
+  	
+  	/**
+  	 * Returns the total length of a prefix of this route.
+  	 * @requires 0 <= count <= geoFeatureCount()
+  	 * @return the sum of the lengths of the first count geographic features
+  	 * 		   of this route, in kilometers.
+  	 */
+  	double lengthTo(int count) {
+  		return (count <= this.size_) ? this.geoFeatures_.sumTo(count) :
+  			this.geoFeatures_.sumTo(this.size_) + this.lastGeoFeature_.getLength();
+  	}
+  	
+  	/**
+  	 * Returns the geographic feature at the given position of this route.
+  	 * @requires 0 <= index < geoFeatureCount()
+  	 * @return the geographic feature at the given position of this route.
+  	 */
+  	GeoFeature geoFeatureAt(int index) {
+  		return (index == this.size_) ? this.lastGeoFeature_ : 
+  									   this.geoFeatures_.get(index);
+  	}
+  	
+  	/**
+  	 * Returns how many views lie between this route and the spines holding
+  	 * its geographic features.
+  	 * @return 0 for a route over a spine, and otherwise the largest number
+  	 * 		   of nested views that geoFeatureAt goes through.
+  	 */
+  	int viewDepth() {
+  		return 0;
+  	}
+  	
+  	/**
+  	 * Copies all the geographic features of this route but the last into
+  	 * a new spine.
+  	 * @return a new spine s such that s[0, geoFeatureCount() - 1) are the
+  	 * 		   geographic features of this route but the last, with their
+  	 * 		   lengths.
+  	 */
+  	private Spine<GeoFeature> toSpine() {
+  		Spine<GeoFeature> spine = new Spine<GeoFeature>();
+  		for(int i = 0; i < this.geoFeatureCount() - 1; i++) {
+  			GeoFeature gf = this.geoFeatureAt(i);
+  			spine = spine.append(i, gf, gf.getLength());
+  		}
+  		return spine;
+  	}
+  	
+  	/**
+  	 * Finds the geographic feature at a distance along this route, by
+  	 * binary search over the prefix sums of the feature lengths.
+  	 * @requires 0 <= distance <= getLength()
+  	 * @return the first index i such that distance <= lengthTo(i + 1) if
+  	 * 		   atEnd, and otherwise the last index i such that
+  	 * 		   lengthTo(i) <= distance, within 0 .. geoFeatureCount() - 1.
+  	 */
+  	private int geoFeatureIndexAt(double distance, boolean atEnd) {
+  		int low = 0;
+  		int high = this.geoFeatureCount() - 1;
+  		while(low < high) {
+  			if(atEnd) {
+  				int middle = (low + high) >>> 1;
+  				if(distance <= this.lengthTo(middle + 1))
+  					high = middle;
+  				else
+  					low = middle + 1;
+  			}
+  			else {
+  				int middle = (low + high + 1) >>> 1;
+  				if(this.lengthTo(middle) <= distance)
+  					low = middle;
+  				else
+  					high = middle - 1;
+  			}
+  		}
+  		return low;
   	}
 
     /**
@@ -109,7 +287,7 @@ public class Route {
      **/
   	public GeoPoint getStart() {
   		checkRep();
-  		return this.geoFeatures_.get(0).getStart();
+  		return this.geoFeatureAt(0).getStart();
   	}
 
 
@@ -119,7 +297,7 @@ public class Route {
      **/
   	public GeoPoint getEnd() {
   		checkRep();
-  		return this.geoFeatures_.get(this.geoFeatures_.size() - 1).getEnd();
+  		return this.geoFeatureAt(this.geoFeatureCount() - 1).getEnd();
   	}
 
   	/**
@@ -130,7 +308,7 @@ public class Route {
    	 **/
   	public double getStartHeading() {
   		checkRep();
-  		return this.geoFeatures_.get(0).getStartHeading();
+  		return this.geoFeatureAt(0).getStartHeading();
   	}
 
 
@@ -142,7 +320,7 @@ public class Route {
      **/
   	public double getEndHeading() {
   		checkRep();
-  		return this.geoFeatures_.get(this.geoFeatures_.size() - 1).getEndHeading();
+  		return this.geoFeatureAt(this.geoFeatureCount() - 1).getEndHeading();
   	}
 
 
@@ -154,11 +332,24 @@ public class Route {
    	 **/
   	public double getLength() {
   		checkRep();
-  		double sumOfLengths = 0;
-  		for(GeoFeature gf: this.geoFeatures_)
-  			sumOfLengths += gf.getLength();
+  		return this.lengthTo(this.geoFeatureCount());
+  	}
+
+  	/**
+  	 * Returns total length of the route according to a given model.
+  	 * @requires model != null
+     * @return total length of the route, in kilometers, with the length of
+     *         every segment computed according to model.
+   	 **/
+  	public double getLength(DistanceModel model) {
   		checkRep();
-  		return sumOfLengths;
+  		assert model != null;
+  		if(model == DistanceModel.FLAT)
+  			return this.getLength();
+  		double length = 0;
+  		for(int i = 0; i < this.geoFeatureCount(); i++)
+  			length += this.geoFeatureAt(i).getLength(model);
+  		return length;
   	}
 
   	/**
@@ -173,20 +364,24 @@ public class Route {
   	public Route addSegment(GeoSegment gs) {
   		checkRep();
   		assert gs != null;
-  		int lastIndex = this.geoFeatures_.size() - 1;
-  		GeoFeature lastGeoFeature= this.geoFeatures_.get(lastIndex);
+  		int size = this.geoFeatureCount() - 1;
+  		GeoFeature lastGeoFeature = this.geoFeatureAt(size);
   		
   		assert gs.getP1().equals(lastGeoFeature.getEnd());
   		
+  		// a view is copied into a spine first (sharing its features), so
+  		// later additions are in place.
+  		Spine<GeoFeature> geoFeatures = (this.geoFeatures_ != null) ?
+  				this.geoFeatures_ : this.toSpine();
+  		
   		// create a new route such that :
   		// start still the same, end changes to be p2 of gs.
-  		Route r = new Route(this);
-  		
-  		
+  		// the new route shares every geoFeature of this route except
+  		// (maybe) the last one, so no geoFeature is copied.
   		if(lastGeoFeature.getName().equals(gs.getName())) {
-  			GeoFeature gf  = lastGeoFeature.addSegment(new GeoSegment(gs));
-  			r.geoFeatures_.remove(lastIndex);
-  			r.geoFeatures_.add(gf);
+  			GeoFeature gf  = lastGeoFeature.addSegment(gs);
+  			Route r = new Route(geoFeatures, size, gf);
+  			this.extendBoundingBox(r, gs);
   			checkRep();
   			return r;
   		}
@@ -194,13 +389,288 @@ public class Route {
   		// otherwise the given goeSegment (gs) is not part of the 
   		// last geographic feature, so make a new geographic feature
   		// which includes gs as the first Segment in it.
-  		GeoFeature newGf = new GeoFeature(new GeoSegment(gs));
-  		r.geoFeatures_.add(newGf);
+  		GeoFeature newGf = new GeoFeature(gs);
+  		Route r = new Route(geoFeatures.append(size, lastGeoFeature, 
+  				lastGeoFeature.getLength()), size + 1, newGf);
+  		this.extendBoundingBox(r, gs);
   		checkRep();
   		return r;
   	}
 
 
+  	/**
+  	 * Passes the bounding box of this route, if it is known, on to a route
+  	 * that extends this route by one segment.
+  	 * @requires r is this route with gs appended to its end
+  	 * @modifies r
+  	 * @effects caches the bounding box of r, grown from the cached box of
+  	 * 			this route, if there is one.
+  	 */
+  	private void extendBoundingBox(Route r, GeoSegment gs) {
+  		GeoBox box = this.boundingBox_;
+  		if(box != null)
+  			r.boundingBox_ = box.union(new GeoBox(gs.getP1(), gs.getP2()));
+  	}
+
+
+  	/**
+  	 * Returns the bounding box of this route. The box is computed on first
+  	 * use from the (cached) boxes of the geographic features, and then
+  	 * cached.
+     * @return the smallest GeoBox containing every point of every segment
+     *         of this route.
+     */
+  	public GeoBox getBoundingBox() {
+  		checkRep();
+  		GeoBox box = this.boundingBox_;
+  		if(box == null) {
+  			box = this.geoFeatureAt(0).getBoundingBox();
+  			for(int i = 1; i < this.geoFeatureCount(); i++)
+  				box = box.union(this.geoFeatureAt(i).getBoundingBox());
+  			this.boundingBox_ = box;
+  		}
+  		return box;
+  	}
+
+
+  	/**
+  	 * Returns a spatial index over the segments of this route. The index
+  	 * is built on first use, in O(n log n) for n segments, and then cached.
+  	 * @return a SegmentIndex i such that i.geoSegments = this.geoSegments.
+  	 */
+  	SegmentIndex segmentIndex() {
+  		SegmentIndex index = this.segmentIndex_;
+  		if(index == null) {
+  			List<GeoSegment> geoSegments = new ArrayList<GeoSegment>();
+  			for(int i = 0; i < this.geoFeatureCount(); i++) {
+  				GeoFeature gf = this.geoFeatureAt(i);
+  				for(int j = 0; j < gf.segmentCount(); j++)
+  					geoSegments.add(gf.segmentAt(j));
+  			}
+  			index = new SegmentIndex(geoSegments);
+  			this.segmentIndex_ = index;
+  		}
+  		return index;
+  	}
+
+
+  	/**
+  	 * Returns whether this route comes within a distance of another route.
+  	 * Routes whose bounding boxes are farther apart are told apart in
+  	 * constant time; otherwise the indexes of the segments of both routes
+  	 * (built once per route, see segmentIndex) are walked together, and
+  	 * exact segment distances are only computed for segments whose boxes
+  	 * are within the distance of each other.
+  	 * @requires r != null && distance >= 0
+  	 * @return true iff some segment gs1 of this route and some segment gs2
+  	 * 		   of r are such that gs1.distanceTo(gs2) is at most distance
+  	 * 		   meters.
+  	 */
+  	public boolean comesWithin(Route r, double distance) {
+  		checkRep();
+  		assert (r != null) && (distance >= 0);
+  		double km = distance / 1000;
+  		if(this.getBoundingBox().distanceTo(r.getBoundingBox()) > km)
+  			return false;
+  		return this.segmentIndex().isWithinDistance(r.segmentIndex(), km);
+  	}
+
+
+  	/**
+  	 * Returns whether this route passes through a polygon, such as a
+  	 * geofence. A route that does not cross a side of the polygon is
+  	 * either all inside it or all outside it, so the test is whether the
+  	 * start of the route is in the polygon, or the index of the segments
+  	 * of the route (see segmentIndex) and the index of the sides of the
+  	 * polygon have a pair of segments that meet.
+  	 * @requires polygon != null
+  	 * @return true iff some point of some segment of this route is in
+  	 * 		   polygon.
+  	 */
+  	public boolean passesThrough(GeoPolygon polygon) {
+  		checkRep();
+  		assert polygon != null;
+  		if(!this.getBoundingBox().intersects(polygon.getBoundingBox()))
+  			return false;
+  		return polygon.contains(this.getStart()) ||
+  			   this.segmentIndex().isWithinDistance(polygon.sides(), 0);
+  	}
+
+
+  	/**
+  	 * Creates a simplified Route that follows this route within a
+  	 * tolerance, simplifying each of its geographic features with
+  	 * GeoFeature.simplify. Routes of at least PARALLEL_SIMPLIFY_SEGMENTS
+  	 * segments are simplified feature by feature in parallel, on the
+  	 * common ForkJoin pool.
+  	 * @requires tolerance >= 0
+  	 * @return a Route r whose geographic features are 
+  	 * 		   this.geoFeatures[i].simplify(tolerance), in order. So r has
+  	 * 		   the same geographic features as this, with the same names,
+  	 * 		   endpoints and start and end headings, and only lengths that
+  	 * 		   may be shorter. Returns this if no feature changes.
+  	 */
+  	public Route simplify(double tolerance) {
+  		checkRep();
+  		assert tolerance >= 0;
+  		int count = this.geoFeatureCount();
+  		GeoFeature[] simplified = new GeoFeature[count];
+  		int segments = 0;
+  		for(int i = 0; i < count; i++)
+  			segments += this.geoFeatureAt(i).segmentCount();
+  		IntStream indexes = IntStream.range(0, count);
+  		if(segments >= PARALLEL_SIMPLIFY_SEGMENTS)
+  			indexes = indexes.parallel();
+  		indexes.forEach(i -> 
+  			simplified[i] = this.geoFeatureAt(i).simplify(tolerance));
+  		
+  		// share the longest prefix of features that did not change
+  		int size = count - 1;
+  		int same = 0;
+  		while(same < size && simplified[same] == this.geoFeatureAt(same))
+  			same++;
+  		if(same == size && simplified[size] == this.geoFeatureAt(size))
+  			return this;
+  		Spine<GeoFeature> geoFeatures = this.geoFeatures_;
+  		if(geoFeatures == null) {
+  			geoFeatures = new Spine<GeoFeature>();
+  			same = 0;
+  		}
+  		for(int i = same; i < size; i++)
+  			geoFeatures = geoFeatures.append(i, simplified[i], 
+  											 simplified[i].getLength());
+  		return new Route(geoFeatures, size, simplified[size]);
+  	}
+
+
+  	/**
+  	 * Returns the point at a distance along this route.
+  	 * @requires 0 <= distance <= this.length
+  	 * @return the point reached after traveling distance kilometers along
+  	 * 		   this route from its start, interpolated between the endpoints
+  	 * 		   of the segment it falls on and rounded to millionths of
+  	 * 		   degrees. Found by binary search over the features, then over
+  	 * 		   the segments of one feature, in O(log |this.geoSegments|).
+  	 */
+  	public GeoPoint getPointAt(double distance) {
+  		checkRep();
+  		assert (0 <= distance) && (distance <= this.getLength() + 1e-9);
+  		int i = this.geoFeatureIndexAt(distance, false);
+  		GeoFeature gf = this.geoFeatureAt(i);
+  		return gf.getPointAt(Math.max(0, Math.min(gf.getLength(), 
+  									  distance - this.lengthTo(i))));
+  	}
+
+
+  	/**
+  	 * Returns the part of this route between two distances along it.
+  	 * @requires 0 <= from <= to <= this.length
+  	 * @return a Route r such that r.start = getPointAt(from) && 
+  	 * 		   r.end = getPointAt(to) and r follows the geographic features
+  	 * 		   of this in between, the first and last of them cut with
+  	 * 		   GeoFeature.slice. r is a view that shares the geographic
+  	 * 		   features (and segments) of this, built in 
+  	 * 		   O(log |this.geoSegments|), or this itself if from = 0 and
+  	 * 		   to = this.length.
+  	 */
+  	public Route slice(double from, double to) {
+  		checkRep();
+  		assert (0 <= from) && (from <= to) && 
+  			   (to <= this.getLength() + 1e-9);
+  		if(this.viewDepth() >= MAX_VIEW_DEPTH)
+  			return new Route(this).slice(from, to);
+  		int first = this.geoFeatureIndexAt(from, false);
+  		int last = Math.max(first, this.geoFeatureIndexAt(to, true));
+  		GeoFeature firstGf = this.geoFeatureAt(first);
+  		double fromOffset = from - this.lengthTo(first);
+  		if(first < last && fromOffset >= firstGf.getLength()) {
+  			// do not start with an empty geographic feature
+  			firstGf = this.geoFeatureAt(++first);
+  			fromOffset = 0;
+  		}
+  		GeoFeature lastGf = this.geoFeatureAt(last);
+  		double toOffset = to - this.lengthTo(last);
+  		if(first < last && toOffset <= 0) {
+  			lastGf = this.geoFeatureAt(--last);
+  			toOffset = lastGf.getLength();
+  		}
+  		fromOffset = Math.max(0, Math.min(firstGf.getLength(), fromOffset));
+  		toOffset = Math.max(0, Math.min(lastGf.getLength(), toOffset));
+  		if(first == last) {
+  			GeoFeature gf = firstGf.slice(Math.min(fromOffset, toOffset), 
+  										  toOffset);
+  			if(this.geoFeatureCount() == 1 && gf == firstGf)
+  				return this;
+  			return this.sliceView(first, last + 1, gf, gf);
+  		}
+  		GeoFeature head = firstGf.slice(fromOffset, firstGf.getLength());
+  		GeoFeature tail = lastGf.slice(0, toOffset);
+  		if(first == 0 && last == this.geoFeatureCount() - 1 && 
+  		   head == firstGf && tail == lastGf)
+  			return this;
+  		return this.sliceView(first, last + 1, head, tail);
+  	}
+  	
+  	/**
+  	 * Returns a view of a range of the geographic features of this route.
+  	 * @requires 0 <= from < to <= geoFeatureCount() and head and tail are
+  	 * 			 cut from geoFeatureAt(from) and geoFeatureAt(to - 1) as for
+  	 * 			 a RouteSlice
+  	 * @return a RouteSlice whose features are this[from, to), with head
+  	 * 		   instead of this[from] and tail instead of this[to - 1].
+  	 */
+  	Route sliceView(int from, int to, GeoFeature head, GeoFeature tail) {
+  		return new RouteSlice(this, from, to, head, tail);
+  	}
+
+
+  	/**
+  	 * Returns this route traveled in the opposite direction.
+  	 * @return a Route r whose geoSegments are the reverses (see
+  	 * 		   GeoSegment.reverse) of this.geoSegments, in reverse order,
+  	 * 		   so r.start = this.end && r.end = this.start &&
+  	 * 		   r.length = this.length. r equals the route built by adding
+  	 * 		   those segments one by one, but it is a view built in O(1):
+  	 * 		   its features and their segments are reversed as they are
+  	 * 		   accessed.
+  	 */
+  	public Route reverse() {
+  		checkRep();
+  		Route base = (this.viewDepth() < MAX_VIEW_DEPTH) ? this :
+  					 new Route(this);
+  		return new ReversedRoute(base);
+  	}
+
+
+  	/**
+  	 * Returns this route followed by another route.
+  	 * @requires r != null && r.start = this.end
+  	 * @return a Route equal to this.addSegment(gs1).addSegment(gs2)...
+  	 * 		   for the segments gs1, gs2, ... of r, in order: the last
+  	 * 		   geographic feature of this and the first one of r are merged
+  	 * 		   into one if they have the same name. The result is a view
+  	 * 		   that shares the features (and segments) of this and r, built
+  	 * 		   in O(1).
+  	 */
+  	public Route concat(Route r) {
+  		checkRep();
+  		assert (r != null) && r.getStart().equals(this.getEnd());
+  		Route first = (this.viewDepth() < MAX_VIEW_DEPTH) ? this :
+  					  new Route(this);
+  		Route second = (r.viewDepth() < MAX_VIEW_DEPTH) ? r : new Route(r);
+  		GeoFeature last = first.geoFeatureAt(first.geoFeatureCount() - 1);
+  		GeoFeature next = second.geoFeatureAt(0);
+  		if(!last.getName().equals(next.getName()))
+  			return new ConcatRoute(first, second, null);
+  		if(last.viewDepth() >= MAX_VIEW_DEPTH)
+  			last = new GeoFeature(last);
+  		if(next.viewDepth() >= MAX_VIEW_DEPTH)
+  			next = new GeoFeature(next);
+  		return new ConcatRoute(first, second, 
+  							   new ConcatGeoFeature(last, next));
+  	}
+
+
     /**
      * Returns an Iterator of GeoFeature objects. The concatenation
      * of the GeoFeatures, in order, is equivalent to this route. No two
@@ -221,14 +691,33 @@ public class Route {
      **/
   	public Iterator<GeoFeature> getGeoFeatures() {
   		checkRep();
-  		int size = this.geoFeatures_.size(); 
-  		Iterator<GeoFeature> it = Collections.unmodifiableList(
-  								 	this.geoFeatures_).iterator();
-  		for(int i = 0; i < size - 1 ; i++) {
-  			GeoFeature gf = this.geoFeatures_.get(i);
-  			GeoFeature gfNext = this.geoFeatures_.get(i + 1);
-  			assert !(gf.getName().equals(gfNext.getName()));
-  			assert gf.getEnd().equals(gfNext.getStart());	
+  		final int size = this.geoFeatureCount(); 
+  		
+  		// the iterator walks the shared spine, then the last feature (or
+  		// the view) in place, without removal in order to be safe from
+  		// representation exposure
+  		Iterator<GeoFeature> it = new Iterator<GeoFeature>() {
+  			private int next_ = 0;
+  			
+  			public boolean hasNext() {
+  				return this.next_ < size;
+  			}
+  			
+  			public GeoFeature next() {
+  				if(this.next_ >= size)
+  					throw new NoSuchElementException();
+  				return geoFeatureAt(this.next_++);
+  			}
+  		};
+  		if(Validation.shouldCheck(false) && Validation.isThorough(false)) {
+  			long start = Validation.start();
+  			for(int i = 0; i < size - 1 ; i++) {
+  				GeoFeature gf = this.geoFeatureAt(i);
+  				GeoFeature gfNext = this.geoFeatureAt(i + 1);
+  				assert !(gf.getName().equals(gfNext.getName()));
+  				assert gf.getEnd().equals(gfNext.getStart());	
+  			}
+  			Validation.checked(start);
   		}
   		checkRep();
   		return it;
@@ -252,32 +741,55 @@ public class Route {
   	public Iterator<GeoSegment> getGeoSegments() {
   		checkRep();
   		
-  		// add all route segment to global list :
-  		ArrayList<GeoSegment> globalList = new ArrayList<GeoSegment>(); 
-  		for(GeoFeature gf : this.geoFeatures_) {
-  			Iterator<GeoSegment> geoSegmentIt = gf.getGeoSegments();
-  			while(geoSegmentIt.hasNext())
-  				globalList.add(geoSegmentIt.next());
-  		}
+  		// iterates lazily over the segments of the geoFeatures in place,
+  		// the iterator does not support removal.
+  		Iterator<GeoSegment> it = new RouteSegmentIterator(this);
   		
-  		// iterates over unmodifiable list :
-  		Iterator<GeoSegment> it = Collections.unmodifiableList(globalList).iterator();
-  		// check if global list satisfies basic conditions for start and end points.
-  		assert (globalList.get(0).getP1().equals(this.getStart()));
-  		assert (globalList.get(0).getHeading() == this.getStartHeading());
-  		assert (globalList.get(globalList.size() - 1).getP2().equals(this.getEnd()));
-  		assert (globalList.get(globalList.size() - 1).getHeading() == this.getEndHeading()); 
-  		// check that the total length of the Segments in the global list 
-  		// is equivalent to the route length.
-  		double len = 0;
-  		for(GeoSegment gs : globalList)
-  			len += gs.getLength();
-  		assert len == this.getLength();
+  		// check that the first and last segments satisfy basic conditions 
+  		// for start and end points.
+  		GeoFeature first = this.geoFeatureAt(0);
+  		GeoFeature last = this.geoFeatureAt(this.geoFeatureCount() - 1);
+  		GeoSegment firstGs = first.segmentAt(0);
+  		GeoSegment lastGs = last.segmentAt(last.segmentCount() - 1);
+  		assert (firstGs.getP1().equals(this.getStart()));
+  		assert (firstGs.getHeading() == this.getStartHeading());
+  		assert (lastGs.getP2().equals(this.getEnd()));
+  		assert (lastGs.getHeading() == this.getEndHeading()); 
+  		
+  		// check that the total length of the Segments is equivalent to the 
+  		// route length, this walks the whole route.
+  		if(Validation.shouldCheck(false) && Validation.isThorough(false)) {
+  			long start = Validation.start();
+  			double len = 0;
+  			Iterator<GeoSegment> lengthIt = new RouteSegmentIterator(this);
+  			while(lengthIt.hasNext())
+  				len += lengthIt.next().getLength();
+  			
+  			// the route length is summed feature by feature
+  			assert Math.abs(len - this.getLength()) <= 1e-9 * (1 + len);
+  			Validation.checked(start);
+  		}
   	
   		checkRep();
   		return it;
   		
   	}
+  	
+  	/**
+  	 * Returns a Spliterator over the GeoSegment objects of this route, for
+  	 * use with streams. The concatenation of the GeoSegments, in order, is
+  	 * equivalent to this route.
+  	 * @return a Spliterator over the same GeoSegments, in the same order, as
+  	 * 		   the Iterator returned by getGeoSegments(). It reports the
+  	 * 		   ORDERED, NONNULL and IMMUTABLE characteristics and splits by 
+  	 * 		   ranges of geographic features, so it may be used to build
+  	 * 		   parallel streams.
+  	 * @see java.util.stream.StreamSupport#stream(Spliterator, boolean)
+  	 **/
+  	public Spliterator<GeoSegment> getGeoSegmentSpliterator() {
+  		checkRep();
+  		return new RouteSegmentIterator(this);
+  	}
 
 
   	/**
@@ -288,13 +800,17 @@ public class Route {
      **/
   	public boolean equals(Object o) {
   		checkRep();
+  		if(this == o)
+  			return true;
   		Route r = (o instanceof Route) ? (Route)o : null;
-  		if(r == null || this.geoFeatures_.size() != r.geoFeatures_.size())
+  		if(r == null || this.geoFeatureCount() != r.geoFeatureCount())
   			return false;
-  		for(int i = 0; i < this.geoFeatures_.size(); i++) {
-  			GeoFeature gfi = this.geoFeatures_.get(i);
-  			GeoFeature ri = r.geoFeatures_.get(i);
-  			if(!gfi.equals(ri)) return false;		
+  		for(int i = 0; i < this.geoFeatureCount(); i++) {
+  			GeoFeature gfi = this.geoFeatureAt(i);
+  			GeoFeature ri = r.geoFeatureAt(i);
+  			
+  			// routes built from the same prefix share their features
+  			if(gfi != ri && !gfi.equals(ri)) return false;		
   		}
   		checkRep();
   		return true;	 
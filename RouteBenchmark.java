@@ -0,0 +1,1661 @@
+package homework1;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A RouteBenchmark is a small self-contained regression benchmark suite for
+ * the geometry, route building and formatting hot paths. It needs nothing
+ * but a JVM:
+ * <p>
+ * <tt>java homework1.RouteBenchmark [group ...]</tt>
+ * <p>
+ * where the optional groups (geometry, kernels, heading, distance, index,
+ * graph, ch, matrix, snapshot, matching, feature, route, builder,
+ * simplify, iteration, position, proximity, views, equality, formatter,
+ * directions, codec, heap, validation) select which benchmarks to run.
+ * <p>
+ * Every benchmark warms up for a fixed time, then prints the best time per
+ * operation over a few rounds, each running the task as often as it takes
+ * to last about 100 ms, less the time the harness takes to run an empty
+ * task. This is stable enough to spot asymptotic regressions such as a
+ * route build that became quadratic again. It also prints the bytes
+ * allocated per operation, summed over the allocation counters of all the
+ * threads of the JVM (like the gc profiler of JMH), so parallel tasks count
+ * the allocation of their workers too.
+ * <p>
+ * checkRep dominates the hot paths when assertions are enabled, so the
+ * suite should be run both with <tt>-da</tt> and with <tt>-ea</tt>; under
+ * <tt>-ea</tt> the level selected by <tt>-Dhomework1.validation</tt> (see
+ * Validation) applies, and the validation group compares all the levels.
+ */
+public class RouteBenchmark {
+
+	/** Time spent running a task before measuring it, in nanoseconds. **/
+	private static final long WARMUP_NANOS = 300000000L;
+
+	/**
+	 * Shortest measured round, in nanoseconds: a round runs a task as many
+	 * times as it takes to last that long.
+	 */
+	private static final long ROUND_NANOS = 100000000L;
+
+	private static final int MEASURED_ROUNDS = 5;
+
+	/** Number of consecutive segments sharing the same street name. **/
+	private static final int SEGMENTS_PER_FEATURE = 20;
+
+	// keeps the JIT from discarding the benchmarked work
+	private static volatile Object sink_;
+
+	// the time of an empty run in the harness, and the bytes that reading
+	// the allocation counters allocates, or -1 until they are measured
+	private static double emptyNanos_ = -1;
+	private static long counterBytes_ = -1;
+
+	// the groups selected on the command line, or null to run all of them
+	private static Set<String> groups_;
+
+	/**
+	 * Runs the selected benchmarks and prints their results to System.out.
+	 * @param args the groups of benchmarks to run, or none to run them all.
+	 */
+	public static void main(String[] args) {
+		groups_ = (args.length == 0) ? null :
+					new HashSet<String>(Arrays.asList(args));
+		System.out.println("assertions " +
+				(assertionsEnabled() ? "enabled, validation " +
+						Validation.getLevel() : "disabled"));
+		if(selected("geometry")) {
+			benchmarkGeometry();
+			benchmarkPackedGeometry();
+		}
+		if(selected("kernels"))
+			benchmarkKernels();
+		if(selected("heading"))
+			benchmarkHeadingEngine();
+		if(selected("distance"))
+			benchmarkDistanceModels();
+		if(selected("index"))
+			benchmarkSegmentIndex();
+		if(selected("graph"))
+			benchmarkRoadGraph();
+		if(selected("ch"))
+			benchmarkContractionHierarchy();
+		if(selected("matrix"))
+			benchmarkDistanceMatrix();
+		if(selected("snapshot"))
+			benchmarkRoadSnapshot();
+		if(selected("matching"))
+			benchmarkMapMatcher();
+		if(selected("feature"))
+			benchmarkFeatureAddSegment();
+		if(selected("route"))
+			benchmarkAddSegment();
+		if(selected("builder"))
+			benchmarkRouteBuilder();
+		if(selected("simplify"))
+			benchmarkSimplify();
+		if(selected("iteration"))
+			benchmarkGetGeoSegments();
+		if(selected("position"))
+			benchmarkPosition();
+		if(selected("proximity"))
+			benchmarkProximity();
+		if(selected("views"))
+			benchmarkViews();
+		if(selected("equality"))
+			benchmarkEquality();
+		if(selected("formatter"))
+			benchmarkComputeLine();
+		if(selected("directions"))
+			benchmarkIncrementalDirections();
+		if(selected("codec"))
+			benchmarkCodec();
+		if(selected("heap")) {
+			benchmarkPackedRouteHeap();
+			benchmarkInterningHeap();
+		}
+		if(selected("validation") && assertionsEnabled())
+			benchmarkValidationLevels();
+	}
+
+	/**
+	 * Returns whether a group of benchmarks was selected.
+	 * @return true iff group was selected on the command line, or no group
+	 * 		   was.
+	 */
+	private static boolean selected(String group) {
+		return (groups_ == null) || groups_.contains(group);
+	}
+
+	/**
+	 * Benchmarks the basic geometry of GeoPoints and GeoSegments.
+	 */
+	private static void benchmarkGeometry() {
+		final int n = 100000;
+		final GeoSegment[] segments = trace(n);
+		measure("GeoPoint.distanceTo", n, new Runnable() {
+			public void run() {
+				double sum = 0;
+				for(GeoSegment gs : segments)
+					sum += gs.getP1().distanceTo(gs.getP2());
+				sink_ = sum;
+			}
+		});
+		measure("GeoPoint.headingTo", n, new Runnable() {
+			public void run() {
+				double sum = 0;
+				for(GeoSegment gs : segments)
+					sum += gs.getP1().headingTo(gs.getP2());
+				sink_ = sum;
+			}
+		});
+		measure("GeoSegment.getLength", n, new Runnable() {
+			public void run() {
+				double sum = 0;
+				for(GeoSegment gs : segments)
+					sum += gs.getLength();
+				sink_ = sum;
+			}
+		});
+	}
+
+	/**
+	 * Benchmarks the batch kernels of GeoKernels against computing the same
+	 * values point by point, and checks that both agree exactly.
+	 */
+	private static void benchmarkKernels() {
+		final int n = 1000000;
+		GeoSegment[] segments = trace(n);
+		final GeoPoint[] points = new GeoPoint[n + 1];
+		final int[] latitudes = new int[n + 1];
+		final int[] longitudes = new int[n + 1];
+		points[0] = segments[0].getP1();
+		for(int i = 0; i < n; i++)
+			points[i + 1] = segments[i].getP2();
+		for(int i = 0; i <= n; i++) {
+			latitudes[i] = points[i].getLatitude();
+			longitudes[i] = points[i].getLongitude();
+		}
+
+		final double[] expected = new double[n];
+		final double[] actual = new double[n];
+		measure("GeoPoint.distanceTo x " + n, n, new Runnable() {
+			public void run() {
+				for(int i = 0; i < n; i++)
+					expected[i] = points[i].distanceTo(points[i + 1]);
+			}
+		});
+		measure("GeoKernels.distances x " + n, n, new Runnable() {
+			public void run() {
+				GeoKernels.distances(latitudes, longitudes, actual);
+			}
+		});
+		System.out.println("  max error " + maxError(expected, actual));
+
+		measure("GeoPoint.headingTo x " + n, n, new Runnable() {
+			public void run() {
+				for(int i = 0; i < n; i++)
+					expected[i] = points[i].headingTo(points[i + 1]);
+			}
+		});
+		measure("GeoKernels.headings x " + n, n, new Runnable() {
+			public void run() {
+				GeoKernels.headings(latitudes, longitudes, actual);
+			}
+		});
+		System.out.println("  max error " + maxError(expected, actual));
+	}
+
+	/**
+	 * Benchmarks the modes of HeadingEngine, prints the distribution of the
+	 * error of the FAST mode over random headings, and checks that both
+	 * modes give the same directions for a route.
+	 */
+	private static void benchmarkHeadingEngine() {
+		final int n = 1000000;
+		Random random = new Random(42);
+		final int[] latitudes = new int[n + 1];
+		final int[] longitudes = new int[n + 1];
+		for(int i = 0; i <= n; i++) {
+			latitudes[i] = 32000000 + random.nextInt(2000000);
+			longitudes[i] = 34000000 + random.nextInt(2000000);
+		}
+		// the last leg has equal endpoints, which have a heading too
+		latitudes[n] = latitudes[n - 1];
+		longitudes[n] = longitudes[n - 1];
+		final double[] exact = new double[n];
+		final double[] fast = new double[n];
+		HeadingEngine.Mode mode = HeadingEngine.getMode();
+
+		HeadingEngine.setMode(HeadingEngine.Mode.EXACT);
+		measure("HeadingEngine EXACT x " + n, n, new Runnable() {
+			public void run() {
+				GeoKernels.headings(latitudes, longitudes, exact);
+			}
+		});
+		HeadingEngine.setMode(HeadingEngine.Mode.FAST);
+		measure("HeadingEngine FAST x " + n, n, new Runnable() {
+			public void run() {
+				GeoKernels.headings(latitudes, longitudes, fast);
+			}
+		});
+
+		double[] errors = new double[n];
+		for(int i = 0; i < n; i++)
+			errors[i] = HeadingEngine.difference(exact[i], fast[i]);
+		Arrays.sort(errors);
+		System.out.println(String.format("  error (degrees) median %.2e, " +
+				"99%% %.2e, 99.99%% %.2e, max %.2e, bound %.2e",
+				errors[n / 2], errors[n / 100 * 99], errors[n / 10000 * 9999],
+				errors[n - 1], HeadingEngine.MAX_ERROR));
+		if(!(errors[n - 1] <= HeadingEngine.MAX_ERROR))	// or NaN
+			System.out.println("  REGRESSION: FAST headings exceed MAX_ERROR");
+
+		// the directions of a route with turns of every angle
+		GeoSegment[] segments = new GeoSegment[360];
+		GeoPoint p = new GeoPoint(32000000, 35000000);
+		for(int i = 0; i < segments.length; i++) {
+			double angle = Math.toRadians(i * 7);
+			GeoPoint q = new GeoPoint(p.getLatitude() +
+					(int)(1000 * Math.cos(angle)), p.getLongitude() +
+					(int)(1000 * Math.sin(angle)));
+			segments[i] = new GeoSegment("Street " + i, p, q);
+			p = q;
+		}
+		String fastDirections = new DrivingRouteFormatter().computeDirections(
+				new RouteBuilder().addAll(segments).build(), 0);
+		HeadingEngine.setMode(HeadingEngine.Mode.EXACT);
+		for(int i = 0; i < segments.length; i++)
+			segments[i] = new GeoSegment(segments[i].getName(),
+					segments[i].getP1(), segments[i].getP2());
+		String exactDirections = new DrivingRouteFormatter().computeDirections(
+				new RouteBuilder().addAll(segments).build(), 0);
+		System.out.println("  directions of " + segments.length +
+				" turns " + (fastDirections.equals(exactDirections) ?
+						"identical" : "DIFFER") + " in both modes");
+		HeadingEngine.setMode(mode);
+	}
+
+	/**
+	 * Benchmarks every DistanceModel, and prints their largest relative
+	 * difference from the haversine distance over legs of up to a few
+	 * kilometers at various latitudes.
+	 */
+	private static void benchmarkDistanceModels() {
+		final int n = 1000000;
+		Random random = new Random(42);
+		final int[] latitudes = new int[n + 1];
+		final int[] longitudes = new int[n + 1];
+		for(int i = 0; i <= n; i++) {
+			latitudes[i] = (i == 0 || i % 1000 == 0) ?
+					random.nextInt(160000001) - 80000000 :
+					latitudes[i - 1] + random.nextInt(40001) - 20000;
+			longitudes[i] = (i == 0 || i % 1000 == 0) ?
+					random.nextInt(340000001) - 170000000 :
+					longitudes[i - 1] + random.nextInt(40001) - 20000;
+			latitudes[i] = Math.max(-85000000, Math.min(85000000,
+															  latitudes[i]));
+		}
+		DistanceModel[] models = {DistanceModel.FLAT,
+				DistanceModel.EQUIRECTANGULAR, DistanceModel.HAVERSINE};
+		final double[][] distances = new double[models.length][n];
+		for(int m = 0; m < models.length; m++) {
+			final DistanceModel model = models[m];
+			final double[] out = distances[m];
+			measure("DistanceModel " + ((model == DistanceModel.FLAT) ?
+					"FLAT" : model.toString()) + " x " + n, n, new Runnable() {
+				public void run() {
+					for(int i = 0; i < n; i++)
+						out[i] = model.distance(latitudes[i], longitudes[i],
+												latitudes[i + 1],
+												longitudes[i + 1]);
+				}
+			});
+		}
+		for(int m = 0; m < models.length - 1; m++) {
+			double max = 0;
+			for(int i = 0; i < n; i++) {
+				double exact = distances[models.length - 1][i];
+				if(i % 1000 != 999 && exact > 0)
+					max = Math.max(max, Math.abs(distances[m][i] - exact) /
+										exact);
+			}
+			System.out.println(String.format("  %s max relative error %.2e",
+					(m == 0) ? "FLAT" : models[m].toString(), max));
+		}
+	}
+
+	/**
+	 * Benchmarks building a SegmentIndex over a grid of streets, and
+	 * snapping random points to it, against a linear scan.
+	 */
+	private static void benchmarkSegmentIndex() {
+		final List<GeoSegment> segments = grid(500);
+		final SegmentIndex[] index = new SegmentIndex[1];
+		measure("SegmentIndex build x " + segments.size(), segments.size(),
+				new Runnable() {
+			public void run() {
+				index[0] = new SegmentIndex(segments);
+			}
+		});
+
+		final int queries = 100000;
+		Random random = new Random(42);
+		final GeoPoint[] points = new GeoPoint[queries];
+		for(int i = 0; i < queries; i++)
+			points[i] = new GeoPoint(32000000 + random.nextInt(500 * 200),
+									 35000000 + random.nextInt(500 * 200));
+		measure("SegmentIndex.nearest x " + queries, queries, new Runnable() {
+			public void run() {
+				for(GeoPoint p : points)
+					sink_ = index[0].nearest(p, 1);
+			}
+		});
+		measure("SegmentIndex.withinDistance x " + queries, queries,
+				new Runnable() {
+			public void run() {
+				for(GeoPoint p : points)
+					sink_ = index[0].withinDistance(p, 0.05);
+			}
+		});
+		measure("SegmentIndex.search x " + queries, queries, new Runnable() {
+			public void run() {
+				for(GeoPoint p : points)
+					sink_ = index[0].search(GeoBox.around(p, 0.05));
+			}
+		});
+		measure("linear nearest x 100", 100, new Runnable() {
+			public void run() {
+				for(int i = 0; i < 100; i++) {
+					GeoSegment nearest = null;
+					double distance = Double.POSITIVE_INFINITY;
+					for(GeoSegment gs : segments) {
+						double d = gs.distanceTo(points[i]);
+						if(d < distance) {
+							distance = d;
+							nearest = gs;
+						}
+					}
+					sink_ = nearest;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Benchmarks building a RoadGraph over a grid of streets, and finding
+	 * shortest routes between random nodes of it.
+	 */
+	private static void benchmarkRoadGraph() {
+		final List<GeoSegment> segments = grid(500);
+		final RoadGraph[] graph = new RoadGraph[1];
+		measure("RoadGraphBuilder.build x " + segments.size(),
+				segments.size(), new Runnable() {
+			public void run() {
+				graph[0] = new RoadGraphBuilder().addAll(segments).build();
+			}
+		});
+
+		final int queries = 100;
+		final GeoPoint[] from = randomNodes(segments, queries, 1);
+		final GeoPoint[] to = randomNodes(segments, queries, 2);
+		measure("RoadGraph.shortestRoute x " + queries, queries,
+				new Runnable() {
+			public void run() {
+				for(int i = 0; i < queries; i++)
+					sink_ = graph[0].shortestRoute(from[i], to[i]);
+			}
+		});
+	}
+
+	/**
+	 * Benchmarks building a ContractionHierarchy over a grid of streets, once
+	 * (building it is too slow to repeat), and its queries against A* on the
+	 * same graph, and checks that both find routes of the same length.
+	 */
+	private static void benchmarkContractionHierarchy() {
+		List<GeoSegment> segments = grid(100);
+		final RoadGraph graph = new RoadGraphBuilder().addAll(segments).build();
+		long start = System.nanoTime();
+		final ContractionHierarchy hierarchy = new ContractionHierarchy(graph);
+		report("ContractionHierarchy x " + graph.edgeCount(),
+				System.nanoTime() - start,
+				hierarchy.shortcutCount() + " shortcuts");
+
+		final int queries = 500;
+		final GeoPoint[] from = randomNodes(segments, queries, 1);
+		final GeoPoint[] to = randomNodes(segments, queries, 2);
+		double maxError = 0;
+		for(int i = 0; i < queries; i++)
+			maxError = Math.max(maxError, Math.abs(
+					graph.shortestDistance(from[i], to[i]) -
+					hierarchy.shortestDistance(from[i], to[i])));
+		measure("RoadGraph.shortestRoute x " + queries, queries,
+				new Runnable() {
+			public void run() {
+				for(int i = 0; i < queries; i++)
+					sink_ = graph.shortestRoute(from[i], to[i]);
+			}
+		});
+		measure("CH.shortestRoute x " + queries, queries,
+				new Runnable() {
+			public void run() {
+				for(int i = 0; i < queries; i++)
+					sink_ = hierarchy.shortestRoute(from[i], to[i]);
+			}
+		});
+		measure("CH.shortestDistance x " + queries, queries,
+				new Runnable() {
+			public void run() {
+				double sum = 0;
+				for(int i = 0; i < queries; i++)
+					sum += hierarchy.shortestDistance(from[i], to[i]);
+				sink_ = sum;
+			}
+		});
+		System.out.println(String.format("%-40s %12.3g km", "max error",
+				maxError));
+	}
+
+	/**
+	 * Benchmarks distance matrices over a grid of streets against computing
+	 * every cell with a separate search, and checks that both agree.
+	 */
+	private static void benchmarkDistanceMatrix() {
+		List<GeoSegment> segments = grid(100);
+		final RoadGraph graph = new RoadGraphBuilder().addAll(segments).build();
+		final int size = 100;
+		final List<GeoPoint> from = Arrays.asList(randomNodes(segments, size,
+															  1));
+		final List<GeoPoint> to = Arrays.asList(randomNodes(segments, size, 2));
+		final double[][] matrices = new double[2][];
+		measure("RoadGraph.shortestDistance x " + size * size, size * size,
+				new Runnable() {
+			public void run() {
+				double[] matrix = new double[size * size];
+				for(int i = 0; i < size; i++)
+					for(int j = 0; j < size; j++)
+						matrix[i * size + j] = graph.shortestDistance(
+								from.get(i), to.get(j));
+				matrices[0] = matrix;
+			}
+		});
+		measure("RoadGraph.distanceMatrix " + size + "x" + size, size * size,
+				new Runnable() {
+			public void run() {
+				matrices[1] = graph.distanceMatrix(from, to);
+			}
+		});
+		measure("RoadGraph.routeMatrix " + size + "x" + size, size * size,
+				new Runnable() {
+			public void run() {
+				sink_ = graph.routeMatrix(from, to);
+			}
+		});
+		System.out.println(String.format("%-40s %12.3g km  on %d cores",
+				"max error", maxError(matrices[0], matrices[1]),
+				Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * Benchmarks matching noisy traces of shortest routes over a grid of
+	 * streets, one after the other and in parallel, and reports the share
+	 * of matched segments that are on the traced routes.
+	 */
+	private static void benchmarkMapMatcher() {
+		List<GeoSegment> segments = grid(100);
+		RoadGraph graph = new RoadGraphBuilder().addAll(segments).build();
+		final MapMatcher matcher = new MapMatcher(graph);
+		final int count = 200;
+		GeoPoint[] from = randomNodes(segments, count, 1);
+		GeoPoint[] to = randomNodes(segments, count, 2);
+		Random random = new Random(3);
+		final List<List<GeoPoint>> traces = new ArrayList<List<GeoPoint>>();
+		List<Set<GeoSegment>> routes = new ArrayList<Set<GeoSegment>>();
+		int fixes = 0;
+		for(int i = 0; i < count; i++) {
+			Route route = graph.shortestRoute(from[i], to[i]);
+			if(route == null)
+				continue;
+			// two fixes per segment, with 4 meters of noise
+			List<GeoPoint> trace = new ArrayList<GeoPoint>();
+			Set<GeoSegment> traced = new HashSet<GeoSegment>();
+			for(Iterator<GeoSegment> it = route.getGeoSegments();
+				it.hasNext(); ) {
+				GeoSegment gs = it.next();
+				traced.add(gs);
+				for(int k = 0; k < 2; k++) {
+					double latitude = gs.getP1().getLatitude() + k *
+							(gs.getP2().getLatitude() -
+							 gs.getP1().getLatitude()) / 2.0;
+					double longitude = gs.getP1().getLongitude() + k *
+							(gs.getP2().getLongitude() -
+							 gs.getP1().getLongitude()) / 2.0;
+					trace.add(new GeoPoint(
+							(int)(latitude + random.nextGaussian() * 0.004 /
+								  GeoPoint.KM_PER_DEGREE_LATITUDE * 1000000),
+							(int)(longitude + random.nextGaussian() * 0.004 /
+								  GeoPoint.KM_PER_DEGREE_LONGITUDE * 1000000)));
+				}
+			}
+			traces.add(trace);
+			routes.add(traced);
+			fixes += trace.size();
+		}
+		measure("MapMatcher.match x " + traces.size(), fixes, new Runnable() {
+			public void run() {
+				for(List<GeoPoint> trace : traces)
+					sink_ = matcher.match(trace);
+			}
+		});
+		final List<List<List<Route>>> matched =
+				new ArrayList<List<List<Route>>>(1);
+		measure("MapMatcher.matchAll x " + traces.size(), fixes,
+				new Runnable() {
+			public void run() {
+				matched.clear();
+				matched.add(matcher.matchAll(traces));
+			}
+		});
+		int total = 0;
+		int correct = 0;
+		for(int i = 0; i < traces.size(); i++)
+			for(Route route : matched.get(0).get(i))
+				for(Iterator<GeoSegment> it = route.getGeoSegments();
+					it.hasNext(); total++)
+					if(routes.get(i).contains(it.next()))
+						correct++;
+		System.out.println(String.format("%-40s %12.1f %%  on %d cores",
+				"matched segments on route", 100.0 * correct / total,
+				Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * Benchmarks opening a snapshot of a grid of streets, against building
+	 * the graph from its segments, and reading segments out of it.
+	 */
+	private static void benchmarkRoadSnapshot() {
+		final List<GeoSegment> segments = grid(500);
+		RoadGraph graph = new RoadGraphBuilder().addAll(segments).build();
+		try {
+			final Path path = Files.createTempFile("roads", ".snapshot");
+			try {
+				RoadSnapshot.write(graph, path);
+				final RoadSnapshot[] snapshot = new RoadSnapshot[1];
+				measure("RoadSnapshot.open x " + graph.edgeCount(), 1,
+						new Runnable() {
+					public void run() {
+						try {
+							snapshot[0] = RoadSnapshot.open(path);
+						}
+						catch(IOException e) {
+							throw new AssertionError(e);
+						}
+					}
+				});
+				measure("RoadSnapshot.toRoadGraph x " + graph.edgeCount(), 1,
+						new Runnable() {
+					public void run() {
+						sink_ = snapshot[0].toRoadGraph();
+					}
+				});
+				final int lookups = 100000;
+				final GeoPoint[] points = randomNodes(segments, lookups, 1);
+				measure("RoadSnapshot.getGeoSegments x " + lookups, lookups,
+						new Runnable() {
+					public void run() {
+						double length = 0;
+						for(GeoPoint gp : points)
+							for(Iterator<GeoSegment> it =
+									snapshot[0].getGeoSegments(gp);
+								it.hasNext(); )
+								length += it.next().getLength();
+						sink_ = length;
+					}
+				});
+			}
+			finally {
+				Files.delete(path);
+			}
+		}
+		catch(IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Returns random endpoints of segments.
+	 * @requires segments is not empty && count >= 0
+	 * @return an array of count points, each p1 of a random segment of
+	 * 		   segments, drawn from the given seed.
+	 */
+	static GeoPoint[] randomNodes(List<GeoSegment> segments, int count,
+								  long seed) {
+		Random random = new Random(seed);
+		GeoPoint[] nodes = new GeoPoint[count];
+		for(int i = 0; i < count; i++)
+			nodes[i] = segments.get(random.nextInt(segments.size())).getP1();
+		return nodes;
+	}
+
+	/**
+	 * Returns the segments of a square grid of streets, 200 millionths of
+	 * a degree apart, in both directions.
+	 * @requires size >= 1
+	 * @return the 4 * size * (size + 1) segments of a grid of size by size
+	 * 		   blocks, each street traversed in both directions.
+	 */
+	static List<GeoSegment> grid(int size) {
+		List<GeoSegment> segments = new ArrayList<GeoSegment>();
+		for(int i = 0; i <= size; i++) {
+			for(int j = 0; j < size; j++) {
+				GeoPoint a = new GeoPoint(32000000 + 200 * i,
+										  35000000 + 200 * j);
+				GeoPoint b = new GeoPoint(32000000 + 200 * i,
+										  35000000 + 200 * (j + 1));
+				GeoPoint c = new GeoPoint(32000000 + 200 * j,
+										  35000000 + 200 * i);
+				GeoPoint d = new GeoPoint(32000000 + 200 * (j + 1),
+										  35000000 + 200 * i);
+				segments.add(new GeoSegment("Street " + i, a, b));
+				segments.add(new GeoSegment("Street " + i, b, a));
+				segments.add(new GeoSegment("Avenue " + i, c, d));
+				segments.add(new GeoSegment("Avenue " + i, d, c));
+			}
+		}
+		return segments;
+	}
+
+	/**
+	 * Returns the largest difference between two arrays of values.
+	 * @requires expected != null && actual != null &&
+	 * 			 expected.length = actual.length
+	 * @return the maximum of |expected[i] - actual[i]| over all i.
+	 */
+	static double maxError(double[] expected, double[] actual) {
+		double max = 0;
+		for(int i = 0; i < expected.length; i++)
+			max = Math.max(max, Math.abs(expected[i] - actual[i]));
+		return max;
+	}
+
+	/**
+	 * Benchmarks building geographic features one addSegment call at a time.
+	 */
+	private static void benchmarkFeatureAddSegment() {
+		for(final int n : chainSizes()) {
+			final GeoSegment[] segments = straightTrace(n);
+			measure("GeoFeature.addSegment x " + n, n, new Runnable() {
+				public void run() {
+					GeoFeature gf = new GeoFeature(segments[0]);
+					for(int i = 1; i < segments.length; i++)
+						gf = gf.addSegment(segments[i]);
+					sink_ = gf;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Benchmarks building routes one addSegment call at a time, and checks
+	 * that the time per segment does not grow with the route length.
+	 */
+	private static void benchmarkAddSegment() {
+		double perSegment1k = 0;
+		for(final int n : chainSizes()) {
+			final GeoSegment[] segments = trace(n);
+			double perSegment = measure("Route.addSegment x " + n, n,
+										new Runnable() {
+				public void run() {
+					Route r = new Route(segments[0]);
+					for(int i = 1; i < segments.length; i++)
+						r = r.addSegment(segments[i]);
+					sink_ = r;
+				}
+			});
+			if(n == 1000)
+				perSegment1k = perSegment;
+			if(n > 1000 && !assertionsEnabled() &&
+			   perSegment > 20 * perSegment1k)
+				System.out.println("  REGRESSION: addSegment is no longer " +
+						"constant time per segment");
+		}
+	}
+
+	/**
+	 * Benchmarks building routes in bulk with a RouteBuilder.
+	 */
+	private static void benchmarkRouteBuilder() {
+		for(final int n : sizes()) {
+			final GeoSegment[] segments = trace(n);
+			measure("RouteBuilder.addAll x " + n, n, new Runnable() {
+				public void run() {
+					sink_ = new RouteBuilder().addAll(segments).build();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Benchmarks simplifying recorded routes, nearly collinear segments of
+	 * about 11 meters with a few meters of noise, and reports how many
+	 * segments and how much length every tolerance removes.
+	 */
+	private static void benchmarkSimplify() {
+		Random random = new Random(5);
+		for(int n : new int[] { 1000, 100000 }) {
+			RouteBuilder builder = new RouteBuilder();
+			int latitude = 32780000;
+			int longitude = 35010000;
+			GeoPoint p1 = new GeoPoint(latitude, longitude);
+			for(int i = 0; i < n; i++) {
+				latitude += 100 + random.nextInt(31) - 15;
+				longitude += 50 + (int)(30 * Math.sin(i / 20.0)) +
+							 random.nextInt(31) - 15;
+				GeoPoint p2 = new GeoPoint(latitude, longitude);
+				builder.add(new GeoSegment("Street " +
+						(i / (5 * SEGMENTS_PER_FEATURE)), p1, p2));
+				p1 = p2;
+			}
+			final Route route = builder.build();
+			for(final double tolerance : new double[] { 1, 5, 20 }) {
+				final Route[] simplified = new Route[1];
+				measure("Route.simplify " + (int)tolerance + " m x " + n, n,
+						new Runnable() {
+					public void run() {
+						simplified[0] = route.simplify(tolerance);
+					}
+				});
+				int segments = 0;
+				for(Iterator<GeoSegment> it = simplified[0].getGeoSegments();
+					it.hasNext(); it.next())
+					segments++;
+				System.out.println(String.format(
+						"%-40s %12d -> %d segments, length -%.3f %%",
+						"  simplified", n, segments, 100 *
+						(route.getLength() - simplified[0].getLength()) /
+						route.getLength()));
+			}
+		}
+	}
+
+	/**
+	 * Benchmarks iterating over all the segments of a route, and over the
+	 * geographic features of the same route packed.
+	 */
+	private static void benchmarkGetGeoSegments() {
+		for(final int n : sizes()) {
+			final Route route = new RouteBuilder().addAll(trace(n)).build();
+			measure("Route.getGeoSegments x " + n, n, new Runnable() {
+				public void run() {
+					Iterator<GeoSegment> it = route.getGeoSegments();
+					double length = 0;
+					while(it.hasNext())
+						length += it.next().getLength();
+					sink_ = length;
+				}
+			});
+			final PackedRoute packed = new PackedRoute(route);
+			measure("PackedRoute.getGeoFeatures x " + n,
+					packed.geoFeatureCount(), new Runnable() {
+				public void run() {
+					Iterator<GeoFeature> it = packed.getGeoFeatures();
+					while(it.hasNext())
+						sink_ = it.next().getEnd();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Benchmarks finding points at distances along a route, by binary
+	 * search and by walking its segments, and slicing the route.
+	 */
+	private static void benchmarkPosition() {
+		final int queries = 1000;
+		for(final int n : sizes()) {
+			final Route route = new RouteBuilder().addAll(trace(n)).build();
+			final double[] distances = new double[queries];
+			Random random = new Random(n);
+			for(int i = 0; i < queries; i++)
+				distances[i] = random.nextDouble() * route.getLength();
+			measure("Route.getPointAt x " + n, queries, new Runnable() {
+				public void run() {
+					for(double distance : distances)
+						sink_ = route.getPointAt(distance);
+				}
+			});
+			if(n <= 10000)
+				measure("walk getGeoSegments x " + n, queries,
+						new Runnable() {
+					public void run() {
+						for(double distance : distances) {
+							Iterator<GeoSegment> it = route.getGeoSegments();
+							GeoSegment gs = it.next();
+							double length = 0;
+							while(length + gs.getLength() < distance &&
+								  it.hasNext()) {
+								length += gs.getLength();
+								gs = it.next();
+							}
+							sink_ = GeoFeature.pointAlong(gs,
+														 distance - length);
+						}
+					}
+				});
+			measure("Route.slice 5 km x " + n, queries, new Runnable() {
+				public void run() {
+					for(double distance : distances)
+						sink_ = route.slice(distance, Math.min(
+								route.getLength(), distance + 5));
+				}
+			});
+		}
+	}
+
+	/**
+	 * Benchmarks the route-vs-route and route-vs-polygon tests, against
+	 * comparing every pair of segments, on routes whose bounding boxes
+	 * overlap.
+	 */
+	private static void benchmarkProximity() {
+		for(final int n : sizes()) {
+			GeoSegment[] segments = trace(n);
+			final Route route = new RouteBuilder().addAll(segments).build();
+
+			// the same zigzag, about 190 meters to the east
+			GeoSegment[] shifted = new GeoSegment[n];
+			for(int i = 0; i < n; i++) {
+				GeoPoint p1 = segments[i].getP1();
+				GeoPoint p2 = segments[i].getP2();
+				shifted[i] = new GeoSegment(segments[i].getName(),
+						new GeoPoint(p1.getLatitude(),
+									 p1.getLongitude() + 2000),
+						new GeoPoint(p2.getLatitude(),
+									 p2.getLongitude() + 2000));
+			}
+			final Route parallel = new RouteBuilder().addAll(shifted).build();
+			measure("Route.comesWithin 100 m (no) x " + n, 1, new Runnable() {
+				public void run() {
+					sink_ = route.comesWithin(parallel, 100);
+				}
+			});
+			measure("Route.comesWithin 250 m (yes) x " + n, 1,
+					new Runnable() {
+				public void run() {
+					sink_ = route.comesWithin(parallel, 250);
+				}
+			});
+			if(n <= 1000) {
+				final List<GeoSegment> a = Arrays.asList(segments);
+				final List<GeoSegment> b = Arrays.asList(shifted);
+				measure("pairwise distanceTo 100 m x " + n, 1,
+						new Runnable() {
+					public void run() {
+						boolean within = false;
+						for(GeoSegment gs1 : a)
+							for(GeoSegment gs2 : b)
+								within |= gs1.distanceTo(gs2) <= 0.1;
+						sink_ = within;
+					}
+				});
+			}
+
+			// a geofence around the middle of the route, and one inside its
+			// bounding box but off the route
+			GeoPoint middle = segments[n / 2].getP1();
+			final GeoPolygon crossed = square(middle.getLatitude(),
+											  middle.getLongitude(), 500);
+			final GeoPolygon missed = square(middle.getLatitude(),
+											 middle.getLongitude() + 2000,
+											 500);
+			measure("Route.passesThrough (yes) x " + n, 1, new Runnable() {
+				public void run() {
+					sink_ = route.passesThrough(crossed);
+				}
+			});
+			measure("Route.passesThrough (no) x " + n, 1, new Runnable() {
+				public void run() {
+					sink_ = route.passesThrough(missed);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Benchmarks reversing and concatenating routes, as views and by adding
+	 * the segments one by one, and walking the segments of the views.
+	 */
+	private static void benchmarkViews() {
+		for(final int n : sizes()) {
+			GeoSegment[] segments = trace(n);
+			final Route route = new RouteBuilder().addAll(segments).build();
+			measure("Route.reverse x " + n, 1, new Runnable() {
+				public void run() {
+					sink_ = route.reverse();
+				}
+			});
+			measure("Route.concat (return trip) x " + n, 1, new Runnable() {
+				public void run() {
+					sink_ = route.concat(route.reverse());
+				}
+			});
+			final GeoSegment[] reversed = new GeoSegment[n];
+			for(int i = 0; i < n; i++)
+				reversed[i] = segments[n - 1 - i].reverse();
+			measure("addSegment reversed segments x " + n, 1,
+					new Runnable() {
+				public void run() {
+					Route r = new Route(reversed[0]);
+					for(int i = 1; i < n; i++)
+						r = r.addSegment(reversed[i]);
+					sink_ = r;
+				}
+			});
+			final Route trip = route.concat(route.reverse());
+			measure("getGeoSegments return trip view x " + n, 2 * n,
+					new Runnable() {
+				public void run() {
+					Iterator<GeoSegment> it = trip.getGeoSegments();
+					while(it.hasNext())
+						sink_ = it.next();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Returns a square polygon.
+	 * @return the GeoPolygon with sides of 2 * half millionths of degrees
+	 * 		   centered at (latitude, longitude).
+	 */
+	private static GeoPolygon square(int latitude, int longitude, int half) {
+		return new GeoPolygon(Arrays.asList(
+				new GeoPoint(latitude - half, longitude - half),
+				new GeoPoint(latitude - half, longitude + half),
+				new GeoPoint(latitude + half, longitude + half),
+				new GeoPoint(latitude + half, longitude - half)));
+	}
+
+	/**
+	 * Benchmarks comparing and hashing routes that are equal but share no
+	 * structure.
+	 */
+	private static void benchmarkEquality() {
+		for(final int n : sizes()) {
+			GeoSegment[] segments = trace(n);
+			GeoSegment[] copies = new GeoSegment[n];
+			for(int i = 0; i < n; i++)
+				copies[i] = new GeoSegment(segments[i]);
+			final Route route = new RouteBuilder().addAll(segments).build();
+			final Route copy = new RouteBuilder().addAll(copies).build();
+			measure("Route.equals x " + n, n, new Runnable() {
+				public void run() {
+					sink_ = route.equals(copy);
+				}
+			});
+			measure("Route.hashCode x " + n, 1, new Runnable() {
+				public void run() {
+					sink_ = route.hashCode();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Benchmarks formatting the directions of every feature of a route.
+	 */
+	private static void benchmarkComputeLine() {
+		final Route route = new RouteBuilder().addAll(trace(100000)).build();
+		final GeoFeature[] features = new GeoFeature[route.geoFeatureCount()];
+		for(int i = 0; i < features.length; i++)
+			features[i] = route.geoFeatureAt(i);
+		final DrivingRouteFormatter formatter = new DrivingRouteFormatter();
+		measure("DrivingRouteFormatter.computeLine", features.length,
+				new Runnable() {
+			public void run() {
+				double heading = 0;
+				int chars = 0;
+				for(GeoFeature gf : features) {
+					chars += formatter.computeLine(gf, heading).length();
+					heading = gf.getEndHeading();
+				}
+				sink_ = chars;
+			}
+		});
+		final StringBuilder out = new StringBuilder();
+		measure("DrivingRouteFormatter.writeDirections", features.length,
+				new Runnable() {
+			public void run() {
+				out.setLength(0);
+				try {
+					formatter.writeDirections(route, 0, out);
+				}
+				catch(IOException e) {
+					throw new AssertionError(e);
+				}
+				sink_ = out.length();
+			}
+		});
+
+		// lengths at and next to every tie between two tenths, where the
+		// hand-rolled rounding of appendKilometers is the most fragile, and
+		// random lengths, formatted the old way with DecimalFormat
+		DecimalFormat format = new DecimalFormat("##.#",
+				DecimalFormatSymbols.getInstance(Locale.ENGLISH));
+		Random random = new Random(42);
+		int checked = 0;
+		int mismatches = 0;
+		for(int k = 0; k < 200000; k++) {
+			double tie = (2 * k + 1) / 20.0;
+			double[] lengths = {tie, Math.nextDown(tie), Math.nextUp(tie),
+								k / 10.0, random.nextDouble() * 100};
+			for(double length : lengths) {
+				out.setLength(0);
+				try {
+					DrivingRouteFormatter.appendKilometers(length, out);
+				}
+				catch(IOException e) {
+					throw new AssertionError(e);
+				}
+				checked++;
+				if(!out.toString().equals(format.format(length)))
+					mismatches++;
+			}
+		}
+		System.out.println(String.format("%-40s %d lengths, %s",
+				"  appendKilometers vs DecimalFormat", checked,
+				(mismatches == 0) ? "all equal" :
+						mismatches + " ROUNDING MISMATCHES"));
+	}
+
+	/**
+	 * Benchmarks keeping the directions of a growing route up to date, one
+	 * segment at a time, which should cost the same per segment whatever
+	 * the length of the route, and checks that the lines built up are the
+	 * directions computed for the whole route.
+	 */
+	private static void benchmarkIncrementalDirections() {
+		final DrivingRouteFormatter formatter = new DrivingRouteFormatter();
+		for(final int n : chainSizes()) {
+			final GeoSegment[] segments = trace(n);
+			measure("IncrementalDirections.addSegment x " + n, n,
+					new Runnable() {
+				public void run() {
+					IncrementalDirections directions = new IncrementalDirections(
+							formatter, new Route(segments[0]), 0);
+					for(int i = 1; i < segments.length; i++)
+						directions.addSegment(segments[i]);
+					sink_ = directions;
+				}
+			});
+
+			// the lines built up incrementally are the directions of the
+			// whole route
+			IncrementalDirections directions = new IncrementalDirections(
+					formatter, new Route(segments[0]), 0);
+			for(int i = 1; i < segments.length; i++)
+				directions.addSegment(segments[i]);
+			boolean same = directions.getDirections().equals(
+					formatter.computeDirections(directions.getRoute(), 0));
+			System.out.println(String.format("%-40s %s",
+					"  directions x " + n, same ?
+					"equal to computeDirections" : "DIRECTIONS MISMATCH"));
+		}
+	}
+
+	/**
+	 * Benchmarks encoding and decoding streams of routes, over the smooth
+	 * zigzag of trace and over GPS-like traces with jumps.
+	 */
+	private static void benchmarkCodec() {
+		final int routes = 1000;
+		final int n = 1000;
+		Route[] originals = new Route[routes];
+		for(int r = 0; r < routes; r++)
+			originals[r] = new RouteBuilder().addAll(trace(n)).build();
+		benchmarkCodec("zigzag", originals, routes * n);
+		for(int r = 0; r < routes; r++)
+			originals[r] = new RouteBuilder().addAll(gpsTrace(n, r)).build();
+		benchmarkCodec("GPS", originals, routes * n);
+	}
+
+	/**
+	 * Benchmarks encoding and decoding a stream of routes, checks that every
+	 * route decodes to an equal one, and compares the size of the stream to
+	 * storing every segment as four ints and to Java serialization.
+	 * @requires trace != null && originals is not empty and holds no null
+	 * 			 and segments is the number of segments of originals
+	 */
+	private static void benchmarkCodec(String trace, final Route[] originals,
+									   int segments) {
+		final ByteBuffer buffer = ByteBuffer.allocate(64 * segments);
+		measure("RouteEncoder.encode " + trace + " x " + segments, segments,
+				new Runnable() {
+			public void run() {
+				buffer.clear();
+				RouteEncoder encoder = new RouteEncoder();
+				for(Route route : originals)
+					encoder.encode(route, buffer);
+				buffer.flip();
+			}
+		});
+		final Route[] decoded = new Route[originals.length];
+		measure("RouteDecoder.decodeRoute " + trace + " x " + segments,
+				segments, new Runnable() {
+			public void run() {
+				buffer.rewind();
+				RouteDecoder decoder = new RouteDecoder();
+				for(int r = 0; r < originals.length; r++)
+					decoded[r] = decoder.decodeRoute(buffer);
+			}
+		});
+		boolean equal = Arrays.equals(originals, decoded);
+		System.out.println(String.format("%-40s %12.2f B/segment  %.1fx " +
+				"smaller than 4 ints, %s", "  encoded size " + trace,
+				(double)buffer.limit() / segments,
+				16.0 * segments / buffer.limit(),
+				equal ? "round trip equal" : "ROUND TRIP MISMATCH"));
+		long serialized = serializedSize(originals);
+		System.out.println(String.format("%-40s %12.2f B/segment  %.1fx " +
+				"smaller encoded", "  serialized size " + trace,
+				(double)serialized / segments,
+				(double)serialized / buffer.limit()));
+	}
+
+	/**
+	 * A segment as a Java object would naturally hold it, to compare the
+	 * codec with Java serialization.
+	 */
+	private static final class SegmentRecord implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String name_;
+		private final int latitude1_;
+		private final int longitude1_;
+		private final int latitude2_;
+		private final int longitude2_;
+
+		/**
+		 * Constructs the record of a segment.
+		 * @requires name != null
+		 * @effects constructs the record of the segment named name from
+		 * 			(latitude1, longitude1) to (latitude2, longitude2).
+		 */
+		SegmentRecord(String name, int latitude1, int longitude1,
+					  int latitude2, int longitude2) {
+			this.name_ = name;
+			this.latitude1_ = latitude1;
+			this.longitude1_ = longitude1;
+			this.latitude2_ = latitude2;
+			this.longitude2_ = longitude2;
+		}
+	}
+
+	/**
+	 * Returns the size of a stream of routes written with Java
+	 * serialization, every route as a list of SegmentRecords. Equal names
+	 * are shared, so the stream writes each name once and refers to it
+	 * afterwards, as the dictionary of a RouteEncoder does.
+	 * @requires routes != null and holds no null
+	 * @return the number of bytes an ObjectOutputStream writes for the
+	 * 		   segment lists of routes.
+	 */
+	private static long serializedSize(Route[] routes) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Map<String, String> names = new HashMap<String, String>();
+		try(ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			for(Route route : routes) {
+				ArrayList<SegmentRecord> records =
+						new ArrayList<SegmentRecord>();
+				for(Iterator<GeoSegment> it = route.getGeoSegments();
+					it.hasNext(); ) {
+					GeoSegment gs = it.next();
+					String name = names.get(gs.getName());
+					if(name == null) {
+						name = gs.getName();
+						names.put(name, name);
+					}
+					GeoPoint p1 = gs.getP1();
+					GeoPoint p2 = gs.getP2();
+					records.add(new SegmentRecord(name, p1.getLatitude(),
+							p1.getLongitude(), p2.getLatitude(),
+							p2.getLongitude()));
+				}
+				out.writeObject(records);
+			}
+		}
+		catch(IOException e) {
+			throw new AssertionError(e);
+		}
+		return bytes.size();
+	}
+
+	/**
+	 * Compares the heap retained by a Route and by a PackedRoute of one
+	 * million segments.
+	 */
+	private static void benchmarkPackedRouteHeap() {
+		final int n = 1000000;
+		long before = usedHeap();
+		Route route = new RouteBuilder().addAll(trace(n)).build();
+		long routeBytes = usedHeap() - before;
+		sink_ = route;
+
+		before = usedHeap();
+		PackedRoute packed = new PackedRoute(route);
+		route = null;
+		sink_ = null;
+		long packedBytes = usedHeap() - before + routeBytes;
+		sink_ = packed;
+		System.out.println(String.format("%-40s %12.1f MB", "Route heap x " + n,
+				routeBytes / 1e6));
+		System.out.println(String.format("%-40s %12.1f MB  %.1fx smaller",
+				"PackedRoute heap x " + n, packedBytes / 1e6,
+				(double)routeBytes / packedBytes));
+		sink_ = null;
+	}
+
+	/**
+	 * Measures the heap retained by routes that copy the segments of the
+	 * same streets (as routes driven over one road network do), with and
+	 * without interning.
+	 */
+	private static void benchmarkInterningHeap() {
+		final int n = 100000;
+		final int routes = 10;
+		boolean enabled = Interning.isEnabled();
+		GeoSegment[] segments = trace(n);
+		for(boolean interning : new boolean[] {false, true}) {
+			Interning.setEnabled(interning);
+			long before = usedHeap();
+			Route[] copies = new Route[routes];
+			for(int r = 0; r < routes; r++) {
+				RouteBuilder builder = new RouteBuilder();
+				for(GeoSegment gs : segments)
+					builder.add(new GeoSegment(gs));
+				copies[r] = builder.build();
+			}
+			long bytes = usedHeap() - before;
+			sink_ = copies;
+			System.out.println(String.format("%-40s %12.1f MB",
+					routes + " copied routes x " + n + (interning ?
+							" interned" : ""), bytes / 1e6));
+			sink_ = null;
+		}
+		Interning.setEnabled(enabled);
+	}
+
+	/**
+	 * Benchmarks the length of a polyline over GeoPoints against the same
+	 * computation over packed points, and checks that they agree exactly.
+	 */
+	private static void benchmarkPackedGeometry() {
+		final int n = 1000000;
+		GeoSegment[] segments = trace(n);
+		final GeoPoint[] points = new GeoPoint[n + 1];
+		final long[] packed = new long[n + 1];
+		points[0] = segments[0].getP1();
+		for(int i = 0; i < n; i++)
+			points[i + 1] = segments[i].getP2();
+		for(int i = 0; i <= n; i++)
+			packed[i] = points[i].toPacked();
+
+		final double[] lengths = new double[2];
+		double objectNanos = time(new Runnable() {
+			public void run() {
+				double length = 0;
+				for(int i = 0; i < n; i++)
+					length += new GeoPoint(points[i].getLatitude(),
+							points[i].getLongitude()).distanceTo(points[i + 1]);
+				lengths[0] = length;
+			}
+		});
+		double packedNanos = time(new Runnable() {
+			public void run() {
+				double length = 0;
+				for(int i = 0; i < n; i++)
+					length += GeoPoint.distance(packed[i], packed[i + 1]);
+				lengths[1] = length;
+			}
+		});
+		report("GeoPoint.distanceTo x " + n, objectNanos, "");
+		report("GeoPoint.distance(long, long) x " + n, packedNanos,
+				(lengths[0] == lengths[1]) ? "exact match" : "MISMATCH");
+	}
+
+	/**
+	 * Returns the heap currently in use, after asking for a full collection.
+	 * @return the heap currently in use, in bytes.
+	 */
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Benchmarks building and reading a route at every validation level,
+	 * and reports the time spent in checkRep.
+	 * @requires assertions are enabled
+	 */
+	private static void benchmarkValidationLevels() {
+		final GeoSegment[] segments = trace(2000);
+		Validation.Level level = Validation.getLevel();
+		for(Validation.Level l : Validation.Level.values()) {
+			Validation.setLevel(l);
+			Runnable build = new Runnable() {
+				public void run() {
+					Route r = new Route(segments[0]);
+					for(int i = 1; i < segments.length; i++) {
+						r = r.addSegment(segments[i]);
+						sink_ = r.getEnd();
+					}
+				}
+			};
+			double nanos = time(build);
+
+			// count the checks of a single build
+			Validation.resetCounters();
+			build.run();
+			report("validation " + l + " x " + segments.length, nanos,
+					String.format("%d checks, %.3f ms in checkRep",
+							Validation.getCheckCount(),
+							Validation.getCheckNanos() / 1e6));
+		}
+		Validation.setLevel(level);
+	}
+
+	/**
+	 * Returns the route sizes to benchmark. Full validation walks the whole
+	 * route on every call, so the largest size is skipped under it.
+	 * @return the route sizes to benchmark, in segments.
+	 */
+	private static int[] sizes() {
+		if(assertionsEnabled() && Validation.getLevel() == Validation.Level.FULL)
+			return new int[] {1000, 10000};
+		return new int[] {1000, 10000, 100000};
+	}
+
+	/**
+	 * Returns the lengths of the addSegment chains to benchmark.
+	 * @return the lengths of the chains to benchmark, in segments.
+	 */
+	private static int[] chainSizes() {
+		if(assertionsEnabled() && Validation.getLevel() == Validation.Level.FULL)
+			return new int[] {10, 1000, 10000};
+		return new int[] {10, 1000, 100000};
+	}
+
+	/**
+	 * Returns a connected trace of segments that all have the same name.
+	 * @requires n >= 1
+	 * @return an array a of n segments such that a[i].p2 = a[i+1].p1 and
+	 * 		   a[i].name = a[i+1].name.
+	 */
+	static GeoSegment[] straightTrace(int n) {
+		GeoSegment[] segments = trace(n);
+		GeoSegment[] renamed = new GeoSegment[n];
+		for(int i = 0; i < n; i++)
+			renamed[i] = new GeoSegment("Street", segments[i].getP1(),
+										segments[i].getP2());
+		return renamed;
+	}
+
+	/**
+	 * Returns a connected trace of segments around the Technion, grouped in
+	 * runs of SEGMENTS_PER_FEATURE segments with the same name.
+	 * @requires n >= 1
+	 * @return an array a of n segments such that a[i].p2 = a[i+1].p1.
+	 */
+	static GeoSegment[] trace(int n) {
+		GeoSegment[] segments = new GeoSegment[n];
+		int latitude = 32780000;
+		int longitude = 35010000;
+		GeoPoint p1 = new GeoPoint(latitude, longitude);
+		for(int i = 0; i < n; i++) {
+			// a zigzag heading north east, so that headings change
+			latitude += 100 + (i % 7) * 10;
+			longitude += (i % 2 == 0) ? 150 : -60;
+			GeoPoint p2 = new GeoPoint(latitude, longitude);
+			segments[i] = new GeoSegment("Street " +
+					(i / SEGMENTS_PER_FEATURE), p1, p2);
+			p1 = p2;
+		}
+		return segments;
+	}
+
+	/**
+	 * Returns a GPS-like trace: steps of about 5 to 300 meters in a wandering
+	 * direction, an occasional jump of up to 20 kilometers (a tunnel, or a
+	 * lost fix), and streets of varying lengths whose names recur.
+	 * @requires n >= 1
+	 * @return n connected segments, the same for the same n and seed.
+	 */
+	static GeoSegment[] gpsTrace(int n, long seed) {
+		Random random = new Random(seed);
+		GeoSegment[] segments = new GeoSegment[n];
+		int latitude = 32780000;
+		int longitude = 35010000;
+		GeoPoint p1 = new GeoPoint(latitude, longitude);
+		double direction = 2 * Math.PI * random.nextDouble();
+		String name = null;
+		int left = 0;
+		for(int i = 0; i < n; i++) {
+			if(left == 0) {
+				String next;
+				do {
+					next = "Street " + random.nextInt(200);
+				} while(next.equals(name));
+				name = next;
+				left = 1 + random.nextInt(40);
+			}
+			left--;
+
+			// steps in millionths of degrees, about 0.1 meters each
+			direction += 0.3 * random.nextGaussian();
+			double step = (random.nextInt(50) == 0) ?
+					10000 + random.nextInt(190000) :
+					50 + random.nextInt(2950);
+			latitude += (int)Math.round(step * Math.cos(direction));
+			longitude += (int)Math.round(step * Math.sin(direction)) + 1;
+			GeoPoint p2 = new GeoPoint(latitude, longitude);
+			segments[i] = new GeoSegment(name, p1, p2);
+			p1 = p2;
+		}
+		return segments;
+	}
+
+	/**
+	 * Runs a task a few times and returns its best running time.
+	 * @requires task != null
+	 * @return the best running time of task, in nanoseconds, less the time
+	 * 		   the harness takes to run an empty task.
+	 */
+	static double time(Runnable task) {
+		return time(task, warmUp(task));
+	}
+
+	/**
+	 * Runs a task for WARMUP_NANOS, so that the JIT compiles it, and
+	 * estimates how many times it runs in a round.
+	 * @requires task != null
+	 * @return the number of runs of task that last about ROUND_NANOS, at
+	 * 		   least 1.
+	 */
+	private static long warmUp(Runnable task) {
+		long start = System.nanoTime();
+		long runs = 0;
+		long elapsed;
+		do {
+			task.run();
+			runs++;
+			elapsed = System.nanoTime() - start;
+		} while(elapsed < WARMUP_NANOS);
+		return Math.max(1, (long)Math.ceil(ROUND_NANOS * (double)runs /
+										   elapsed));
+	}
+
+	/**
+	 * Runs a few rounds of a task and returns its best time per run.
+	 * @requires task != null && runs >= 1
+	 * @return the best time of a run of task over MEASURED_ROUNDS rounds of
+	 * 		   runs runs each, in nanoseconds, less the time of an empty run.
+	 */
+	private static double time(Runnable task, long runs) {
+		return Math.max(0, bestTime(task, runs) - emptyNanos());
+	}
+
+	/**
+	 * Runs a few rounds of a task and returns its best time per run.
+	 * @requires task != null && runs >= 1
+	 * @return the best time of a run of task over MEASURED_ROUNDS rounds of
+	 * 		   runs runs each, in nanoseconds.
+	 */
+	private static double bestTime(Runnable task, long runs) {
+		long best = Long.MAX_VALUE;
+		for(int i = 0; i < MEASURED_ROUNDS; i++) {
+			long start = System.nanoTime();
+			for(long j = 0; j < runs; j++)
+				task.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return (double)best / runs;
+	}
+
+	/**
+	 * Returns the time the harness takes to run an empty task, measured on
+	 * first use.
+	 * @return the best time of a run of an empty task, in nanoseconds.
+	 */
+	private static double emptyNanos() {
+		if(emptyNanos_ < 0) {
+			Runnable empty = new Runnable() {
+				public void run() {
+				}
+			};
+			emptyNanos_ = bestTime(empty, warmUp(empty));
+		}
+		return emptyNanos_;
+	}
+
+	/**
+	 * Benchmarks a task and prints its time and allocation per operation.
+	 * The allocation is summed over all the threads, so tasks that run in
+	 * parallel count the allocation of their workers too.
+	 * @requires name != null && ops >= 1 && task != null
+	 * @return the best running time of task per operation, in nanoseconds.
+	 */
+	static double measure(String name, long ops, Runnable task) {
+		long runs = warmUp(task);
+		double nanos = time(task, runs);
+		Map<Long, Long> counters = allocationCounters();
+		for(long j = 0; j < runs; j++)
+			task.run();
+		long bytes = allocatedSince(counters);
+		if(bytes >= 0)
+			bytes = Math.max(0, bytes - counterBytes());
+		report(name, nanos, String.format("%10.1f ns/op %10.1f B/op",
+				nanos / ops, (bytes < 0) ? Double.NaN :
+											(double)bytes / runs / ops));
+		return nanos / ops;
+	}
+
+	/**
+	 * Returns the allocation counters of all the live threads.
+	 * @return a map from the id of every live thread to the number of bytes
+	 * 		   it allocated so far, or null if the JVM does not count them.
+	 */
+	private static Map<Long, Long> allocationCounters() {
+		java.lang.management.ThreadMXBean bean =
+				ManagementFactory.getThreadMXBean();
+		if(!(bean instanceof com.sun.management.ThreadMXBean))
+			return null;
+		long[] ids = bean.getAllThreadIds();
+		long[] bytes = ((com.sun.management.ThreadMXBean)bean)
+				.getThreadAllocatedBytes(ids);
+		Map<Long, Long> counters = new HashMap<Long, Long>();
+		for(int i = 0; i < ids.length; i++)
+			if(bytes[i] >= 0)
+				counters.put(ids[i], bytes[i]);
+		return counters;
+	}
+
+	/**
+	 * Returns the number of bytes allocated by all the threads since their
+	 * counters were read.
+	 * @requires before was returned by allocationCounters, or is null
+	 * @return the bytes allocated since before by the threads that are still
+	 * 		   alive (including threads started since), or a negative number
+	 * 		   if the JVM does not count them.
+	 */
+	private static long allocatedSince(Map<Long, Long> before) {
+		Map<Long, Long> after = allocationCounters();
+		if(before == null || after == null)
+			return -1;
+		long bytes = 0;
+		for(Map.Entry<Long, Long> e : after.entrySet()) {
+			Long start = before.get(e.getKey());
+			bytes += e.getValue() - ((start == null) ? 0 : start);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Returns the bytes that reading the allocation counters allocates
+	 * itself, measured on first use.
+	 * @return the fewest bytes counted between two reads of the counters
+	 * 		   with nothing in between.
+	 */
+	private static long counterBytes() {
+		if(counterBytes_ < 0) {
+			long fewest = Long.MAX_VALUE;
+			for(int i = 0; i < 10; i++)
+				fewest = Math.min(fewest,
+								  allocatedSince(allocationCounters()));
+			counterBytes_ = Math.max(0, fewest);
+		}
+		return counterBytes_;
+	}
+
+	/**
+	 * Prints a single benchmark result.
+	 * @requires name != null && details != null
+	 */
+	static void report(String name, double nanos, String details) {
+		System.out.println(String.format("%-40s %12.3f ms  %s", name,
+				nanos / 1e6, details));
+	}
+
+	/**
+	 * Returns whether assertions (and so checkRep) are enabled.
+	 * @return true iff assertions are enabled for this class.
+	 */
+	static boolean assertionsEnabled() {
+		boolean enabled = false;
+		assert enabled = true;
+		return enabled;
+	}
+}
@@ -0,0 +1,167 @@
+package homework1;
+
+import java.util.stream.Stream;
+
+/**
+ * A RouteBuilder accumulates properly oriented GeoSegments, and then
+ * freezes them into an immutable Route.
+ * <p>
+ * Segments are grouped into GeoFeatures in a single pass as they are added:
+ * a run of consecutive segments with the same name becomes one GeoFeature.
+ * Adding a segment does not create any intermediate Route or GeoFeature,
+ * and <tt>build</tt> does not copy the accumulated segments or features: the
+ * Route it returns shares them with the builder. The builder may keep being
+ * used after <tt>build</tt>; routes built earlier are not affected.
+ * <p>
+ * A RouteBuilder produces exactly the Route that would be obtained by
+ * constructing a Route from the first segment and calling
+ * <tt>addSegment</tt> with each of the others, in order.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   geoSegments : sequence	// the segments added so far
+ *   end : GeoPoint         // p2 of the last added segment
+ * </pre>
+ **/
+public class RouteBuilder {
+
+	private Spine<GeoFeature> geoFeatures_;
+	private int size_;
+	private GeoFeatureBuilder lastGeoFeature_;
+
+	// Abstraction Function :
+	// represents the route made of geoFeatures_[0, size_) followed by the
+	// geographic feature being built by lastGeoFeature_, which is still
+	// under construction.
+
+	// Representation Invariant :
+	// geoFeatures != null and size >= 0 and lastGeoFeature != null and
+	// (lastGeoFeature is empty => size = 0)
+
+
+	/**
+	 * Constructs a new, empty RouteBuilder.
+	 * @effects Constructs a new RouteBuilder b such that b.geoSegments is
+	 * 			empty.
+	 **/
+	public RouteBuilder() {
+		this.geoFeatures_ = new Spine<GeoFeature>();
+		this.size_ = 0;
+		this.lastGeoFeature_ = new GeoFeatureBuilder();
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (this.geoFeatures_ != null) && (this.size_ >= 0) &&
+			   (this.lastGeoFeature_ != null) &&
+			   (!this.lastGeoFeature_.isEmpty() || this.size_ == 0);
+	}
+
+	/**
+	 * Returns whether no segment was added to this builder.
+	 * @return true iff this.geoSegments is empty.
+	 */
+	public boolean isEmpty() {
+		checkRep();
+		return this.lastGeoFeature_.isEmpty();
+	}
+
+	/**
+	 * Returns the end of the route being built.
+	 * @return this.end, or null if no segment was added yet.
+	 */
+	public GeoPoint getEnd() {
+		checkRep();
+		return this.lastGeoFeature_.getEnd();
+	}
+
+	/**
+	 * Appends a segment to the route being built.
+	 * @requires gs != null && (this.geoSegments is empty || gs.p1 = this.end)
+	 * @modifies this
+	 * @effects appends gs to this.geoSegments.
+	 * @return this.
+	 **/
+	public RouteBuilder add(GeoSegment gs) {
+		checkRep();
+		assert gs != null;
+		GeoFeatureBuilder last = this.lastGeoFeature_;
+		if(!last.isEmpty()) {
+			assert gs.getP1().equals(last.getEnd());
+
+			// gs starts a new geographic feature, freeze the current one
+			if(!last.getName().equals(gs.getName())) {
+				GeoFeature gf = last.build();
+				this.geoFeatures_ = this.geoFeatures_.append(this.size_, gf,
+															 gf.getLength());
+				this.size_++;
+				last = new GeoFeatureBuilder();
+				this.lastGeoFeature_ = last;
+			}
+		}
+		last.add(gs);
+		checkRep();
+		return this;
+	}
+
+	/**
+	 * Appends segments to the route being built, in order.
+	 * @requires geoSegments != null and every segment satisfies the
+	 * 			 requirements of add when it is added.
+	 * @modifies this
+	 * @effects appends every segment of geoSegments to this.geoSegments.
+	 * @return this.
+	 **/
+	public RouteBuilder addAll(Iterable<GeoSegment> geoSegments) {
+		assert geoSegments != null;
+		for(GeoSegment gs : geoSegments)
+			add(gs);
+		return this;
+	}
+
+	/**
+	 * Appends segments to the route being built, in order.
+	 * @requires geoSegments != null and every segment satisfies the
+	 * 			 requirements of add when it is added.
+	 * @modifies this
+	 * @effects appends every segment of geoSegments to this.geoSegments.
+	 * @return this.
+	 **/
+	public RouteBuilder addAll(GeoSegment... geoSegments) {
+		assert geoSegments != null;
+		for(GeoSegment gs : geoSegments)
+			add(gs);
+		return this;
+	}
+
+	/**
+	 * Appends segments to the route being built, in the encounter order of
+	 * the given stream.
+	 * @requires geoSegments != null and every segment satisfies the
+	 * 			 requirements of add when it is added.
+	 * @modifies this
+	 * @effects appends every segment of geoSegments to this.geoSegments.
+	 * @return this.
+	 **/
+	public RouteBuilder addAll(Stream<GeoSegment> geoSegments) {
+		assert geoSegments != null;
+		geoSegments.forEachOrdered(this::add);
+		return this;
+	}
+
+	/**
+	 * Freezes the segments added so far into a Route.
+	 * @requires this.geoSegments is not empty
+	 * @return a new Route r such that r.geoSegments = this.geoSegments.
+	 **/
+	public Route build() {
+		checkRep();
+		assert !this.lastGeoFeature_.isEmpty();
+		return new Route(this.geoFeatures_, this.size_,
+						 this.lastGeoFeature_.build());
+	}
+}
@@ -0,0 +1,375 @@
+package homework1;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A RouteDecoder reads back the Routes, GeoFeatures and GeoSegments written
+ * by a RouteEncoder (see RouteEncoder for the format), from ByteBuffers or
+ * channels.
+ * <p>
+ * A decoder reads the records of a single stream, in order, keeping the
+ * same dictionary of names and last point as the encoder that wrote them.
+ * Every object it reads is equal to the object that was written.
+ * <p>
+ * Records are read whole: a record that is not complete yet in a buffer is
+ * left in it, so that a buffer being filled from the network can be read
+ * as its records arrive.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   names : sequence of String  // the dictionary of the stream so far
+ *   last : GeoPoint             // the last point read, initially (0, 0)
+ * </pre>
+ **/
+public class RouteDecoder {
+
+	private final List<String> names_;
+	private int lastLatitude_;
+	private int lastLongitude_;
+
+	// the bytes read from a channel and not decoded yet, between the
+	// position and the limit of buffer_
+	private ByteBuffer buffer_;
+
+	// Abstraction Function :
+	// represents the decoder whose dictionary is names_, and whose last
+	// point is (lastLatitude_, lastLongitude_).
+
+	// Representation Invariant :
+	// names != null and buffer != null
+
+
+	/**
+	 * Constructs a new RouteDecoder, at the start of a stream.
+	 * @effects Constructs a new RouteDecoder d such that d.names is empty
+	 * 			and d.last = (0, 0).
+	 **/
+	public RouteDecoder() {
+		this.names_ = new ArrayList<String>();
+		this.lastLatitude_ = 0;
+		this.lastLongitude_ = 0;
+		this.buffer_ = ByteBuffer.allocate(8192);
+		this.buffer_.flip();
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (this.names_ != null) && (this.buffer_ != null);
+	}
+
+	/**
+	 * Reads the record of a route from a buffer.
+	 * @requires in != null
+	 * @modifies this, in
+	 * @effects moves the position of in after the record at its position.
+	 * @return the route of the record at the position of in.
+	 * @throws BufferUnderflowException if the record is not complete in
+	 * 		   in, in which case neither this nor in is modified.
+	 * @throws IllegalArgumentException if the bytes are not a record.
+	 */
+	public Route decodeRoute(ByteBuffer in) {
+		assert in != null;
+		if(recordSize(in) < 0)
+			throw new BufferUnderflowException();
+		return decode(in);
+	}
+
+	/**
+	 * Reads the record of a geographic feature from a buffer.
+	 * @requires in != null
+	 * @modifies this, in
+	 * @effects moves the position of in after the record at its position.
+	 * @return the geographic feature of the record at the position of in.
+	 * @throws BufferUnderflowException if the record is not complete in
+	 * 		   in, in which case neither this nor in is modified.
+	 * @throws IllegalArgumentException if the bytes are not the record of
+	 * 		   a geographic feature.
+	 */
+	public GeoFeature decodeGeoFeature(ByteBuffer in) {
+		return geoFeatureOf(decodeRoute(in));
+	}
+
+	/**
+	 * Reads the record of a segment from a buffer.
+	 * @requires in != null
+	 * @modifies this, in
+	 * @effects moves the position of in after the record at its position.
+	 * @return the segment of the record at the position of in.
+	 * @throws BufferUnderflowException if the record is not complete in
+	 * 		   in, in which case neither this nor in is modified.
+	 * @throws IllegalArgumentException if the bytes are not the record of
+	 * 		   a segment.
+	 */
+	public GeoSegment decodeGeoSegment(ByteBuffer in) {
+		return geoSegmentOf(decodeRoute(in));
+	}
+
+	/**
+	 * Reads the record of a route from a channel.
+	 * @requires channel != null
+	 * @modifies this, channel
+	 * @return the route of the next record of channel, or null if channel
+	 * 		   is at its end.
+	 * @throws EOFException if channel ends in the middle of a record.
+	 * @throws IOException if channel throws it.
+	 * @throws IllegalArgumentException if the bytes are not a record.
+	 */
+	public Route readRoute(ReadableByteChannel channel) throws IOException {
+		assert channel != null;
+		return fill(channel) ? decode(this.buffer_) : null;
+	}
+
+	/**
+	 * Reads the record of a geographic feature from a channel.
+	 * @requires channel != null
+	 * @modifies this, channel
+	 * @return the geographic feature of the next record of channel, or null
+	 * 		   if channel is at its end.
+	 * @throws EOFException if channel ends in the middle of a record.
+	 * @throws IOException if channel throws it.
+	 * @throws IllegalArgumentException if the bytes are not the record of
+	 * 		   a geographic feature.
+	 */
+	public GeoFeature readGeoFeature(ReadableByteChannel channel)
+			throws IOException {
+		Route route = readRoute(channel);
+		return (route == null) ? null : geoFeatureOf(route);
+	}
+
+	/**
+	 * Reads the record of a segment from a channel.
+	 * @requires channel != null
+	 * @modifies this, channel
+	 * @return the segment of the next record of channel, or null if
+	 * 		   channel is at its end.
+	 * @throws EOFException if channel ends in the middle of a record.
+	 * @throws IOException if channel throws it.
+	 * @throws IllegalArgumentException if the bytes are not the record of
+	 * 		   a segment.
+	 */
+	public GeoSegment readGeoSegment(ReadableByteChannel channel)
+			throws IOException {
+		Route route = readRoute(channel);
+		return (route == null) ? null : geoSegmentOf(route);
+	}
+
+	/**
+	 * Decodes a whole stream made of a single route.
+	 * @requires bytes != null
+	 * @return the route of the only record of bytes, like
+	 * 		   RouteEncoder.toBytes wrote it.
+	 * @throws IllegalArgumentException if bytes are not a single record.
+	 */
+	public static Route fromBytes(byte[] bytes) {
+		ByteBuffer in = ByteBuffer.wrap(bytes);
+		if(recordSize(in) != bytes.length)
+			throw new IllegalArgumentException("not a single route record");
+		return new RouteDecoder().decode(in);
+	}
+
+	/**
+	 * Returns the geographic feature of a route made of a single one.
+	 * @throws IllegalArgumentException if route has several features.
+	 */
+	private static GeoFeature geoFeatureOf(Route route) {
+		if(route.geoFeatureCount() != 1)
+			throw new IllegalArgumentException("not a geographic feature");
+		return route.geoFeatureAt(0);
+	}
+
+	/**
+	 * Returns the segment of a route made of a single one.
+	 * @throws IllegalArgumentException if route has several segments.
+	 */
+	private static GeoSegment geoSegmentOf(Route route) {
+		GeoFeature geoFeature = geoFeatureOf(route);
+		if(geoFeature.segmentCount() != 1)
+			throw new IllegalArgumentException("not a segment");
+		return geoFeature.segmentAt(0);
+	}
+
+	/**
+	 * Reads from a channel until buffer_ holds a whole record.
+	 * @requires channel != null
+	 * @modifies this, channel
+	 * @return true iff buffer_ now starts with a whole record, or false if
+	 * 		   channel ended before the first byte of a record.
+	 * @throws EOFException if channel ends in the middle of a record.
+	 * @throws IOException if channel throws it.
+	 */
+	private boolean fill(ReadableByteChannel channel) throws IOException {
+		while(true) {
+			int size = recordSize(this.buffer_);
+			if(size >= 0)
+				return true;
+
+			// make room for the rest of the record, and read it
+			size = Math.max(-size, this.buffer_.remaining() + 1);
+			if(size > this.buffer_.capacity()) {
+				ByteBuffer buffer = ByteBuffer.allocate(Math.max(size,
+						2 * this.buffer_.capacity()));
+				buffer.put(this.buffer_);
+				this.buffer_ = buffer;
+			}
+			else
+				this.buffer_.compact();
+			int read = channel.read(this.buffer_);
+			this.buffer_.flip();
+			if(read < 0) {
+				if(!this.buffer_.hasRemaining())
+					return false;
+				throw new EOFException("route stream ends inside a record");
+			}
+		}
+	}
+
+	/**
+	 * Returns the size of the record at the position of a buffer.
+	 * @requires in != null
+	 * @return the number of bytes of the record at the position of in, with
+	 * 		   its length, if it is complete in in, or else minus the number of
+	 * 		   bytes known to be needed to complete it (at least 1).
+	 * @throws IllegalArgumentException if the length of the record is not
+	 * 		   a varint.
+	 */
+	static int recordSize(ByteBuffer in) {
+		int position = in.position();
+		int body = 0;
+		for(int i = 0; i < 5; i++) {
+			if(position + i >= in.limit())
+				return -(i + 1);
+			int b = in.get(position + i);
+			body |= (b & 0x7F) << (7 * i);
+			if((b & 0x80) == 0) {
+				if(body < 0)
+					break;
+				int size = i + 1 + body;
+				return (in.remaining() >= size) ? size : -size;
+			}
+		}
+		throw new IllegalArgumentException("bad route record length");
+	}
+
+	/**
+	 * Decodes a whole record.
+	 * @requires in starts with a whole record
+	 * @modifies this, in
+	 * @effects moves the position of in after the record.
+	 * @return the route of the record.
+	 * @throws IllegalArgumentException if the bytes are not a record.
+	 */
+	private Route decode(ByteBuffer in) {
+		int size = recordSize(in);
+		int end = in.position() + size;
+		getVarint(in);
+		try {
+			int features = getVarint(in);
+			if(features < 1)
+				throw new IllegalArgumentException("route without features");
+			RouteBuilder builder = new RouteBuilder();
+			GeoPoint p1 = getPoint(in);
+			for(int f = 0; f < features; f++) {
+				String name = getName(in);
+				int segments = getVarint(in);
+				if(segments < 1)
+					throw new IllegalArgumentException(
+							"geographic feature without segments");
+				for(int s = 0; s < segments; s++) {
+					GeoPoint p2 = getPoint(in);
+					builder.add(new GeoSegment(name, p1, p2));
+					p1 = p2;
+				}
+			}
+			if(in.position() != end)
+				throw new IllegalArgumentException("bad route record length");
+			checkRep();
+			return builder.build();
+		}
+		catch(BufferUnderflowException e) {
+			throw new IllegalArgumentException("bad route record length");
+		}
+	}
+
+	/**
+	 * Decodes a name, adding it to the dictionary if it is new.
+	 * @modifies this, in
+	 * @return the name at the position of in.
+	 */
+	private String getName(ByteBuffer in) {
+		int index = getVarint(in);
+		if(index >= 0 && index < this.names_.size())
+			return this.names_.get(index);
+		if(index != this.names_.size())
+			throw new IllegalArgumentException("unknown name " + index);
+		int length = getVarint(in);
+		if(length < 0 || length > in.remaining())
+			throw new IllegalArgumentException("bad name length");
+		String name;
+		if(in.hasArray()) {
+			name = new String(in.array(), in.arrayOffset() + in.position(),
+							  length, StandardCharsets.UTF_8);
+			in.position(in.position() + length);
+		}
+		else {
+			byte[] bytes = new byte[length];
+			in.get(bytes);
+			name = new String(bytes, StandardCharsets.UTF_8);
+		}
+		this.names_.add(name);
+		return name;
+	}
+
+	/**
+	 * Decodes a point from its difference to the last point.
+	 * @modifies this, in
+	 * @effects makes the point at the position of in the last point.
+	 * @return the point at the position of in.
+	 */
+	private GeoPoint getPoint(ByteBuffer in) {
+		int latitude = this.lastLatitude_ + unZigZag(getVarint(in));
+		int longitude = this.lastLongitude_ + unZigZag(getVarint(in));
+		if(latitude < GeoPoint.MIN_LATITUDE ||
+		   latitude > GeoPoint.MAX_LATITUDE ||
+		   longitude < GeoPoint.MIN_LONGITUDE ||
+		   longitude > GeoPoint.MAX_LONGITUDE)
+			throw new IllegalArgumentException("point out of range");
+		this.lastLatitude_ = latitude;
+		this.lastLongitude_ = longitude;
+		return new GeoPoint(latitude, longitude);
+	}
+
+	/**
+	 * Decodes an unsigned varint (see RouteEncoder).
+	 * @modifies in
+	 * @return the varint at the position of in, as an int.
+	 */
+	private static int getVarint(ByteBuffer in) {
+		int value = 0;
+		for(int shift = 0; shift < 35; shift += 7) {
+			int b = in.get();
+			value |= (b & 0x7F) << shift;
+			if((b & 0x80) == 0)
+				return value;
+		}
+		throw new IllegalArgumentException("bad varint");
+	}
+
+	/**
+	 * Reverses RouteEncoder.zigZag.
+	 * @return value such that RouteEncoder.zigZag(value) = zigZag.
+	 */
+	static int unZigZag(int zigZag) {
+		return (zigZag >>> 1) ^ -(zigZag & 1);
+	}
+}
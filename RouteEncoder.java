@@ -0,0 +1,417 @@
+package homework1;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A RouteEncoder writes Routes, GeoFeatures and GeoSegments in a compact
+ * binary format, into ByteBuffers or channels, to be read back by a
+ * RouteDecoder.
+ * <p>
+ * An encoder writes a stream of records, one per object written. A record
+ * is its length, as a varint, followed by:
+ * <pre>
+ *   varint featureCount
+ *   point start
+ *   featureCount times:
+ *     name, varint segmentCount, segmentCount points (the segment ends)
+ * </pre>
+ * Consecutive segments share their endpoints, so every point is stored
+ * once, as the zig-zag varint differences of its latitude and longitude
+ * (in millionths of degrees) from the previous point of the stream. A name
+ * is a varint index into a dictionary shared by all the records of the
+ * stream; a name that is not in the dictionary yet is written as the next
+ * index, followed by the varint length and the UTF-8 bytes of the name,
+ * and added to it.
+ * <p>
+ * Since the records of a stream depend on each other, they must be read,
+ * in order, by a single RouteDecoder. A segment of a city route usually
+ * takes 2 to 4 bytes.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   names : sequence of String  // the dictionary of the stream so far
+ *   last : GeoPoint             // the last point written, initially (0, 0)
+ * </pre>
+ **/
+public class RouteEncoder {
+
+	private final Map<String, Integer> names_;
+	private int lastLatitude_;
+	private int lastLongitude_;
+
+	// the record being encoded is record_[0 .. size_ - 1]; its body starts
+	// at 5, leaving room for its length. To roll it back, addedNames_ are
+	// the names it added to the dictionary, and the last point before it
+	// was (beginLatitude_, beginLongitude_).
+	private byte[] record_;
+	private int size_;
+	private final List<String> addedNames_;
+	private int beginLatitude_;
+	private int beginLongitude_;
+
+	// Abstraction Function :
+	// represents the encoder whose dictionary maps names_[i] to i, and whose
+	// last point is (lastLatitude_, lastLongitude_).
+
+	// Representation Invariant :
+	// names != null and the values of names are 0 .. names.size() - 1 and
+	// record != null and 0 <= size <= record.length and addedNames != null
+
+
+	/**
+	 * Constructs a new RouteEncoder, at the start of a stream.
+	 * @effects Constructs a new RouteEncoder e such that e.names is empty
+	 * 			and e.last = (0, 0).
+	 **/
+	public RouteEncoder() {
+		this.names_ = new HashMap<String, Integer>();
+		this.lastLatitude_ = 0;
+		this.lastLongitude_ = 0;
+		this.record_ = new byte[256];
+		this.size_ = 0;
+		this.addedNames_ = new ArrayList<String>();
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (this.names_ != null) && (this.record_ != null) &&
+			   (0 <= this.size_) && (this.size_ <= this.record_.length) &&
+			   (this.addedNames_ != null);
+	}
+
+	/**
+	 * Writes the record of a route into a buffer.
+	 * @requires route != null && out != null
+	 * @modifies this, out
+	 * @effects puts the record of route at the position of out, and moves
+	 * 			its position after it.
+	 * @throws BufferOverflowException if the record does not fit in the
+	 * 		   remaining bytes of out, in which case neither this nor out is
+	 * 		   modified.
+	 */
+	public void encode(Route route, ByteBuffer out) {
+		assert (route != null) && (out != null);
+		encodeRoute(route);
+		put(out);
+	}
+
+	/**
+	 * Writes the record of a geographic feature into a buffer.
+	 * @requires geoFeature != null && out != null
+	 * @modifies this, out
+	 * @effects puts the record of geoFeature at the position of out, and
+	 * 			moves its position after it.
+	 * @throws BufferOverflowException if the record does not fit in the
+	 * 		   remaining bytes of out, in which case neither this nor out is
+	 * 		   modified.
+	 */
+	public void encode(GeoFeature geoFeature, ByteBuffer out) {
+		assert (geoFeature != null) && (out != null);
+		encodeGeoFeature(geoFeature);
+		put(out);
+	}
+
+	/**
+	 * Writes the record of a segment into a buffer.
+	 * @requires geoSegment != null && out != null
+	 * @modifies this, out
+	 * @effects puts the record of geoSegment at the position of out, and
+	 * 			moves its position after it.
+	 * @throws BufferOverflowException if the record does not fit in the
+	 * 		   remaining bytes of out, in which case neither this nor out is
+	 * 		   modified.
+	 */
+	public void encode(GeoSegment geoSegment, ByteBuffer out) {
+		assert (geoSegment != null) && (out != null);
+		encodeGeoSegment(geoSegment);
+		put(out);
+	}
+
+	/**
+	 * Writes the record of a route to a channel.
+	 * @requires route != null && channel != null
+	 * @modifies this, channel
+	 * @effects writes the record of route to channel.
+	 * @throws IOException if channel throws it.
+	 */
+	public void write(Route route, WritableByteChannel channel)
+			throws IOException {
+		assert (route != null) && (channel != null);
+		encodeRoute(route);
+		write(channel);
+	}
+
+	/**
+	 * Writes the record of a geographic feature to a channel.
+	 * @requires geoFeature != null && channel != null
+	 * @modifies this, channel
+	 * @effects writes the record of geoFeature to channel.
+	 * @throws IOException if channel throws it.
+	 */
+	public void write(GeoFeature geoFeature, WritableByteChannel channel)
+			throws IOException {
+		assert (geoFeature != null) && (channel != null);
+		encodeGeoFeature(geoFeature);
+		write(channel);
+	}
+
+	/**
+	 * Writes the record of a segment to a channel.
+	 * @requires geoSegment != null && channel != null
+	 * @modifies this, channel
+	 * @effects writes the record of geoSegment to channel.
+	 * @throws IOException if channel throws it.
+	 */
+	public void write(GeoSegment geoSegment, WritableByteChannel channel)
+			throws IOException {
+		assert (geoSegment != null) && (channel != null);
+		encodeGeoSegment(geoSegment);
+		write(channel);
+	}
+
+	/**
+	 * Encodes a whole stream made of a single route.
+	 * @requires route != null
+	 * @return the bytes of a stream whose only record is the record of
+	 * 		   route.
+	 */
+	public static byte[] toBytes(Route route) {
+		RouteEncoder encoder = new RouteEncoder();
+		encoder.encodeRoute(route);
+		ByteBuffer out = ByteBuffer.allocate(encoder.recordSize());
+		encoder.put(out);
+		return out.array();
+	}
+
+	/**
+	 * Encodes the body of the record of a route into record_.
+	 * @requires route != null
+	 * @modifies this
+	 */
+	private void encodeRoute(Route route) {
+		begin();
+		int features = route.geoFeatureCount();
+		putVarint(features);
+		putPoint(route.getStart());
+		for(int i = 0; i < features; i++)
+			putFeature(route.geoFeatureAt(i));
+	}
+
+	/**
+	 * Encodes the body of the record of a geographic feature into record_.
+	 * @requires geoFeature != null
+	 * @modifies this
+	 */
+	private void encodeGeoFeature(GeoFeature geoFeature) {
+		begin();
+		putVarint(1);
+		putPoint(geoFeature.getStart());
+		putFeature(geoFeature);
+	}
+
+	/**
+	 * Encodes the body of the record of a segment into record_.
+	 * @requires geoSegment != null
+	 * @modifies this
+	 */
+	private void encodeGeoSegment(GeoSegment geoSegment) {
+		begin();
+		putVarint(1);
+		putPoint(geoSegment.getP1());
+		putName(geoSegment.getName());
+		putVarint(1);
+		putPoint(geoSegment.getP2());
+	}
+
+	/**
+	 * Encodes a geographic feature, after the point it starts at.
+	 * @requires geoFeature != null
+	 * @modifies this
+	 */
+	private void putFeature(GeoFeature geoFeature) {
+		putName(geoFeature.getName());
+		int segments = geoFeature.segmentCount();
+		putVarint(segments);
+		for(int i = 0; i < segments; i++)
+			putPoint(geoFeature.segmentAt(i).getP2());
+	}
+
+	/**
+	 * Starts encoding a record.
+	 * @modifies this
+	 * @effects empties record_, and reserves room for the longest length
+	 * 			of a record before its body.
+	 */
+	private void begin() {
+		this.size_ = 5;
+		this.addedNames_.clear();
+		this.beginLatitude_ = this.lastLatitude_;
+		this.beginLongitude_ = this.lastLongitude_;
+	}
+
+	/**
+	 * Returns the size of the record encoded in record_.
+	 * @return the number of bytes of the record, with its length.
+	 */
+	private int recordSize() {
+		int body = this.size_ - 5;
+		return varintSize(body) + body;
+	}
+
+	/**
+	 * Writes the record encoded in record_ into a buffer.
+	 * @requires a record was just encoded
+	 * @modifies this, out
+	 * @effects puts the record at the position of out, and moves its
+	 * 			position after it.
+	 * @throws BufferOverflowException if the record does not fit in the
+	 * 		   remaining bytes of out, in which case the record is rolled
+	 * 		   back: the dictionary and the last point are as they were
+	 * 		   before it.
+	 */
+	private void put(ByteBuffer out) {
+		if(out.remaining() < recordSize()) {
+			for(String name : this.addedNames_)
+				this.names_.remove(name);
+			this.lastLatitude_ = this.beginLatitude_;
+			this.lastLongitude_ = this.beginLongitude_;
+			checkRep();
+			throw new BufferOverflowException();
+		}
+		int start = prefixLength();
+		out.put(this.record_, start, this.size_ - start);
+		checkRep();
+	}
+
+	/**
+	 * Writes the record encoded in record_ to a channel.
+	 * @requires a record was just encoded
+	 * @modifies channel
+	 * @effects writes the record to channel.
+	 * @throws IOException if channel throws it.
+	 */
+	private void write(WritableByteChannel channel) throws IOException {
+		int start = prefixLength();
+		ByteBuffer record = ByteBuffer.wrap(this.record_, start,
+											this.size_ - start);
+		while(record.hasRemaining())
+			channel.write(record);
+		checkRep();
+	}
+
+	/**
+	 * Writes the length of the record encoded in record_ just before its
+	 * body.
+	 * @requires a record was just encoded
+	 * @modifies this
+	 * @return the index in record_ where the record, with its length,
+	 * 		   starts.
+	 */
+	private int prefixLength() {
+		int body = this.size_ - 5;
+		int start = 5 - varintSize(body);
+		int end = this.size_;
+		this.size_ = start;
+		putVarint(body);
+		this.size_ = end;
+		return start;
+	}
+
+	/**
+	 * Encodes a name, adding it to the dictionary if it is new.
+	 * @requires name != null
+	 * @modifies this
+	 */
+	private void putName(String name) {
+		Integer index = this.names_.get(name);
+		if(index != null) {
+			putVarint(index);
+			return;
+		}
+		int next = this.names_.size();
+		this.names_.put(name, next);
+		this.addedNames_.add(name);
+		putVarint(next);
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		putVarint(bytes.length);
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, this.record_, this.size_, bytes.length);
+		this.size_ += bytes.length;
+	}
+
+	/**
+	 * Encodes a point as its difference from the last point.
+	 * @requires gp != null
+	 * @modifies this
+	 * @effects encodes gp and makes it the last point.
+	 */
+	private void putPoint(GeoPoint gp) {
+		int latitude = gp.getLatitude();
+		int longitude = gp.getLongitude();
+		putVarint(zigZag(latitude - this.lastLatitude_));
+		putVarint(zigZag(longitude - this.lastLongitude_));
+		this.lastLatitude_ = latitude;
+		this.lastLongitude_ = longitude;
+	}
+
+	/**
+	 * Encodes an unsigned varint: 7 bits per byte, least significant first,
+	 * with the high bit set on every byte but the last.
+	 * @modifies this
+	 * @effects appends the varint of value, taken as unsigned, to record_.
+	 */
+	private void putVarint(int value) {
+		ensureCapacity(5);
+		while((value & ~0x7F) != 0) {
+			this.record_[this.size_++] = (byte)((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		this.record_[this.size_++] = (byte)value;
+	}
+
+	/**
+	 * Makes room in record_.
+	 * @modifies this
+	 * @effects grows record_ so that at least bytes more bytes fit in it.
+	 */
+	private void ensureCapacity(int bytes) {
+		if(this.size_ + bytes > this.record_.length)
+			this.record_ = Arrays.copyOf(this.record_,
+					Math.max(2 * this.record_.length, this.size_ + bytes));
+	}
+
+	/**
+	 * Returns the size of a varint.
+	 * @return the number of bytes of the varint of value, taken as unsigned.
+	 */
+	static int varintSize(int value) {
+		int size = 1;
+		while((value & ~0x7F) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	/**
+	 * Maps a signed difference to an unsigned number, small differences of
+	 * either sign to small numbers.
+	 * @return 2 * value if value >= 0, or -2 * value - 1 otherwise.
+	 */
+	static int zigZag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+}
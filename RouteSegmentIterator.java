@@ -0,0 +1,218 @@
+package homework1;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A RouteSegmentIterator walks the GeoSegments of a Route in order, going
+ * through the segments of each of its GeoFeatures in place, without copying
+ * them into another collection.
+ * <p>
+ * It serves both as the Iterator returned by <tt>Route.getGeoSegments</tt>
+ * (which does not support removal, since Routes are immutable) and as the
+ * Spliterator returned by <tt>Route.getGeoSegmentSpliterator</tt>, which
+ * splits by ranges of features (or of segments within a feature) so that
+ * routes can be processed by parallel streams.
+ * <p>
+ * A RouteSegmentIterator covers the segments between two positions of a
+ * route, where a position is a feature index and a segment index within
+ * that feature.
+ */
+final class RouteSegmentIterator implements Iterator<GeoSegment>,
+											Spliterator<GeoSegment> {
+
+	private final Route route_;
+	private int feature_;
+	private int segment_;
+	private final int endFeature_;
+	private final int endSegment_;
+
+	// the feature at index feature_, or null if it was not fetched yet
+	private GeoFeature geoFeature_;
+
+	// Abstraction Function :
+	// represents the remaining segments of route_, which are the segments
+	// from position (feature_, segment_) inclusive up to position
+	// (endFeature_, endSegment_) exclusive.
+
+	// Representation Invariant :
+	// route != null and 0 <= feature <= endFeature < route.geoFeatureCount()
+	// and 0 <= segment <= route.geoFeatureAt(feature).segmentCount()
+	// and 0 <= endSegment <= route.geoFeatureAt(endFeature).segmentCount()
+
+
+	/**
+	 * Constructs an iterator over all the segments of a route.
+	 * @requires route != null
+	 * @effects Constructs an iterator over all the segments of route.
+	 */
+	RouteSegmentIterator(Route route) {
+		this(route, 0, 0, route.geoFeatureCount() - 1, route.geoFeatureAt(
+				route.geoFeatureCount() - 1).segmentCount());
+	}
+
+	/**
+	 * Constructs an iterator over the segments between two positions of a
+	 * route.
+	 * @requires route != null and the positions satisfy the representation
+	 * 			 invariant
+	 * @effects Constructs an iterator over the segments of route from
+	 * 			position (feature, segment) up to position
+	 * 			(endFeature, endSegment), exclusive.
+	 */
+	private RouteSegmentIterator(Route route, int feature, int segment,
+								 int endFeature, int endSegment) {
+		this.route_ = route;
+		this.feature_ = feature;
+		this.segment_ = segment;
+		this.endFeature_ = endFeature;
+		this.endSegment_ = endSegment;
+		this.geoFeature_ = null;
+	}
+
+	/**
+	 * Returns the feature at the current position, moving the current
+	 * position past features whose segments were all visited.
+	 * @modifies this
+	 * @return the feature at the current position.
+	 */
+	private GeoFeature currentGeoFeature() {
+		GeoFeature gf = this.geoFeature_;
+		if(gf == null) {
+			gf = this.route_.geoFeatureAt(this.feature_);
+			this.geoFeature_ = gf;
+		}
+		while(this.feature_ < this.endFeature_ &&
+			  this.segment_ >= gf.segmentCount()) {
+			this.feature_++;
+			this.segment_ = 0;
+			gf = this.route_.geoFeatureAt(this.feature_);
+			this.geoFeature_ = gf;
+		}
+		return gf;
+	}
+
+	/**
+	 * Returns whether the iteration has more segments.
+	 * @return true iff the iteration has more segments.
+	 */
+	public boolean hasNext() {
+		GeoFeature gf = currentGeoFeature();
+		return (this.feature_ < this.endFeature_) ?
+				this.segment_ < gf.segmentCount() :
+				this.segment_ < this.endSegment_;
+	}
+
+	/**
+	 * Returns the next segment of the iteration.
+	 * @modifies this
+	 * @return the next segment of the iteration.
+	 * @throws NoSuchElementException if the iteration has no more segments.
+	 */
+	public GeoSegment next() {
+		if(!hasNext())
+			throw new NoSuchElementException();
+		return this.geoFeature_.segmentAt(this.segment_++);
+	}
+
+	/**
+	 * Passes the next segment to an action, if there is one.
+	 * @requires action != null
+	 * @modifies this
+	 * @return true iff there was a next segment.
+	 */
+	public boolean tryAdvance(Consumer<? super GeoSegment> action) {
+		if(!hasNext())
+			return false;
+		action.accept(this.geoFeature_.segmentAt(this.segment_++));
+		return true;
+	}
+
+	/**
+	 * Passes every remaining segment to an action, in order.
+	 * @requires action != null
+	 * @modifies this
+	 */
+	public void forEachRemaining(Consumer<? super GeoSegment> action) {
+		while(hasNext()) {
+			GeoFeature gf = this.geoFeature_;
+			int end = (this.feature_ < this.endFeature_) ? gf.segmentCount() :
+														   this.endSegment_;
+			for(int i = this.segment_; i < end; i++)
+				action.accept(gf.segmentAt(i));
+			this.segment_ = end;
+		}
+	}
+
+	/**
+	 * Splits off a prefix of the remaining segments.
+	 * @modifies this
+	 * @return an iterator over a prefix of the remaining segments, which
+	 * 		   this iterator no longer covers, or null if the remaining
+	 * 		   segments are too few to split.
+	 */
+	public Spliterator<GeoSegment> trySplit() {
+		GeoFeature gf = currentGeoFeature();
+		int feature = this.feature_;
+		int segment = this.segment_;
+		RouteSegmentIterator prefix;
+
+		if(this.endFeature_ - feature >= 2) {
+			// split the features in halves
+			int middle = (feature + this.endFeature_) >>> 1;
+			prefix = new RouteSegmentIterator(this.route_, feature, segment,
+											  middle, 0);
+			this.feature_ = middle;
+			this.segment_ = 0;
+			this.geoFeature_ = null;
+			return prefix;
+		}
+
+		// split the segments of the current feature in halves
+		int end = (feature < this.endFeature_) ? gf.segmentCount() :
+												 this.endSegment_;
+		if(end - segment >= 2) {
+			int middle = (segment + end) >>> 1;
+			prefix = new RouteSegmentIterator(this.route_, feature, segment,
+											  feature, middle);
+			this.segment_ = middle;
+			return prefix;
+		}
+
+		// split off the last segment of the current feature from the next one
+		if(feature < this.endFeature_ && segment < end &&
+		   this.endSegment_ > 0) {
+			prefix = new RouteSegmentIterator(this.route_, feature, segment,
+											  feature, end);
+			this.feature_ = feature + 1;
+			this.segment_ = 0;
+			this.geoFeature_ = null;
+			return prefix;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns an estimate of the number of remaining segments.
+	 * @return the exact number of remaining segments when they belong to a
+	 * 		   single feature, otherwise an estimate assuming every remaining
+	 * 		   feature has as many segments as the current one.
+	 */
+	public long estimateSize() {
+		GeoFeature gf = currentGeoFeature();
+		if(this.feature_ == this.endFeature_)
+			return Math.max(0, this.endSegment_ - this.segment_);
+		return (long)(gf.segmentCount() - this.segment_) +
+			   (long)(this.endFeature_ - this.feature_) * gf.segmentCount();
+	}
+
+	/**
+	 * Returns the characteristics of this spliterator.
+	 * @return ORDERED | NONNULL | IMMUTABLE
+	 */
+	public int characteristics() {
+		return ORDERED | NONNULL | IMMUTABLE;
+	}
+}
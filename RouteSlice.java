@@ -0,0 +1,135 @@
+package homework1;
+
+/**
+ * A RouteSlice is a view of a part of a Route, between two distances along
+ * it, as returned by <tt>Route.slice</tt>.
+ * <p>
+ * The slice shares the geographic features of the route it views: it
+ * holds the route, the range of its features the slice covers, and the two
+ * cut features (GeoFeatureSlices) that replace the first and last feature
+ * of that range. So a slice is built in constant time once the cuts are
+ * found, whatever the length of the route, and its prefix lengths come
+ * from the prefix sums of the route.
+ */
+final class RouteSlice extends Route {
+
+	private final Route base_;
+	private final int from_;
+	private final int to_;
+	private final GeoFeature head_;
+	private final GeoFeature tail_;
+	private final double length_;
+
+	// base_.lengthTo(from_ + 1), the prefix of base_ the slice starts after
+	// (besides head_), so lengthTo asks base_ for a single prefix sum
+	private final double offset_;
+
+	// Abstraction Function :
+	// represents the route whose geographic features are head_,
+	// base_.geoFeatureAt(from_ + 1), ..., base_.geoFeatureAt(to_ - 2),
+	// tail_, or only head_ (= tail_) when to_ = from_ + 1.
+
+	// Representation Invariant :
+	// base != null and 0 <= from < to <= base.geoFeatureCount() and
+	// head != null and tail != null and (to = from + 1 => head = tail) and
+	// head has the name and end of base[from] and tail has the name and
+	// start of base[to - 1] when to > from + 1, and length is the sum of
+	// the lengths of the features and
+	// offset = base.lengthTo(from + 1)
+
+
+	/**
+	 * Constructs a view of a range of the features of a route.
+	 * @requires base != null && 0 <= from < to <= base.geoFeatureCount()
+	 * 			 and head and tail satisfy the representation invariant
+	 * @effects Constructs the route whose geographic features are
+	 * 			base[from, to), with head instead of base[from] and tail
+	 * 			instead of base[to - 1].
+	 */
+	RouteSlice(Route base, int from, int to, GeoFeature head,
+			   GeoFeature tail) {
+		this.base_ = base;
+		this.from_ = from;
+		this.to_ = to;
+		this.head_ = head;
+		this.tail_ = tail;
+		this.offset_ = base.lengthTo(from + 1);
+		this.length_ = (to == from + 1) ? head.getLength() :
+				head.getLength() + (base.lengthTo(to - 1) - this.offset_) +
+				tail.getLength();
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (this.base_ != null) && (0 <= this.from_) &&
+			   (this.from_ < this.to_) &&
+			   (this.to_ <= this.base_.geoFeatureCount()) &&
+			   (this.head_ != null) && (this.tail_ != null) &&
+			   ((this.to_ > this.from_ + 1) || (this.head_ == this.tail_));
+	}
+
+	/**
+	 * Returns the number of geographic features of this route.
+	 * @return the number of geographic features of this route.
+	 */
+	int geoFeatureCount() {
+		return this.to_ - this.from_;
+	}
+
+	/**
+	 * Returns the total length of a prefix of this route.
+	 * @requires 0 <= count <= geoFeatureCount()
+	 * @return the sum of the lengths of the first count geographic features
+	 * 		   of this route, in kilometers.
+	 */
+	double lengthTo(int count) {
+		if(count == 0)
+			return 0;
+		if(count == this.to_ - this.from_)
+			return this.length_;
+		return this.head_.getLength() + (this.base_.lengthTo(
+				this.from_ + count) - this.offset_);
+	}
+
+	/**
+	 * Returns the geographic feature at the given position of this route.
+	 * @requires 0 <= index < geoFeatureCount()
+	 * @return the geographic feature at the given position of this route.
+	 */
+	GeoFeature geoFeatureAt(int index) {
+		if(index == 0)
+			return this.head_;
+		if(index == this.to_ - this.from_ - 1)
+			return this.tail_;
+		return this.base_.geoFeatureAt(this.from_ + index);
+	}
+
+	/**
+	 * Returns how many views lie between this route and the spines holding
+	 * its geographic features.
+	 * @return one more than the view depth of the viewed route.
+	 */
+	int viewDepth() {
+		return this.base_.viewDepth() + 1;
+	}
+
+	/**
+	 * Returns a view of a range of the geographic features of this route.
+	 * A slice of a slice is a slice of the same base, so slicing a slice
+	 * again and again does not nest views.
+	 * @requires 0 <= from < to <= geoFeatureCount() and head and tail are
+	 * 			 cut from geoFeatureAt(from) and geoFeatureAt(to - 1) as for
+	 * 			 a RouteSlice
+	 * @return a RouteSlice of base_ whose geographic features are
+	 * 		   this[from, to), with head instead of this[from] and tail
+	 * 		   instead of this[to - 1].
+	 */
+	Route sliceView(int from, int to, GeoFeature head, GeoFeature tail) {
+		return new RouteSlice(this.base_, this.from_ + from,
+							  this.from_ + to, head, tail);
+	}
+}
@@ -0,0 +1,129 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A SearchScratch holds the per-node working state of a shortest path
+ * search over a RoadGraph, so that searches allocate nothing per query.
+ * <p>
+ * Instead of clearing its arrays before every search (which would cost
+ * O(nodes) per query), a SearchScratch stamps every entry it writes with
+ * the current generation, and treats entries with an older stamp as unset.
+ * Starting a new search only increments the generation.
+ * <p>
+ * A SearchScratch is not safe for concurrent use; RoadGraph keeps one per
+ * thread.
+ */
+final class SearchScratch {
+
+	private final double[] distance_;
+	private final int[] parentEdge_;
+	private final int[] stamp_;
+	private final boolean[] closed_;
+	private int generation_;
+	private final MinHeap queue_;
+
+	// Abstraction Function :
+	// represents a partial map from the nodes 0..distance.length - 1 to
+	// (distance, parentEdge, closed), where node v is mapped iff
+	// stamp[v] = generation.
+
+	// Representation Invariant :
+	// distance.length = parentEdge.length = stamp.length = closed.length
+	// and queue != null and every stamp[v] <= generation
+
+
+	/**
+	 * Constructs a scratch for searches over a graph.
+	 * @requires nodes >= 0
+	 * @effects constructs a scratch for searches over graphs of the given
+	 * 			number of nodes, in which no node is mapped.
+	 */
+	SearchScratch(int nodes) {
+		this.distance_ = new double[nodes];
+		this.parentEdge_ = new int[nodes];
+		this.stamp_ = new int[nodes];
+		this.closed_ = new boolean[nodes];
+		this.generation_ = 0;
+		this.queue_ = new MinHeap(64);
+	}
+
+	/**
+	 * Starts a new search.
+	 * @modifies this
+	 * @effects no node is mapped and the queue is empty.
+	 */
+	void reset() {
+		this.queue_.clear();
+		if(++this.generation_ == Integer.MAX_VALUE) {
+			// wrap around before the stamps become ambiguous
+			Arrays.fill(this.stamp_, 0);
+			this.generation_ = 1;
+		}
+	}
+
+	/**
+	 * Returns the queue of the current search.
+	 * @return the queue of the current search.
+	 */
+	MinHeap queue() {
+		return this.queue_;
+	}
+
+	/**
+	 * Returns whether a node was reached by the current search.
+	 * @return true iff node is mapped.
+	 */
+	boolean isReached(int node) {
+		return this.stamp_[node] == this.generation_;
+	}
+
+	/**
+	 * Returns the best known distance to a node.
+	 * @return the distance node is mapped to, or positive infinity if node
+	 * 		   is not mapped.
+	 */
+	double distance(int node) {
+		return isReached(node) ? this.distance_[node] :
+								 Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Returns the edge through which a node was reached.
+	 * @requires isReached(node)
+	 * @return the parent edge node is mapped to, or -1 for the source.
+	 */
+	int parentEdge(int node) {
+		return this.parentEdge_[node];
+	}
+
+	/**
+	 * Returns whether the distance to a node is final.
+	 * @return true iff node is mapped and closed.
+	 */
+	boolean isClosed(int node) {
+		return isReached(node) && this.closed_[node];
+	}
+
+	/**
+	 * Records a better distance to a node.
+	 * @modifies this
+	 * @effects maps node to (distance, parentEdge, not closed).
+	 */
+	void reach(int node, double distance, int parentEdge) {
+		this.stamp_[node] = this.generation_;
+		this.distance_[node] = distance;
+		this.parentEdge_[node] = parentEdge;
+		this.closed_[node] = false;
+	}
+
+	/**
+	 * Marks the distance to a node as final.
+	 * @requires isReached(node)
+	 * @modifies this
+	 * @effects node is closed.
+	 */
+	void close(int node) {
+		this.closed_[node] = true;
+	}
+}
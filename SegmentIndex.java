@@ -0,0 +1,494 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A SegmentIndex is an immutable spatial index over a collection of
+ * GeoSegments, answering which segments are near a GeoPoint or inside a
+ * GeoBox without scanning all of them.
+ * <p>
+ * The index is a packed R-tree, bulk-loaded with the Sort-Tile-Recursive
+ * algorithm: segments are sorted into tiles of nearby segments, and every
+ * node of the tree holds the bounding box of up to <tt>NODE_SIZE</tt>
+ * children. Queries only descend into nodes whose box can hold an answer,
+ * so for segments spread over a road network they visit O(log n) nodes
+ * (plus the answers themselves). Distances are computed with the
+ * flat-surface, near the Technion approximation of GeoPoint.distanceTo.
+ * <p>
+ * The whole tree is kept in primitive arrays that are never modified after
+ * construction, so a SegmentIndex is safe for any number of concurrent
+ * readers.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   geoSegments : bag of GeoSegment   // the indexed segments
+ * </pre>
+ */
+public final class SegmentIndex {
+
+	/** Maximum number of children of a node of the tree. **/
+	public static final int NODE_SIZE = 16;
+
+	// the indexed segments, in the order of the leaves of the tree
+	private final GeoSegment[] segments_;
+
+	// the endpoints of segments_[i] are (coordinates_[4i], coordinates_[4i+1])
+	// and (coordinates_[4i+2], coordinates_[4i+3])
+	private final int[] coordinates_;
+
+	// the box of node g is boxes_[4g..4g+3] = minLatitude, minLongitude,
+	// maxLatitude, maxLongitude. Nodes 0..n-1 are the leaves (the segments),
+	// followed by the internal nodes level by level, up to the root.
+	private final int[] boxes_;
+
+	// the children of internal node n + k are the nodes
+	// firstChild_[k] .. endChild_[k] - 1
+	private final int[] firstChild_;
+	private final int[] endChild_;
+
+	// the number of levels of internal nodes
+	private final int height_;
+
+	// Abstraction Function :
+	// represents the bag of segments segments_[0..n-1].
+
+	// Representation Invariant :
+	// segments != null and n = segments.length and
+	// coordinates.length = 4n and boxes.length = 4 * (number of nodes) and
+	// the box of every leaf is the bounding box of its segment, and the box
+	// of every internal node is the union of the boxes of its children, and
+	// the children of each internal node are consecutive nodes of the level
+	// below it.
+
+
+	/**
+	 * Constructs an index over a collection of segments.
+	 * @requires geoSegments != null && no segment in it is null
+	 * @effects constructs an index i such that i.geoSegments = geoSegments.
+	 */
+	public SegmentIndex(Collection<GeoSegment> geoSegments) {
+		assert geoSegments != null;
+		GeoSegment[] input = geoSegments.toArray(new GeoSegment[0]);
+		int n = input.length;
+		int[] sumLatitudes = new int[n];
+		int[] sumLongitudes = new int[n];
+		for(int i = 0; i < n; i++) {
+			GeoPoint p1 = input[i].getP1();
+			GeoPoint p2 = input[i].getP2();
+			sumLatitudes[i] = p1.getLatitude() + p2.getLatitude();
+			sumLongitudes[i] = p1.getLongitude() + p2.getLongitude();
+		}
+		int[] order = tile(sumLatitudes, sumLongitudes);
+
+		this.segments_ = new GeoSegment[n];
+		this.coordinates_ = new int[4 * n];
+		for(int i = 0; i < n; i++) {
+			GeoSegment gs = input[order[i]];
+			this.segments_[i] = gs;
+			this.coordinates_[4 * i] = gs.getP1().getLatitude();
+			this.coordinates_[4 * i + 1] = gs.getP1().getLongitude();
+			this.coordinates_[4 * i + 2] = gs.getP2().getLatitude();
+			this.coordinates_[4 * i + 3] = gs.getP2().getLongitude();
+		}
+
+		// count the nodes of every level
+		int nodes = n;
+		int height = 0;
+		for(int count = n; count > 1; count = (count + NODE_SIZE - 1) /
+											   NODE_SIZE) {
+			nodes += (count + NODE_SIZE - 1) / NODE_SIZE;
+			height++;
+		}
+		this.height_ = height;
+		this.boxes_ = new int[4 * nodes];
+		this.firstChild_ = new int[nodes - n];
+		this.endChild_ = new int[nodes - n];
+
+		for(int i = 0; i < n; i++) {
+			int[] c = this.coordinates_;
+			this.boxes_[4 * i] = Math.min(c[4 * i], c[4 * i + 2]);
+			this.boxes_[4 * i + 1] = Math.min(c[4 * i + 1], c[4 * i + 3]);
+			this.boxes_[4 * i + 2] = Math.max(c[4 * i], c[4 * i + 2]);
+			this.boxes_[4 * i + 3] = Math.max(c[4 * i + 1], c[4 * i + 3]);
+		}
+
+		// pack every level into the one above it, tiling the nodes of every
+		// internal level like the segments
+		int levelStart = 0;
+		int levelEnd = n;
+		int next = n;
+		while(levelEnd - levelStart > 1) {
+			if(levelStart > 0)
+				tileLevel(levelStart, levelEnd);
+			for(int child = levelStart; child < levelEnd; child += NODE_SIZE) {
+				int end = Math.min(child + NODE_SIZE, levelEnd);
+				this.firstChild_[next - n] = child;
+				this.endChild_[next - n] = end;
+				union(next, child, end);
+				next++;
+			}
+			levelStart = levelEnd;
+			levelEnd = next;
+		}
+		checkRep();
+	}
+
+	/**
+	 * check to see if the representation invariant is being violated
+	 * @throw AssertionError if representation invariant is violated
+	 */
+	private void checkRep() {
+		assert (this.segments_ != null) &&
+			   (this.coordinates_.length == 4 * this.segments_.length) &&
+			   (this.firstChild_.length ==
+				this.boxes_.length / 4 - this.segments_.length) &&
+			   (this.endChild_.length == this.firstChild_.length);
+	}
+
+	/**
+	 * Reorders the internal nodes of a level into tiles, with the
+	 * Sort-Tile-Recursive algorithm.
+	 * @requires from < to are the bounds of a level of internal nodes
+	 * @modifies this
+	 * @effects permutes the nodes from .. to - 1, with their boxes and
+	 * 			children, such that runs of NODE_SIZE consecutive nodes are
+	 * 			close to each other.
+	 */
+	private void tileLevel(int from, int to) {
+		int count = to - from;
+		int n = this.segments_.length;
+		int[] b = this.boxes_;
+		int[] sumLatitudes = new int[count];
+		int[] sumLongitudes = new int[count];
+		for(int i = 0; i < count; i++) {
+			int node = from + i;
+			sumLatitudes[i] = b[4 * node] + b[4 * node + 2];
+			sumLongitudes[i] = b[4 * node + 1] + b[4 * node + 3];
+		}
+		int[] order = tile(sumLatitudes, sumLongitudes);
+
+		int[] boxes = Arrays.copyOfRange(b, 4 * from, 4 * to);
+		int[] firstChild = Arrays.copyOfRange(this.firstChild_, from - n,
+											  to - n);
+		int[] endChild = Arrays.copyOfRange(this.endChild_, from - n, to - n);
+		for(int i = 0; i < count; i++) {
+			int node = from + i;
+			System.arraycopy(boxes, 4 * order[i], b, 4 * node, 4);
+			this.firstChild_[node - n] = firstChild[order[i]];
+			this.endChild_[node - n] = endChild[order[i]];
+		}
+	}
+
+	/**
+	 * Sorts items into tiles, with the Sort-Tile-Recursive algorithm.
+	 * @requires sumLatitudes != null && sumLongitudes != null &&
+	 * 			 sumLatitudes.length = sumLongitudes.length, holding twice the
+	 * 			 coordinates of the centers of the items
+	 * @return a permutation of the indices of the items, such that runs of
+	 * 		   NODE_SIZE consecutive items are close to each other.
+	 */
+	private static int[] tile(int[] sumLatitudes, int[] sumLongitudes) {
+		int n = sumLatitudes.length;
+		long[] keys = new long[n];
+
+		// sort by the longitudes of the centers
+		for(int i = 0; i < n; i++)
+			keys[i] = key(sumLongitudes[i], i);
+		Arrays.sort(keys);
+
+		// cut into vertical slices of about sqrt(n / NODE_SIZE) leaves, and
+		// sort each slice by the latitudes of the centers
+		int leaves = (n + NODE_SIZE - 1) / NODE_SIZE;
+		int slices = Math.max(1, (int)Math.ceil(Math.sqrt(leaves)));
+		int sliceSize = Math.max(1, (leaves + slices - 1) / slices) *
+						NODE_SIZE;
+		for(int start = 0; start < n; start += sliceSize) {
+			int end = Math.min(start + sliceSize, n);
+			for(int i = start; i < end; i++) {
+				int index = (int)keys[i];
+				keys[i] = key(sumLatitudes[index], index);
+			}
+			Arrays.sort(keys, start, end);
+		}
+
+		int[] order = new int[n];
+		for(int i = 0; i < n; i++)
+			order[i] = (int)keys[i];
+		return order;
+	}
+
+	/**
+	 * Returns a sort key for a segment.
+	 * @requires |sum| <= 2 * MAX_LONGITUDE && index >= 0
+	 * @return a long ordered by sum first and index second, from which
+	 * 		   (int)key = index.
+	 */
+	private static long key(int sum, int index) {
+		return ((long)sum << 32) | index;
+	}
+
+	/**
+	 * Sets the box of a node to the union of the boxes of a range of nodes.
+	 * @requires node is not in [from, to) && from < to
+	 * @modifies this
+	 * @effects the box of node = the union of the boxes of nodes from to
+	 * 			to - 1.
+	 */
+	private void union(int node, int from, int to) {
+		int[] b = this.boxes_;
+		int minLatitude = Integer.MAX_VALUE;
+		int minLongitude = Integer.MAX_VALUE;
+		int maxLatitude = Integer.MIN_VALUE;
+		int maxLongitude = Integer.MIN_VALUE;
+		for(int i = from; i < to; i++) {
+			minLatitude = Math.min(minLatitude, b[4 * i]);
+			minLongitude = Math.min(minLongitude, b[4 * i + 1]);
+			maxLatitude = Math.max(maxLatitude, b[4 * i + 2]);
+			maxLongitude = Math.max(maxLongitude, b[4 * i + 3]);
+		}
+		b[4 * node] = minLatitude;
+		b[4 * node + 1] = minLongitude;
+		b[4 * node + 2] = maxLatitude;
+		b[4 * node + 3] = maxLongitude;
+	}
+
+	/**
+	 * Returns the number of indexed segments.
+	 * @return |this.geoSegments|
+	 */
+	public int size() {
+		return this.segments_.length;
+	}
+
+	/**
+	 * Returns the root of the tree.
+	 * @requires size() > 0
+	 * @return the index of the root node.
+	 */
+	private int root() {
+		return this.boxes_.length / 4 - 1;
+	}
+
+	/**
+	 * Returns the distance from a point to the box of a node.
+	 * @return the distance from (latitude, longitude) to the box of node.
+	 */
+	private double boxDistance(int latitude, int longitude, int node) {
+		int[] b = this.boxes_;
+		return GeoBox.distance(latitude, longitude, b[4 * node],
+							   b[4 * node + 1], b[4 * node + 2],
+							   b[4 * node + 3]);
+	}
+
+	/**
+	 * Returns the distance from a point to an indexed segment.
+	 * @requires 0 <= i < size()
+	 * @return the distance from (latitude, longitude) to segments_[i].
+	 */
+	private double segmentDistance(int latitude, int longitude, int i) {
+		int[] c = this.coordinates_;
+		return GeoPoint.segmentDistance(latitude, longitude, c[4 * i],
+										c[4 * i + 1], c[4 * i + 2],
+										c[4 * i + 3]);
+	}
+
+	/**
+	 * Returns a stack deep enough for a depth-first walk of the tree.
+	 * @return an array with room for every node pending in a depth-first
+	 * 		   walk of the tree.
+	 */
+	private int[] newStack() {
+		return new int[this.height_ * (NODE_SIZE - 1) + 1];
+	}
+
+	/**
+	 * Finds the segments whose bounding box intersects a box.
+	 * @requires box != null
+	 * @return the segments gs in this.geoSegments such that the smallest box
+	 * 		   containing gs.p1 and gs.p2 intersects box, in no particular
+	 * 		   order.
+	 */
+	public List<GeoSegment> search(GeoBox box) {
+		assert box != null;
+		List<GeoSegment> result = new ArrayList<GeoSegment>();
+		int n = this.segments_.length;
+		if(n == 0)
+			return result;
+		int[] b = this.boxes_;
+		int[] stack = newStack();
+		int top = 0;
+		stack[top++] = root();
+		while(top > 0) {
+			int node = stack[--top];
+			if(!box.intersects(b[4 * node], b[4 * node + 1], b[4 * node + 2],
+							   b[4 * node + 3]))
+				continue;
+			if(node < n)
+				result.add(this.segments_[node]);
+			else
+				for(int child = this.firstChild_[node - n];
+					child < this.endChild_[node - n]; child++)
+					stack[top++] = child;
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the segments within a distance of a point.
+	 * @requires center != null && km >= 0
+	 * @return the segments gs in this.geoSegments such that
+	 * 		   gs.distanceTo(center) <= km, in no particular order.
+	 */
+	public List<GeoSegment> withinDistance(GeoPoint center, double km) {
+		assert (center != null) && (km >= 0);
+		List<GeoSegment> result = new ArrayList<GeoSegment>();
+		int n = this.segments_.length;
+		if(n == 0)
+			return result;
+		int latitude = center.getLatitude();
+		int longitude = center.getLongitude();
+		int[] stack = newStack();
+		int top = 0;
+		stack[top++] = root();
+		while(top > 0) {
+			int node = stack[--top];
+			if(boxDistance(latitude, longitude, node) > km)
+				continue;
+			if(node < n) {
+				if(segmentDistance(latitude, longitude, node) <= km)
+					result.add(this.segments_[node]);
+			}
+			else
+				for(int child = this.firstChild_[node - n];
+					child < this.endChild_[node - n]; child++)
+					stack[top++] = child;
+		}
+		return result;
+	}
+
+	/**
+	 * Tests whether a segment of this index comes within a distance of a
+	 * segment of another index. The two trees are walked together, and a
+	 * pair of nodes is only expanded if their boxes are within km of each
+	 * other, so exact segment distances are only computed for pairs of
+	 * segments whose boxes are that close.
+	 * @requires index != null && km >= 0
+	 * @return true iff there are gs1 in this.geoSegments and gs2 in
+	 * 		   index.geoSegments such that gs1.distanceTo(gs2) <= km.
+	 */
+	public boolean isWithinDistance(SegmentIndex index, double km) {
+		assert (index != null) && (km >= 0);
+		int n = this.segments_.length;
+		int m = index.segments_.length;
+		if(n == 0 || m == 0)
+			return false;
+		int[] b = this.boxes_;
+		int[] c = this.coordinates_;
+		int[] otherB = index.boxes_;
+		int[] otherC = index.coordinates_;
+
+		// every expansion pops a pair and pushes the pairs of one of its
+		// nodes with the children of the other, so at most one level of
+		// either tree is pending at a time
+		int[] stack = new int[2 * ((this.height_ + index.height_) *
+								   (NODE_SIZE - 1) + 1)];
+		int top = 0;
+		stack[top++] = root();
+		stack[top++] = index.root();
+		while(top > 0) {
+			int other = stack[--top];
+			int node = stack[--top];
+			if(GeoBox.distance(b[4 * node], b[4 * node + 1], b[4 * node + 2],
+							   b[4 * node + 3], otherB[4 * other],
+							   otherB[4 * other + 1], otherB[4 * other + 2],
+							   otherB[4 * other + 3]) > km)
+				continue;
+			if(node < n && other < m) {
+				if(GeoPoint.segmentsDistance(c[4 * node], c[4 * node + 1],
+											 c[4 * node + 2], c[4 * node + 3],
+											 otherC[4 * other],
+											 otherC[4 * other + 1],
+											 otherC[4 * other + 2],
+											 otherC[4 * other + 3]) <= km)
+					return true;
+			}
+			else if(other < m || (node >= n &&
+					boxSpan(b, node) >= boxSpan(otherB, other))) {
+				// expand the larger of the two nodes
+				for(int child = this.firstChild_[node - n];
+					child < this.endChild_[node - n]; child++) {
+					stack[top++] = child;
+					stack[top++] = other;
+				}
+			}
+			else
+				for(int child = index.firstChild_[other - m];
+					child < index.endChild_[other - m]; child++) {
+					stack[top++] = node;
+					stack[top++] = child;
+				}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the size of the box of a node, for choosing which of two
+	 * nodes to expand.
+	 * @requires boxes is the boxes_ of an index and node is one of its nodes
+	 * @return the sum of the height and the width of the box of node, in
+	 * 		   millionths of degrees.
+	 */
+	private static long boxSpan(int[] boxes, int node) {
+		return (long)boxes[4 * node + 2] - boxes[4 * node] +
+			   (long)boxes[4 * node + 3] - boxes[4 * node + 1];
+	}
+
+	/**
+	 * Finds the segments nearest to a point.
+	 * @requires center != null && k >= 1
+	 * @return the min(k, size()) segments of this.geoSegments nearest to
+	 * 		   center, in order of increasing distance from center. Ties are
+	 * 		   broken arbitrarily.
+	 */
+	public List<GeoSegment> nearest(GeoPoint center, int k) {
+		assert (center != null) && (k >= 1);
+		List<GeoSegment> result = new ArrayList<GeoSegment>(
+				Math.min(k, this.segments_.length));
+		int n = this.segments_.length;
+		if(n == 0)
+			return result;
+		int latitude = center.getLatitude();
+		int longitude = center.getLongitude();
+
+		// best first: a node is popped only after every node nearer to
+		// center, and segments are pushed with their exact distance
+		MinHeap queue = new MinHeap(4 * NODE_SIZE);
+		queue.push(0, root());
+		while(!queue.isEmpty() && result.size() < k) {
+			int node = queue.pop();
+			if(node < n)
+				result.add(this.segments_[node]);
+			else
+				for(int child = this.firstChild_[node - n];
+					child < this.endChild_[node - n]; child++)
+					queue.push((child < n) ?
+							segmentDistance(latitude, longitude, child) :
+							boxDistance(latitude, longitude, child), child);
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the segment nearest to a point.
+	 * @requires center != null
+	 * @return a segment of this.geoSegments nearest to center, or null if
+	 * 		   this.geoSegments is empty.
+	 */
+	public GeoSegment nearest(GeoPoint center) {
+		List<GeoSegment> nearest = nearest(center, 1);
+		return nearest.isEmpty() ? null : nearest.get(0);
+	}
+}
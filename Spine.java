@@ -0,0 +1,153 @@
+package homework1;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A Spine is an append-only array of elements shared by a family of
+ * immutable sequences (Routes and GeoFeatures).
+ * <p>
+ * Each sequence owns a prefix [0, size) of a spine. Appending to a sequence
+ * whose prefix ends where the spine ends writes the new element in place, so
+ * the new sequence shares the whole prefix with the old one. Appending to a
+ * sequence whose prefix has already been extended by someone else copies
+ * the prefix into a new spine (unless the very same element was appended).
+ * Elements inside a published prefix are never overwritten, which is what
+ * keeps the sequences built on top of a spine immutable.
+ * <p>
+ * Every element is appended together with a weight (the length of a segment
+ * or of a geographic feature), and the spine keeps the prefix sums of the
+ * weights so that the total weight of any prefix is available in O(1).
+ * <p>
+ * Spines are package-private; they are never exposed to clients.
+ */
+final class Spine<E> {
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	private volatile Object[] elements_;
+	private volatile double[] sums_;
+	private int size_;
+
+	// Abstraction Function :
+	// represents the sequence elements_[0], ..., elements_[size_ - 1] where
+	// every prefix of it may be referenced by an immutable sequence, and
+	// sums_[i] is the total weight of elements_[0], ..., elements_[i].
+
+	// Representation Invariant :
+	// elements_ != null and sums_ != null and 
+	// 0 <= size_ <= elements_.length = sums_.length and
+	// elements_[i] != null for every 0 <= i < size_ and
+	// sums_[i - 1] <= sums_[i] for every 0 < i < size_
+
+
+	/**
+	 * Constructs an empty spine.
+	 * @effects constructs a new spine with no elements.
+	 */
+	Spine() {
+		this.elements_ = new Object[INITIAL_CAPACITY];
+		this.sums_ = new double[INITIAL_CAPACITY];
+		this.size_ = 0;
+	}
+
+	/**
+	 * Constructs a spine holding the given elements.
+	 * @requires elements != null && sums != null &&
+	 * 			 0 <= size <= elements.length = sums.length
+	 * @effects constructs a new spine whose first size elements (and prefix
+	 * 			sums) are the first size elements of elements (and sums).
+	 * 			The arrays are taken over.
+	 */
+	private Spine(Object[] elements, double[] sums, int size) {
+		this.elements_ = elements;
+		this.sums_ = sums;
+		this.size_ = size;
+	}
+
+	/**
+	 * Returns the element at the given index.
+	 * @requires 0 <= index < size of the prefix owned by the caller
+	 * @return the element at the given index.
+	 */
+	@SuppressWarnings("unchecked")
+	E get(int index) {
+		return (E)this.elements_[index];
+	}
+
+	/**
+	 * Returns the total weight of a prefix of this spine.
+	 * @requires 0 <= count <= size of the prefix owned by the caller
+	 * @return the sum of the weights of this[0], ..., this[count - 1].
+	 */
+	double sumTo(int count) {
+		return (count == 0) ? 0 : this.sums_[count - 1];
+	}
+
+	/**
+	 * Returns an unmodifiable iterator over a range of this spine.
+	 * @requires 0 <= from <= to <= size of the prefix owned by the caller
+	 * @return an Iterator over this[from], ..., this[to - 1] that does not
+	 * 		   support removal.
+	 */
+	Iterator<E> iterator(final int from, final int to) {
+		return new Iterator<E>() {
+			private int next_ = from;
+
+			public boolean hasNext() {
+				return this.next_ < to;
+			}
+
+			public E next() {
+				if(this.next_ >= to)
+					throw new NoSuchElementException();
+				return get(this.next_++);
+			}
+		};
+	}
+
+	/**
+	 * Appends an element right after the prefix [0, at) of this spine.
+	 * @requires e != null && weight >= 0 && 0 <= at <= size of this spine
+	 * @return a spine s such that s[0, at) = this[0, at) && s[at] = e &&
+	 * 		   s.sumTo(at + 1) = this.sumTo(at) + weight.
+	 * 		   s is this spine whenever the element could be written in place
+	 * 		   (or was already there), otherwise a new spine.
+	 */
+	synchronized Spine<E> append(int at, E e, double weight) {
+		assert (e != null) && (weight >= 0) && (0 <= at) && (at <= this.size_);
+		double sum = sumTo(at) + weight;
+		if(at == this.size_) {
+			Object[] elements = this.elements_;
+			double[] sums = this.sums_;
+			if(this.size_ == elements.length) {
+				elements = Arrays.copyOf(elements, 2 * elements.length);
+				sums = Arrays.copyOf(sums, 2 * sums.length);
+				elements[this.size_] = e;
+				sums[this.size_] = sum;
+				this.sums_ = sums;
+				this.elements_ = elements;
+			}
+			else {
+				sums[this.size_] = sum;
+				elements[this.size_] = e;
+			}
+			this.size_++;
+			return this;
+		}
+
+		// the same element was already appended after this prefix
+		if(this.elements_[at] == e)
+			return this;
+
+		// the prefix was extended in another direction, branch off a copy
+		int capacity = Math.max(INITIAL_CAPACITY, 2 * (at + 1));
+		Object[] elements = Arrays.copyOf(this.elements_, capacity);
+		double[] sums = Arrays.copyOf(this.sums_, capacity);
+		elements[at] = e;
+		sums[at] = sum;
+		Arrays.fill(elements, at + 1, capacity, null);
+		return new Spine<E>(elements, sums, at + 1);
+	}
+}
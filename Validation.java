@@ -0,0 +1,214 @@
+package homework1;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Validation controls how often the classes of this package check their
+ * representation invariants (checkRep), and keeps counters of how much time
+ * those checks cost.
+ * <p>
+ * Representation invariants are checked with assertions, so nothing is
+ * checked unless assertions are enabled (<tt>-ea</tt>). When they are, the
+ * validation level decides which calls to checkRep actually check:
+ * <ul>
+ * <li><tt>FULL</tt> - every call checks the whole representation, including
+ *     O(n) walks over the segments of a GeoFeature or Route. This is the
+ *     default.</li>
+ * <li><tt>CONSTRUCTION</tt> - only constructors check, and only the parts of
+ *     the representation they create; the parts they share were checked when
+ *     they were constructed.</li>
+ * <li><tt>SAMPLED</tt> - constructors check like in <tt>CONSTRUCTION</tt>,
+ *     and a random one out of every <tt>sampleRate</tt> other calls checks
+ *     the whole representation.</li>
+ * <li><tt>OFF</tt> - nothing is checked.</li>
+ * </ul>
+ * The initial level is read from the <tt>homework1.validation</tt> system
+ * property (for example <tt>-Dhomework1.validation=sampled</tt>), and the
+ * initial sample rate from <tt>homework1.validation.sampleRate</tt>.
+ */
+public final class Validation {
+
+	/**
+	 * The levels of validation, from the most thorough to none at all.
+	 */
+	public enum Level { FULL, CONSTRUCTION, SAMPLED, OFF }
+
+	/** System property holding the initial validation level. **/
+	public static final String LEVEL_PROPERTY = "homework1.validation";
+
+	/** System property holding the initial sample rate. **/
+	public static final String SAMPLE_RATE_PROPERTY =
+										"homework1.validation.sampleRate";
+
+	/** Sample rate used when none is given. **/
+	public static final int DEFAULT_SAMPLE_RATE = 64;
+
+	// checkRep is made of assertions, so there is nothing to decide (or to
+	// count) when they are disabled.
+	private static final boolean ASSERTIONS =
+							Validation.class.desiredAssertionStatus();
+
+	private static volatile Level level_ = parseLevel(
+			System.getProperty(LEVEL_PROPERTY));
+	private static volatile int sampleRate_ = parseSampleRate(
+			System.getProperty(SAMPLE_RATE_PROPERTY));
+
+	private static final LongAdder checks_ = new LongAdder();
+	private static final LongAdder nanos_ = new LongAdder();
+
+
+	private Validation() {
+	}
+
+	/**
+	 * Returns the current validation level.
+	 * @return the current validation level.
+	 */
+	public static Level getLevel() {
+		return level_;
+	}
+
+	/**
+	 * Sets the validation level.
+	 * @requires level != null
+	 * @effects sets the validation level to level.
+	 */
+	public static void setLevel(Level level) {
+		assert level != null;
+		level_ = level;
+	}
+
+	/**
+	 * Returns the current sample rate of the <tt>SAMPLED</tt> level.
+	 * @return the current sample rate.
+	 */
+	public static int getSampleRate() {
+		return sampleRate_;
+	}
+
+	/**
+	 * Sets the sample rate of the <tt>SAMPLED</tt> level.
+	 * @requires sampleRate >= 1
+	 * @effects about one out of every sampleRate calls to checkRep will
+	 * 			check the whole representation at the <tt>SAMPLED</tt> level.
+	 */
+	public static void setSampleRate(int sampleRate) {
+		assert sampleRate >= 1;
+		sampleRate_ = sampleRate;
+	}
+
+	/**
+	 * Returns the number of representation checks performed so far.
+	 * @return the number of representation checks performed since the
+	 * 		   counters were last reset.
+	 */
+	public static long getCheckCount() {
+		return checks_.sum();
+	}
+
+	/**
+	 * Returns the time spent checking representations so far.
+	 * @return the time spent in representation checks since the counters
+	 * 		   were last reset, in nanoseconds. A check that triggers other
+	 * 		   checks (a Route checking its GeoFeatures) includes their time,
+	 * 		   so under thorough levels this may exceed the elapsed time.
+	 */
+	public static long getCheckNanos() {
+		return nanos_.sum();
+	}
+
+	/**
+	 * Resets the validation counters.
+	 * @effects getCheckCount() = 0 && getCheckNanos() = 0
+	 */
+	public static void resetCounters() {
+		checks_.reset();
+		nanos_.reset();
+	}
+
+	/**
+	 * Returns whether a call to checkRep should check anything.
+	 * @param onConstruction whether checkRep is called from a constructor.
+	 * @return true iff the call should check the representation.
+	 */
+	static boolean shouldCheck(boolean onConstruction) {
+		if(!ASSERTIONS)
+			return false;
+		switch(level_) {
+			case FULL:
+				return true;
+			case CONSTRUCTION:
+				return onConstruction;
+			case SAMPLED:
+				return onConstruction ||
+					   ThreadLocalRandom.current().nextInt(sampleRate_) == 0;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Returns whether a check should walk the whole representation, or
+	 * only the parts of it that are O(1) to check.
+	 * @param onConstruction whether the check is made from a constructor.
+	 * @requires shouldCheck(onConstruction) was true for this check
+	 * @return true iff the check should walk the whole representation.
+	 */
+	static boolean isThorough(boolean onConstruction) {
+		Level level = level_;
+		return (level == Level.FULL) ||
+			   (level == Level.SAMPLED && !onConstruction);
+	}
+
+	/**
+	 * Marks the beginning of a representation check.
+	 * @return a timestamp to pass to checked().
+	 */
+	static long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Marks the end of a representation check.
+	 * @param start the timestamp returned by start() for this check.
+	 * @effects adds this check to the validation counters.
+	 */
+	static void checked(long start) {
+		nanos_.add(System.nanoTime() - start);
+		checks_.increment();
+	}
+
+	/**
+	 * Parses a validation level.
+	 * @return the level named by value (ignoring case), or FULL if value is
+	 * 		   null or names no level.
+	 */
+	private static Level parseLevel(String value) {
+		if(value != null) {
+			for(Level level : Level.values())
+				if(level.name().equalsIgnoreCase(value.trim()))
+					return level;
+		}
+		return Level.FULL;
+	}
+
+	/**
+	 * Parses a sample rate.
+	 * @return the positive integer held by value, or DEFAULT_SAMPLE_RATE if
+	 * 		   value is null or does not hold one.
+	 */
+	private static int parseSampleRate(String value) {
+		if(value != null) {
+			try {
+				int sampleRate = Integer.parseInt(value.trim());
+				if(sampleRate >= 1)
+					return sampleRate;
+			}
+			catch(NumberFormatException e) {
+				// fall back to the default below
+			}
+		}
+		return DEFAULT_SAMPLE_RATE;
+	}
+}
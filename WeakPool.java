@@ -0,0 +1,87 @@
+package homework1;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * A WeakPool maps values to a canonical instance equal to them, without
+ * keeping the canonical instances alive: once no one else refers to a
+ * canonical instance it is garbage collected and dropped from the pool.
+ * <p>
+ * A WeakPool is safe for concurrent use. It is split into stripes, each
+ * guarded by its own lock, so threads interning different values rarely
+ * contend.
+ */
+final class WeakPool<T> {
+
+	private static final int STRIPES = 16;
+
+	private final WeakHashMap<T, WeakReference<T>>[] stripes_;
+
+	// Abstraction Function :
+	// represents the set of canonical instances held by all the stripes,
+	// a value v is held by stripes_[stripe(v.hashCode())].
+
+	// Representation Invariant :
+	// stripes_ != null and stripes_.length = STRIPES and no stripe is null
+	// and every entry (k, ref) has ref.get() == k or ref.get() == null
+
+
+	/**
+	 * Constructs an empty pool.
+	 * @effects constructs a new pool with no canonical instances.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	WeakPool() {
+		this.stripes_ = new WeakHashMap[STRIPES];
+		for(int i = 0; i < STRIPES; i++)
+			this.stripes_[i] = new WeakHashMap<T, WeakReference<T>>();
+	}
+
+	/**
+	 * Returns the stripe that holds values with the given hash code.
+	 * @return the stripe that holds values with the given hash code.
+	 */
+	private WeakHashMap<T, WeakReference<T>> stripe(int hash) {
+		hash ^= (hash >>> 16);
+		hash *= 0x9e3779b9;
+		return this.stripes_[(hash >>> 28) & (STRIPES - 1)];
+	}
+
+	/**
+	 * Returns the canonical instance equal to a value.
+	 * @requires value != null
+	 * @modifies this
+	 * @effects makes value the canonical instance of its equivalence class
+	 * 			if there was none.
+	 * @return the canonical instance c such that c.equals(value).
+	 */
+	T intern(T value) {
+		assert value != null;
+		WeakHashMap<T, WeakReference<T>> stripe = stripe(value.hashCode());
+		synchronized(stripe) {
+			WeakReference<T> ref = stripe.get(value);
+			T canonical = (ref == null) ? null : ref.get();
+			if(canonical == null) {
+				stripe.put(value, new WeakReference<T>(value));
+				canonical = value;
+			}
+			return canonical;
+		}
+	}
+
+	/**
+	 * Returns the number of canonical instances in this pool.
+	 * @return the number of canonical instances that were not garbage
+	 * 		   collected yet.
+	 */
+	int size() {
+		int size = 0;
+		for(WeakHashMap<T, WeakReference<T>> stripe : this.stripes_) {
+			synchronized(stripe) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+}